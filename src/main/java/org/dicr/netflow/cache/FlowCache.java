@@ -41,8 +41,9 @@ public interface FlowCache {
 	/**
      * Accumulate flow into the cache.
      * <P>
-     * First, try to {@link Flow#merge(Flow) merge} flow which each other flow in buffer. If flow can't be merged, then simple
-     * add it to buffer. Flow must be the same type as {@link #getFlowType() cache type}.
+     * First, try to {@link Flow#merge(Flow) merge} flow with flow in buffer, which have the same
+     * {@link FlowType#getFlowKey(Flow) key}. If flow can't be merged, then simple add it to buffer. Flow must be the same
+     * type as {@link #getFlowType() cache type}.
      * </P>
      *
      * @param flow flow to accumelate.
@@ -12,6 +12,10 @@ import org.dicr.netflow.packet.*;
 /**
  * Abstract Flow Cache. Implement common methods of flow cache.
  * <P>
+ * Cache provide {@link #start() thread}, which call {@link #expire() expire} every second and fire expired flows to
+ * {@link #setFlowListeners(Set) listeners}.
+ * </P>
+ * <P>
  * Cache {@link #setFlowType(FlowType) flow type} must be configured before using cache.
  * </P>
  * 
@@ -28,6 +32,9 @@ public abstract class AbstractFlowCache implements FlowCache, PacketListener, Fl
 	/** Flow Type */
 	private FlowType flowType = null;
 
+	/** Expiration thread */
+	private ExpireThread expireThread = null;
+
 	/**
 	 * Constructor
 	 */
@@ -121,8 +128,8 @@ public abstract class AbstractFlowCache implements FlowCache, PacketListener, Fl
 		synchronized (this.listeners) {
 			if (this.listeners.isEmpty()) AbstractFlowCache.log.debug("no listeners");
 			else {
-				AbstractFlowCache.log.trace("firing " + flows.size() + " expired flows to " + this.listeners.size()
-				        + " listeners");
+				if (AbstractFlowCache.log.isTraceEnabled()) AbstractFlowCache.log.trace("firing " + flows.size()
+				        + " expired flows to " + this.listeners.size() + " listeners");
 				for (final FlowListener listener : this.listeners)
 					try {
 						listener.processFlows(flows);
@@ -144,7 +151,8 @@ public abstract class AbstractFlowCache implements FlowCache, PacketListener, Fl
 		for (final Flow flow : flows) {
 			this.accumulate(flow);
 		}
-		AbstractFlowCache.log.trace("accumulated " + flows.size() + " flows");
+		if (AbstractFlowCache.log.isTraceEnabled()) AbstractFlowCache.log.trace("accumulated " + flows.size()
+		        + " flows");
 	}
 
 	/**
@@ -157,4 +165,109 @@ public abstract class AbstractFlowCache implements FlowCache, PacketListener, Fl
 		if (packet.getFlowsCount() < 1) return;
 		this.processFlows(packet.getFlows());
 	}
+
+	/**
+	 * Expire flows at current uptime.
+	 * 
+	 * @see #expire(long)
+	 * @see org.dicr.netflow.cache.FlowCache#expire()
+	 */
+	public Collection<Flow> expire() {
+		return this.expire(System.currentTimeMillis() - Flow.bootTime);
+	}
+
+	/**
+	 * Expire flows at specified uptime. Uptime must not go back: cache, which index flows by time, does not return
+	 * again to passed times.
+	 * 
+	 * @param uptime current time in milliseconds since {@link Flow#bootTime}
+	 * @return expired flows
+	 * @see org.dicr.netflow.cache.FlowCache#expire()
+	 */
+	public abstract Collection<Flow> expire(long uptime);
+
+	/**
+	 * Do cache expiration and fire expired flows to listeners.
+	 */
+	protected void doExpiration() {
+		final Collection<Flow> expiredFlows = this.expire();
+		if (!expiredFlows.isEmpty()) this.fireFlows(expiredFlows);
+	}
+
+	/**
+	 * Check if expiration thread is running
+	 * 
+	 * @return true if running
+	 */
+	public boolean isRunning() {
+		synchronized (this) {
+			return this.expireThread != null && this.expireThread.isAlive();
+		}
+	}
+
+	/**
+	 * Start expiration thread
+	 */
+	public void start() {
+		if (this.getFlowType() == null) throw new IllegalStateException("flow type not initialized");
+		synchronized (this) {
+			if (this.isRunning()) AbstractFlowCache.log.debug("flow cache expiration thread is already running");
+			else {
+				this.expireThread = new ExpireThread(AbstractFlowCache.log);
+				this.expireThread.start();
+			}
+		}
+	}
+
+	/**
+	 * Stop expiration thread
+	 */
+	public void stop() {
+		synchronized (this) {
+			if (!this.isRunning()) AbstractFlowCache.log.debug("flow cache expiration thread is already stopped");
+			else {
+				this.expireThread.interrupt();
+				this.expireThread = null;
+			}
+		}
+	}
+
+	/**
+	 * Cache Expiration Thread
+	 */
+	protected class ExpireThread extends Thread {
+		/** Logger */
+		private Logger threadLog = null;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param theLog logger to log messages
+		 */
+		protected ExpireThread(final Logger theLog) {
+			super("FlowCache expiration");
+			if (theLog == null) throw new IllegalArgumentException("null threadLog");
+			this.threadLog = theLog;
+			this.setDaemon(false);
+		}
+
+		/** Run cache flows expiration and export. */
+		@Override
+		public final void run() {
+			this.threadLog.info("starting FlowCache expiration thread, do expiration every 1 second");
+			while (!this.isInterrupted()) {
+				try {
+					Thread.sleep(1000);
+					AbstractFlowCache.this.doExpiration();
+					Thread.yield();
+				} catch (final InterruptedException ex) {
+					this.threadLog.debug("FlowCache expiration thread interrupted");
+					break;
+				} catch (final Exception ex) {
+					this.threadLog.error("error running flow cache expiration process", ex);
+				}
+			}
+			this.threadLog.info("FlowCache expiration thread stopped");
+		}
+	}
 }
@@ -11,10 +11,25 @@ import org.dicr.netflow.packet.*;
 /**
  * Default Flows Cache.
  * <P>
- * This is a default implementation of flow cache. This implementation provide thread, which automatically call
- * {@link #expire() expire} every second and fire expired flows to
+ * This is a default implementation of flow cache. This implementation provide {@link #start() thread}, which
+ * automatically call {@link #expire() expire} every second and fire expired flows to
  * {@link AbstractFlowCache#setFlowListeners(Set) listeners}.
  * </P>
+ * <P>
+ * Flows indexed by {@link FlowType#getFlowKey(Flow) flow key}, so accumulation cost does not depend on count of flows
+ * in the cache. Expiration times of flows indexed by {@link TimingWheel}, so each expiration inspect only flows, which
+ * expire time is come. Each cached flow has one entry in the wheel, which is moved when expire time change and removed
+ * with flow.
+ * </P>
+ * <P>
+ * Flow expires when {@link #setExpireTime(int) expire time} (active timeout) elapsed since it's first packet, when
+ * {@link #setInactiveTime(int) inactive time} elapsed since it's last packet, or immediately, when flow is
+ * {@link Flow#isFinished() finished}.
+ * </P>
+ * <P>
+ * When count of flows exceed {@link #setBufferSize(int) buffer size}, flows are evicted in order of
+ * {@link #setEvictionPolicy(EvictionPolicy) eviction policy}.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 060707
@@ -26,14 +41,23 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	/** Buffer size */
 	private int bufferSize = 1000;
 
-	/** Cache buffer, list is match faster then set */
-	private final Collection<Flow> buffer = new ArrayList<Flow>(this.bufferSize);
+	/** Lock of buffer and timing wheel */
+	private final Object lock = new Object();
+
+	/** Cache buffer in order of eviction */
+	private Map<FlowKey, Entry> buffer = DefaultFlowCache.createBuffer(EvictionPolicy.LRU, 0);
 
 	/** Flows expire time in milliseconds */
 	private long expireTime = 60000;
 
-	/** Expiration thread */
-	private ExpireThread expireThread = null;
+	/** Flows inactive time in milliseconds */
+	private long inactiveTime = 15000;
+
+	/** Eviction policy */
+	private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+	/** Expiration index of flow keys */
+	private final TimingWheel<Entry> wheel = new TimingWheel<Entry>(1000, 1024, DefaultFlowCache.uptime());
 
 	/**
 	 * Default constructor. Used in IoC configurations.
@@ -57,7 +81,7 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	 */
 	public void setBufferSize(final int size) {
 		if (size < 1) throw new IllegalArgumentException("buffer size: " + size);
-		synchronized (this.buffer) {
+		synchronized (this.lock) {
 			this.bufferSize = size;
 		}
 		DefaultFlowCache.log.debug("configured buffer size: " + size);
@@ -67,7 +91,7 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getBufferSize()
 	 */
 	public int getBufferSize() {
-		synchronized (this.buffer) {
+		synchronized (this.lock) {
 			return this.bufferSize;
 		}
 	}
@@ -77,8 +101,9 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	 */
 	public void setExpireTime(final int time) {
 		if (time < 1) throw new IllegalArgumentException("time: " + time);
-		synchronized (this.buffer) {
+		synchronized (this.lock) {
 			this.expireTime = time * 1000;
+			this.reindex();
 		}
 		DefaultFlowCache.log.debug("configured expire time: " + time + " seconds");
 	}
@@ -87,11 +112,68 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getExpireTime()
 	 */
 	public int getExpireTime() {
-		synchronized (this.buffer) {
+		synchronized (this.lock) {
 			return (int) (this.expireTime / 1000);
 		}
 	}
 
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#setInactiveTime(int)
+	 */
+	public void setInactiveTime(final int time) {
+		if (time < 1) throw new IllegalArgumentException("time: " + time);
+		synchronized (this.lock) {
+			this.inactiveTime = time * 1000;
+			this.reindex();
+		}
+		DefaultFlowCache.log.debug("configured inactive time: " + time + " seconds");
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getInactiveTime()
+	 */
+	public int getInactiveTime() {
+		synchronized (this.lock) {
+			return (int) (this.inactiveTime / 1000);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#setEvictionPolicy(org.dicr.netflow.cache.impl.EvictionPolicy)
+	 */
+	public void setEvictionPolicy(final EvictionPolicy policy) {
+		if (policy == null) throw new IllegalArgumentException("null policy");
+		synchronized (this.lock) {
+			if (policy != this.evictionPolicy) {
+				// order of buffer is fixed on creation, so copy flows in current order
+				final Map<FlowKey, Entry> newBuffer = DefaultFlowCache.createBuffer(policy, this.buffer.size());
+				newBuffer.putAll(this.buffer);
+				this.buffer = newBuffer;
+				this.evictionPolicy = policy;
+			}
+		}
+		DefaultFlowCache.log.debug("configured eviction policy: " + policy);
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getEvictionPolicy()
+	 */
+	public EvictionPolicy getEvictionPolicy() {
+		synchronized (this.lock) {
+			return this.evictionPolicy;
+		}
+	}
+
+	/**
+	 * Reindex flows by new expire times. Must be called under lock.
+	 */
+	private void reindex() {
+		this.wheel.clear();
+		for (final Entry entry : this.buffer.values()) {
+			this.wheel.schedule(entry, this.expireTime(entry.flow));
+		}
+	}
+
 	/**
 	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#accumulate(org.dicr.netflow.packet.Flow)
 	 */
@@ -103,16 +185,33 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 		if (!type.equals(flow.getFlowType())) throw new IllegalArgumentException("illegal flow type to accumulate: "
 		        + flow.getFlowType());
 		// aggregate
-		synchronized (this.buffer) {
-			boolean aggregated = false;
-			for (final Flow cflow : this.buffer) {
-				if (cflow.merge(flow)) {
-					aggregated = true;
-					break;
-				}
-			}
+		this.accumulate(type.getFlowKey(flow), flow);
+	}
+
+	/**
+	 * Accumulate flow with known key. Flow type must be checked by caller. Flow is not changed, cache store it's copy.
+	 * 
+	 * @param key key of flow
+	 * @param flow flow to accumulate
+	 */
+	protected void accumulate(final FlowKey key, final Flow flow) {
+		synchronized (this.lock) {
+			final Entry entry = this.buffer.get(key);
 			// add if not aggregated
-			if (!aggregated) this.buffer.add(flow);
+			if (entry == null) {
+				// flow is shared with other listeners, so cache merge into own copy
+				final Entry nentry = new Entry(new FlowKey(flow.copy()));
+				this.buffer.put(nentry.key, nentry);
+				this.wheel.schedule(nentry, this.expireTime(nentry.flow));
+			} else {
+				final Flow cflow = entry.flow;
+				final long time = this.expireTime(cflow);
+				if (!cflow.merge(flow)) throw new IllegalStateException("key of flow type " + flow.getFlowType()
+				        + " does not match merge: " + flow);
+				// flow expire earlier, move entry in the wheel
+				final long newTime = this.expireTime(cflow);
+				if (newTime < time) this.wheel.schedule(entry, newTime);
+			}
 		}
 	}
 
@@ -120,8 +219,12 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getContent()
 	 */
 	public Collection<Flow> getContent() {
-		synchronized (this.buffer) {
-			return Collections.unmodifiableCollection(this.buffer);
+		synchronized (this.lock) {
+			final Collection<Flow> content = new ArrayList<Flow>(this.buffer.size());
+			for (final Entry entry : this.buffer.values()) {
+				content.add(entry.flow);
+			}
+			return content;
 		}
 	}
 
@@ -129,36 +232,40 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#clear()
 	 */
 	public void clear() {
-		synchronized (this.buffer) {
+		synchronized (this.lock) {
 			this.buffer.clear();
+			this.wheel.clear();
 		}
 		DefaultFlowCache.log.trace("content cleared");
 	}
 
 	/**
-	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#expire()
+	 * @see org.dicr.netflow.cache.impl.AbstractFlowCache#expire(long)
 	 */
-	public Collection<Flow> expire() {
-		final Set<Flow> expiredFlows = new HashSet<Flow>();
-		final long uptime = System.currentTimeMillis() - Flow.bootTime;
-		synchronized (this.buffer) {
-			// expire by time
-			Iterator<? extends Flow> bufferIterator = this.buffer.iterator();
-			while (bufferIterator.hasNext()) {
-				final Flow flow = bufferIterator.next();
-				if (uptime - flow.getFirst() >= this.expireTime) {
-					expiredFlows.add(flow);
-					bufferIterator.remove();
-				}
+	@Override
+	public Collection<Flow> expire(final long uptime) {
+		final Collection<Flow> expiredFlows = new ArrayList<Flow>();
+		final Collection<Entry> entries = new ArrayList<Entry>();
+		synchronized (this.lock) {
+			// expire by time, removed flows are not in the wheel, and remove does not change order of other flows
+			this.wheel.advance(uptime, entries);
+			for (final Entry entry : entries) {
+				final long time = this.expireTime(entry.flow);
+				if (time <= uptime) {
+					expiredFlows.add(entry.flow);
+					this.buffer.remove(entry.key);
+				} else this.wheel.schedule(entry, time);
 			}
 			// expire by size
 			final int currSize = this.buffer.size();
 			if (currSize > this.bufferSize) {
 				DefaultFlowCache.log.warn("buffer overflow by " + (currSize - this.bufferSize) + " flows - expiring");
-				bufferIterator = this.buffer.iterator();
+				final Iterator<Entry> bufferIterator = this.buffer.values().iterator();
 				for (int i = 0; i < currSize - this.bufferSize; i++) {
-					expiredFlows.add(bufferIterator.next());
+					final Entry entry = bufferIterator.next();
+					expiredFlows.add(entry.flow);
 					bufferIterator.remove();
+					this.wheel.remove(entry);
 				}
 			}
 		}
@@ -166,84 +273,57 @@ public class DefaultFlowCache extends AbstractFlowCache implements DefaultFlowCa
 	}
 
 	/**
-	 * Do cache expiration and fire expired flows to listeners.
+	 * Create buffer. Buffer of {@link EvictionPolicy#LRU LRU} policy is in access order, so lookup of flow move it to
+	 * the tail of buffer without removing and adding it again. Flows are looked up only on accumulation, expiration
+	 * use entries of the wheel, so order of buffer is order of last accumulation.
+	 * 
+	 * @param policy eviction policy
+	 * @param size count of flows to store
+	 * @return empty buffer
 	 */
-	protected void doExpiration() {
-		final Collection<Flow> expiredFlows = this.expire();
-		if (!expiredFlows.isEmpty()) this.fireFlows(expiredFlows);
+	private static Map<FlowKey, Entry> createBuffer(final EvictionPolicy policy, final int size) {
+		return new LinkedHashMap<FlowKey, Entry>(Math.max(16, size * 4 / 3 + 1), 0.75f, policy == EvictionPolicy.LRU);
 	}
 
 	/**
-	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#isRunning()
+	 * Return expiration time of flow.
+	 * 
+	 * @param flow cached flow
+	 * @return uptime in milliseconds, when flow expire
 	 */
-	public boolean isRunning() {
-		synchronized (this) {
-			return this.expireThread != null && this.expireThread.isAlive();
-		}
+	protected long expireTime(final Flow flow) {
+		if (flow.isFinished()) return flow.getLast();
+		return Math.min(flow.getFirst() + this.expireTime, flow.getLast() + this.inactiveTime);
 	}
 
 	/**
-	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#start()
+	 * Return current uptime
+	 * 
+	 * @return milliseconds since {@link Flow#bootTime}
 	 */
-	public void start() {
-		if (this.getFlowType() == null) throw new IllegalStateException("flow type not initialized");
-		synchronized (this) {
-			if (this.isRunning()) DefaultFlowCache.log.debug("flow cache expiration thread is already running");
-			else {
-				this.expireThread = new ExpireThread(DefaultFlowCache.log);
-				this.expireThread.start();
-			}
-		}
+	protected static long uptime() {
+		return System.currentTimeMillis() - Flow.bootTime;
 	}
 
 	/**
-	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#stop()
+	 * Cached flow, scheduled in the wheel
 	 */
-	public void stop() {
-		synchronized (this) {
-			if (!this.isRunning()) DefaultFlowCache.log.debug("flow cache expiration thread is already stopped");
-			else {
-				this.expireThread.interrupt();
-				this.expireThread = null;
-			}
-		}
-	}
+	private static final class Entry extends TimingWheel.Node {
+		/** Stored key */
+		final FlowKey key;
 
-	/**
-	 * Cache Expiration Thread
-	 */
-	protected class ExpireThread extends Thread {
-		/** Logger */
-		private Logger threadLog = null;
+		/** Cached flow */
+		final Flow flow;
 
 		/**
 		 * Constructor
 		 * 
-		 * @param theLog logger to log messages
+		 * @param aKey key of cached flow
 		 */
-		protected ExpireThread(final Logger theLog) {
-			super("FlowCache expiration");
-			if (theLog == null) throw new IllegalArgumentException("null threadLog");
-			this.threadLog = theLog;
-			this.setDaemon(false);
-		}
-
-		/** Run cache flows expiration and export. */
-		@Override
-		public final void run() {
-			this.threadLog.info("starting FlowCache expiration thread, do expiration every 1 second");
-			while (!this.isInterrupted()) {
-				try {
-					Thread.sleep(1000);
-					DefaultFlowCache.this.doExpiration();
-					Thread.yield();
-				} catch (final InterruptedException ex) {
-					this.threadLog.debug("FlowCache expiration thread interrupted");
-				} catch (final Exception ex) {
-					this.threadLog.error("error running flow cache expiration process", ex);
-				}
-			}
-			this.threadLog.info("FlowCache expiration thread stopped");
+		Entry(final FlowKey aKey) {
+			super();
+			this.key = aKey;
+			this.flow = aKey.getFlow();
 		}
 	}
 }
@@ -30,7 +30,7 @@ public interface DefaultFlowCacheMBean {
 	public int getBufferSize();
 
 	/**
-	 * Set expire time
+	 * Set expire time (active timeout). Flows expire when this time elapsed since first packet of flow.
 	 * 
 	 * @param time expire time in seconds
 	 */
@@ -43,6 +43,34 @@ public interface DefaultFlowCacheMBean {
 	 */
 	public int getExpireTime();
 
+	/**
+	 * Set inactive time (inactive timeout). Flows expire when this time elapsed since last packet of flow.
+	 * 
+	 * @param time inactive time in seconds
+	 */
+	public void setInactiveTime(final int time);
+
+	/**
+	 * Return inactive time
+	 * 
+	 * @return flows inactive time in seconds
+	 */
+	public int getInactiveTime();
+
+	/**
+	 * Set eviction policy
+	 * 
+	 * @param policy order of flows to evict on buffer overflow
+	 */
+	public void setEvictionPolicy(final EvictionPolicy policy);
+
+	/**
+	 * Return eviction policy
+	 * 
+	 * @return order of flows to evict on buffer overflow
+	 */
+	public EvictionPolicy getEvictionPolicy();
+
 	/**
 	 * Accumulate flow
 	 * 
@@ -0,0 +1,25 @@
+/**
+ * EvictionPolicy.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+/**
+ * Eviction Policy.
+ * <P>
+ * Order, in which flows are removed from {@link DefaultFlowCache cache} when it's buffer size is exceeded.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public enum EvictionPolicy {
+	/**
+	 * Evict flows in order of creation, oldest first.
+	 */
+	OLDEST,
+
+	/**
+	 * Evict flows in order of last update, least recently updated first.
+	 */
+	LRU
+}
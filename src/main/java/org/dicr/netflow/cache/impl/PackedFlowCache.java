@@ -0,0 +1,736 @@
+/**
+ * PackedFlowCache.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+import java.util.*;
+
+import org.apache.log4j.*;
+import org.dicr.netflow.impl.v1.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.impl.v7.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.net.*;
+
+/**
+ * Packed Flow Cache.
+ * <P>
+ * Cache of {@link FlowV5} flows and it's descendants ({@link FlowV7}). Flows are not stored as objects, but packed in
+ * fixed width records of open addressing hash table, backed by arrays of <CODE>long</CODE>. Flow objects are created
+ * only when flows expire or {@link #getContent() content} requested, so large caches does not produce garbage and do
+ * not pressure old generation of heap.
+ * </P>
+ * <P>
+ * Record of flow takes 10 <CODE>long</CODE> values, 3 <CODE>int</CODE> and one <CODE>boolean</CODE>. Table
+ * capacity is kept at least 4/3 of flows count and doubled when count of flows exceed it, so table is not
+ * preallocated for buffer size.
+ * </P>
+ * <P>
+ * Expire times of records are indexed by timing wheel: records, which expire at the same tick, are linked in list of
+ * wheel bucket by their indexes, so expiration inspect only buckets of passed ticks, rather than all table. Lists are
+ * relinked when record is moved in the table, so index does not allocate memory.
+ * </P>
+ * <P>
+ * Flows expire by {@link #setExpireTime(int) expire time} since first packet, {@link #setInactiveTime(int) inactive
+ * time} since last packet or immediately, when TCP flow is {@link Flow#isFinished() finished}. On buffer overflow
+ * flows are evicted by CLOCK algorithm, which approximate least recently updated order.
+ * </P>
+ * <P>
+ * As {@link BatchListener} cache accumulate {@link FlowBatch batches} of collector directly from columns, so packets
+ * are accumulated without creating flow objects at all.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class PackedFlowCache extends AbstractFlowCache implements PackedFlowCacheMBean, BatchListener {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(PackedFlowCache.class);
+
+	/** Number of long values in record key */
+	private static final int KEY_SIZE = 5;
+
+	/** Number of long values in record counters */
+	private static final int VALUE_SIZE = 4;
+
+	/** Bits of TCP flags in third long of key. Flags are accumulated by merge and are not compared as key */
+	private static final long TCP_FLAGS = 0x0FF00L;
+
+	/** Deadline of empty record */
+	private static final long EMPTY = Long.MAX_VALUE;
+
+	/** Minimal capacity of table */
+	private static final int MIN_CAPACITY = 16;
+
+	/** Tick of expiration wheel in milliseconds */
+	private static final long TICK_TIME = 1000;
+
+	/** Count of buckets of expiration wheel, power of 2 */
+	private static final int WHEEL_SIZE = 1024;
+
+	/** Index of no record */
+	private static final int NONE = -1;
+
+	/** Buffer size */
+	private int bufferSize = 1000;
+
+	/** Flows expire time in milliseconds */
+	private long expireTime = 60000;
+
+	/** Flows inactive time in milliseconds */
+	private long inactiveTime = 15000;
+
+	/** Capacity of table, power of 2 */
+	private int capacity = 0;
+
+	/** Mask of record index */
+	private int mask = 0;
+
+	/** Keys of records */
+	private long[] keys = null;
+
+	/** Counters of records: packets, octets, first, last */
+	private long[] values = null;
+
+	/** Expire time of records or {@link #EMPTY} */
+	private long[] deadlines = null;
+
+	/** Records updated since last pass of eviction clock */
+	private boolean[] referenced = null;
+
+	/** Count of flows in table */
+	private int size = 0;
+
+	/** Eviction clock hand */
+	private int hand = 0;
+
+	/** Buckets of expiration wheel: first record of list of records, which expire at the same tick */
+	private final int[] wheel = new int[PackedFlowCache.WHEEL_SIZE];
+
+	/** Next record in list of wheel bucket */
+	private int[] wheelNext = null;
+
+	/** Previous record in list of wheel bucket */
+	private int[] wheelPrev = null;
+
+	/** Wheel bucket of record */
+	private int[] wheelBucket = null;
+
+	/** Last passed tick of wheel */
+	private long wheelTick = (System.currentTimeMillis() - Flow.bootTime) / PackedFlowCache.TICK_TIME;
+
+	/** Next record to inspect by expiration, updated when record is moved */
+	private int cursor = PackedFlowCache.NONE;
+
+	/**
+	 * Default constructor. Used in IoC configurations.
+	 */
+	public PackedFlowCache() {
+		super();
+		this.allocate(PackedFlowCache.MIN_CAPACITY);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param type type of flows in the cache, must be descendant of {@link FlowV5}.
+	 */
+	public PackedFlowCache(final FlowType type) {
+		this();
+		this.setFlowType(type);
+	}
+
+	/**
+	 * Check type of flows and set it.
+	 *
+	 * @see org.dicr.netflow.cache.impl.AbstractFlowCache#setFlowType(org.dicr.netflow.packet.FlowType)
+	 */
+	@Override
+	public void setFlowType(final FlowType type) {
+		if (type == null) throw new IllegalArgumentException("null flow flowType");
+		if (!FlowV5.class.isAssignableFrom(type.getFlowClass())) throw new IllegalArgumentException(
+		        "unsupported flow type: " + type);
+		super.setFlowType(type);
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#setBufferSize(int)
+	 */
+	public void setBufferSize(final int size) {
+		if (size < 1) throw new IllegalArgumentException("buffer size: " + size);
+		synchronized (this) {
+			this.bufferSize = size;
+		}
+		PackedFlowCache.log.debug("configured buffer size: " + size);
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#getBufferSize()
+	 */
+	public int getBufferSize() {
+		synchronized (this) {
+			return this.bufferSize;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#getCapacity()
+	 */
+	public int getCapacity() {
+		synchronized (this) {
+			return this.capacity;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#getFlowsCount()
+	 */
+	public int getFlowsCount() {
+		synchronized (this) {
+			return this.size;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#setExpireTime(int)
+	 */
+	public void setExpireTime(final int time) {
+		if (time < 1) throw new IllegalArgumentException("time: " + time);
+		synchronized (this) {
+			this.expireTime = time * 1000;
+			this.updateDeadlines();
+		}
+		PackedFlowCache.log.debug("configured expire time: " + time + " seconds");
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#getExpireTime()
+	 */
+	public int getExpireTime() {
+		synchronized (this) {
+			return (int) (this.expireTime / 1000);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#setInactiveTime(int)
+	 */
+	public void setInactiveTime(final int time) {
+		if (time < 1) throw new IllegalArgumentException("time: " + time);
+		synchronized (this) {
+			this.inactiveTime = time * 1000;
+			this.updateDeadlines();
+		}
+		PackedFlowCache.log.debug("configured inactive time: " + time + " seconds");
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#getInactiveTime()
+	 */
+	public int getInactiveTime() {
+		synchronized (this) {
+			return (int) (this.inactiveTime / 1000);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#accumulate(org.dicr.netflow.packet.Flow)
+	 */
+	public void accumulate(final Flow flow) {
+		if (flow == null) throw new IllegalArgumentException("null flow to accumulate");
+		// check flow type
+		final FlowType type = this.getFlowType();
+		if (type == null) throw new IllegalStateException("flow type not initialized");
+		if (!type.equals(flow.getFlowType())) throw new IllegalArgumentException("illegal flow type to accumulate: "
+		        + flow.getFlowType());
+		// pack key
+		final FlowV5 flow5 = (FlowV5) flow;
+		long srcMask = 0;
+		long dstMask = 0;
+		try {
+			srcMask = Mask.mask2bits(flow5.getSrcMask()) & 0x0FFL;
+			dstMask = Mask.mask2bits(flow5.getDstMask()) & 0x0FFL;
+		} catch (final IncorrectAddressException ex) {
+			throw new Error("BUG !!!", ex);
+		}
+		final long k0 = (long) flow5.getSrcAddress() << 32 | flow5.getDstAddress() & 0x0FFFFFFFFL;
+		final long k1 = (long) flow5.getNextHop() << 32 | (long) flow5.getInInterface() << 16 | flow5.getOutInterface();
+		final long k2 = (long) flow5.getSrcPort() << 48 | (long) flow5.getDstPort() << 32 | (long) flow5.getProto() << 24
+		        | (flow5.getTos() & 0x0FFL) << 16 | (flow5.getTcpFlags() & 0x0FFL) << 8 | srcMask;
+		long k3 = (long) flow5.getSrcAs() << 48 | (long) flow5.getDstAs() << 32 | dstMask << 24;
+		long k4 = 0;
+		if (flow instanceof FlowV7) {
+			final FlowV7 flow7 = (FlowV7) flow;
+			k3 |= (flow7.getFlags1() & 0x0FFL) << 16 | flow7.getFlags2() & 0x0FFFFL;
+			k4 = flow7.getRouterSc() & 0x0FFFFFFFFL;
+		}
+		final long packets = flow.getPacketsCount();
+		final long octets = flow.getBytesCount();
+		final long first = flow.getFirst();
+		final long last = flow.getLast();
+		synchronized (this) {
+			this.put(k0, k1, k2, k3, k4, packets, octets, first, last);
+		}
+	}
+
+	/**
+	 * Accumulate flows of batch without creating flow objects.
+	 *
+	 * @see org.dicr.netflow.packet.BatchListener#processBatch(org.dicr.netflow.packet.FlowBatch)
+	 */
+	public void processBatch(final FlowBatch batch) {
+		if (batch == null) throw new IllegalArgumentException("null batch");
+		final int count = batch.getFlowsCount();
+		if (count < 1) return;
+		// check flow type
+		final FlowType type = this.getFlowType();
+		if (type == null) throw new IllegalStateException("flow type not initialized");
+		if (!type.equals(batch.getFlowType())) throw new IllegalArgumentException("illegal flow type to accumulate: "
+		        + batch.getFlowType());
+		final int[] srcAddress = batch.getSrcAddress();
+		final int[] dstAddress = batch.getDstAddress();
+		final int[] nextHop = batch.getNextHop();
+		final int[] inInterface = batch.getInInterface();
+		final int[] outInterface = batch.getOutInterface();
+		final int[] srcPort = batch.getSrcPort();
+		final int[] dstPort = batch.getDstPort();
+		final int[] proto = batch.getProto();
+		final byte[] tos = batch.getTos();
+		final byte[] tcpFlags = batch.getTcpFlags();
+		final byte[] srcMask = batch.getSrcMask();
+		final byte[] dstMask = batch.getDstMask();
+		final int[] srcAs = batch.getSrcAs();
+		final int[] dstAs = batch.getDstAs();
+		final byte[] flags1 = batch.getFlags1();
+		final short[] flags2 = batch.getFlags2();
+		final int[] routerSc = batch.getRouterSc();
+		final long[] packets = batch.getPacketsCount();
+		final long[] octets = batch.getBytesCount();
+		final long[] first = batch.getFirst();
+		final long[] last = batch.getLast();
+		synchronized (this) {
+			for (int i = 0; i < count; i++) {
+				final long k0 = (long) srcAddress[i] << 32 | dstAddress[i] & 0x0FFFFFFFFL;
+				final long k1 = (long) nextHop[i] << 32 | (long) inInterface[i] << 16 | outInterface[i];
+				final long k2 = (long) srcPort[i] << 48 | (long) dstPort[i] << 32 | (long) proto[i] << 24
+				        | (tos[i] & 0x0FFL) << 16 | (tcpFlags[i] & 0x0FFL) << 8 | srcMask[i] & 0x0FFL;
+				final long k3 = (long) srcAs[i] << 48 | (long) dstAs[i] << 32 | (dstMask[i] & 0x0FFL) << 24
+				        | (flags1[i] & 0x0FFL) << 16 | flags2[i] & 0x0FFFFL;
+				final long k4 = routerSc[i] & 0x0FFFFFFFFL;
+				this.put(k0, k1, k2, k3, k4, packets[i], octets[i], first[i], last[i]);
+			}
+		}
+		if (PackedFlowCache.log.isTraceEnabled()) PackedFlowCache.log.trace("accumulated " + count
+		        + " flows of batch");
+	}
+
+	/**
+	 * Merge counters to record with key or add new record. Must be called under lock.
+	 *
+	 * @param k0 addresses
+	 * @param k1 next hop and interfaces
+	 * @param k2 ports, protocol, tos, TCP flags and source mask
+	 * @param k3 AS numbers, destination mask and V7 flags
+	 * @param k4 V7 router shortcut
+	 * @param packets packets count
+	 * @param octets octets count
+	 * @param first uptime of first packet
+	 * @param last uptime of last packet
+	 */
+	private void put(final long k0, final long k1, final long k2, final long k3, final long k4, final long packets,
+	        final long octets, final long first, final long last) {
+		int index = PackedFlowCache.hash(k0, k1, k2, k3, k4) & this.mask;
+		while (this.deadlines[index] != PackedFlowCache.EMPTY) {
+			final int key = index * PackedFlowCache.KEY_SIZE;
+			if (this.keys[key] == k0 && this.keys[key + 1] == k1
+			        && ((this.keys[key + 2] ^ k2) & ~PackedFlowCache.TCP_FLAGS) == 0 && this.keys[key + 3] == k3
+			        && this.keys[key + 4] == k4) {
+				// merge
+				this.keys[key + 2] |= k2 & PackedFlowCache.TCP_FLAGS;
+				final int value = index * PackedFlowCache.VALUE_SIZE;
+				this.values[value] += packets;
+				this.values[value + 1] += octets;
+				if (first < this.values[value + 2]) this.values[value + 2] = first;
+				if (last > this.values[value + 3]) this.values[value + 3] = last;
+				final long deadline = this.deadline(index);
+				if (deadline != this.deadlines[index]) {
+					this.unschedule(index);
+					this.deadlines[index] = deadline;
+					this.schedule(index);
+				}
+				this.referenced[index] = true;
+				return;
+			}
+			index = index + 1 & this.mask;
+		}
+		// add new record
+		final int key = index * PackedFlowCache.KEY_SIZE;
+		this.keys[key] = k0;
+		this.keys[key + 1] = k1;
+		this.keys[key + 2] = k2;
+		this.keys[key + 3] = k3;
+		this.keys[key + 4] = k4;
+		final int value = index * PackedFlowCache.VALUE_SIZE;
+		this.values[value] = packets;
+		this.values[value + 1] = octets;
+		this.values[value + 2] = first;
+		this.values[value + 3] = last;
+		this.deadlines[index] = this.deadline(index);
+		this.schedule(index);
+		this.referenced[index] = true;
+		this.size++;
+		if (PackedFlowCache.capacityFor(this.size) > this.capacity) this.rehash(this.capacity * 2);
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#getContent()
+	 */
+	public Collection<Flow> getContent() {
+		synchronized (this) {
+			final List<Flow> content = new ArrayList<Flow>(this.size);
+			for (int i = 0; i < this.capacity; i++) {
+				if (this.deadlines[i] != PackedFlowCache.EMPTY) content.add(this.createFlow(i));
+			}
+			return content;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.PackedFlowCacheMBean#clear()
+	 */
+	public void clear() {
+		synchronized (this) {
+			Arrays.fill(this.deadlines, PackedFlowCache.EMPTY);
+			Arrays.fill(this.referenced, false);
+			Arrays.fill(this.wheel, PackedFlowCache.NONE);
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.AbstractFlowCache#expire(long)
+	 */
+	@Override
+	public Collection<Flow> expire(final long uptime) {
+		final Collection<Flow> expiredFlows = new ArrayList<Flow>();
+		synchronized (this) {
+			// expire by time records of passed wheel buckets
+			final long tick = uptime / PackedFlowCache.TICK_TIME;
+			if (tick > this.wheelTick) {
+				final long ticks = Math.min(tick - this.wheelTick, PackedFlowCache.WHEEL_SIZE);
+				for (long i = 1; i <= ticks; i++) {
+					int index = this.wheel[(int) (this.wheelTick + i & PackedFlowCache.WHEEL_SIZE - 1)];
+					while (index != PackedFlowCache.NONE) {
+						// records of later turns of wheel stay in bucket
+						if (this.deadlines[index] <= uptime) {
+							this.cursor = this.wheelNext[index];
+							this.expireRecord(index, expiredFlows);
+							index = this.cursor;
+						} else index = this.wheelNext[index];
+					}
+				}
+				this.cursor = PackedFlowCache.NONE;
+				this.wheelTick = tick;
+			}
+			// expire by size
+			if (this.size > this.bufferSize) {
+				PackedFlowCache.log.warn("buffer overflow by " + (this.size - this.bufferSize) + " flows - expiring");
+				while (this.size > this.bufferSize) {
+					if (this.deadlines[this.hand] == PackedFlowCache.EMPTY) this.hand = this.hand + 1 & this.mask;
+					else if (this.referenced[this.hand]) {
+						this.referenced[this.hand] = false;
+						this.hand = this.hand + 1 & this.mask;
+					} else {
+						this.expireRecord(this.hand, expiredFlows);
+					}
+				}
+			}
+		}
+		return expiredFlows;
+	}
+
+	/**
+	 * Return index of record of flow. Scan all table, used by tests of table.
+	 *
+	 * @param flow flow to find
+	 * @return index of record with key of flow or -1 if not found
+	 */
+	synchronized int indexOf(final Flow flow) {
+		for (int i = 0; i < this.capacity; i++) {
+			if (this.deadlines[i] != PackedFlowCache.EMPTY && this.createFlow(i).keyEquals(flow)) return i;
+		}
+		return PackedFlowCache.NONE;
+	}
+
+	/**
+	 * Remove record and add flow of it to expired flows. Record is removed even if flow can't be created, so incorrect
+	 * record does not stay in cache and does not break expiration of other records.
+	 *
+	 * @param index index of record
+	 * @param expiredFlows expired flows to add flow to
+	 */
+	private void expireRecord(final int index, final Collection<Flow> expiredFlows) {
+		try {
+			expiredFlows.add(this.createFlow(index));
+		} catch (final IllegalArgumentException ex) {
+			PackedFlowCache.log.warn("dropped incorrect flow record: " + ex.getMessage());
+		} finally {
+			this.remove(index);
+		}
+	}
+
+	/**
+	 * Create flow from record.
+	 *
+	 * @param index index of record
+	 * @return flow object
+	 */
+	private Flow createFlow(final int index) {
+		final int key = index * PackedFlowCache.KEY_SIZE;
+		final int value = index * PackedFlowCache.VALUE_SIZE;
+		final long k0 = this.keys[key];
+		final long k1 = this.keys[key + 1];
+		final long k2 = this.keys[key + 2];
+		final long k3 = this.keys[key + 3];
+		final FlowV5 flow = (FlowV5) this.getFlowType().createFlow();
+		flow.setSrcAddress((int) (k0 >>> 32));
+		flow.setDstAddress((int) k0);
+		flow.setNextHop((int) (k1 >>> 32));
+		flow.setInInterface((int) (k1 >>> 16) & 0x0FFFF);
+		flow.setOutInterface((int) k1 & 0x0FFFF);
+		flow.setSrcPort((int) (k2 >>> 48));
+		flow.setDstPort((int) (k2 >>> 32) & 0x0FFFF);
+		flow.setProtocol((int) (k2 >>> 24) & 0x0FF);
+		flow.setTos((byte) (k2 >>> 16));
+		flow.setTcpFlags((byte) (k2 >>> 8));
+		flow.setSrcMask(Mask.bits2mask((byte) k2));
+		flow.setSrcAs((int) (k3 >>> 48));
+		flow.setDstAs((int) (k3 >>> 32) & 0x0FFFF);
+		flow.setDstMask(Mask.bits2mask((byte) (k3 >>> 24)));
+		if (flow instanceof FlowV7) {
+			final FlowV7 flow7 = (FlowV7) flow;
+			flow7.setFlags1((byte) (k3 >>> 16));
+			flow7.setFlags2((short) k3);
+			flow7.setRouterSc((int) this.keys[key + 4]);
+		}
+		flow.setPacketsCount(Math.min(this.values[value], Flow.MAX_PACKETS));
+		flow.setBytesCount(Math.min(this.values[value + 1], Flow.MAX_BYTES));
+		flow.setFirst(this.values[value + 2]);
+		flow.setLast(this.values[value + 3]);
+		return flow;
+	}
+
+	/**
+	 * Calculate expire time of record.
+	 *
+	 * @param index index of record
+	 * @return uptime in milliseconds, when flow expire
+	 */
+	private long deadline(final int index) {
+		final int value = index * PackedFlowCache.VALUE_SIZE;
+		final long first = this.values[value + 2];
+		final long last = this.values[value + 3];
+		// finished TCP flow
+		final long k2 = this.keys[index * PackedFlowCache.KEY_SIZE + 2];
+		if (((int) (k2 >>> 24) & 0x0FF) == FlowV1.PROTO_TCP
+		        && ((byte) (k2 >>> 8) & (FlowV1.TCP_FLAG_FIN | FlowV1.TCP_FLAG_RST)) != 0) return last;
+		return Math.min(first + this.expireTime, last + this.inactiveTime);
+	}
+
+	/**
+	 * Recalculate expire times of all records.
+	 */
+	private void updateDeadlines() {
+		for (int i = 0; i < this.capacity; i++) {
+			if (this.deadlines[i] == PackedFlowCache.EMPTY) continue;
+			this.unschedule(i);
+			this.deadlines[i] = this.deadline(i);
+			this.schedule(i);
+		}
+	}
+
+	/**
+	 * Link record to list of wheel bucket of it's expire time. Records, which expire time already passed, are linked to
+	 * next tick.
+	 *
+	 * @param index index of record
+	 */
+	private void schedule(final int index) {
+		long tick = (this.deadlines[index] + PackedFlowCache.TICK_TIME - 1) / PackedFlowCache.TICK_TIME;
+		if (tick <= this.wheelTick) tick = this.wheelTick + 1;
+		final int bucket = (int) (tick & PackedFlowCache.WHEEL_SIZE - 1);
+		final int head = this.wheel[bucket];
+		this.wheelBucket[index] = bucket;
+		this.wheelPrev[index] = PackedFlowCache.NONE;
+		this.wheelNext[index] = head;
+		if (head != PackedFlowCache.NONE) this.wheelPrev[head] = index;
+		this.wheel[bucket] = index;
+	}
+
+	/**
+	 * Unlink record from list of wheel bucket.
+	 *
+	 * @param index index of record
+	 */
+	private void unschedule(final int index) {
+		final int prev = this.wheelPrev[index];
+		final int next = this.wheelNext[index];
+		if (prev != PackedFlowCache.NONE) this.wheelNext[prev] = next;
+		else this.wheel[this.wheelBucket[index]] = next;
+		if (next != PackedFlowCache.NONE) this.wheelPrev[next] = prev;
+	}
+
+	/**
+	 * Remove record. Following records of the same cluster are shifted back, so table does not need deleted markers.
+	 *
+	 * @param index index of record to remove
+	 */
+	private void remove(final int index) {
+		this.unschedule(index);
+		int hole = index;
+		int next = index;
+		while (true) {
+			next = next + 1 & this.mask;
+			if (this.deadlines[next] == PackedFlowCache.EMPTY) break;
+			final int home = this.hash(next) & this.mask;
+			// move record if it's home index is not between hole and it's current index
+			final boolean stay = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+			if (!stay) {
+				this.move(next, hole);
+				hole = next;
+			}
+		}
+		this.deadlines[hole] = PackedFlowCache.EMPTY;
+		this.referenced[hole] = false;
+		this.size--;
+	}
+
+	/**
+	 * Move record to empty index and relink it in list of wheel bucket.
+	 *
+	 * @param from source index
+	 * @param to target index
+	 */
+	private void move(final int from, final int to) {
+		System.arraycopy(this.keys, from * PackedFlowCache.KEY_SIZE, this.keys, to * PackedFlowCache.KEY_SIZE,
+		        PackedFlowCache.KEY_SIZE);
+		System.arraycopy(this.values, from * PackedFlowCache.VALUE_SIZE, this.values, to * PackedFlowCache.VALUE_SIZE,
+		        PackedFlowCache.VALUE_SIZE);
+		this.deadlines[to] = this.deadlines[from];
+		this.referenced[to] = this.referenced[from];
+		final int prev = this.wheelPrev[from];
+		final int next = this.wheelNext[from];
+		this.wheelBucket[to] = this.wheelBucket[from];
+		this.wheelPrev[to] = prev;
+		this.wheelNext[to] = next;
+		if (prev != PackedFlowCache.NONE) this.wheelNext[prev] = to;
+		else this.wheel[this.wheelBucket[from]] = to;
+		if (next != PackedFlowCache.NONE) this.wheelPrev[next] = to;
+		if (this.cursor == from) this.cursor = to;
+	}
+
+	/**
+	 * Allocate empty table
+	 *
+	 * @param newCapacity capacity of table, power of 2
+	 */
+	private void allocate(final int newCapacity) {
+		this.capacity = newCapacity;
+		this.mask = newCapacity - 1;
+		this.keys = new long[newCapacity * PackedFlowCache.KEY_SIZE];
+		this.values = new long[newCapacity * PackedFlowCache.VALUE_SIZE];
+		this.deadlines = new long[newCapacity];
+		Arrays.fill(this.deadlines, PackedFlowCache.EMPTY);
+		this.referenced = new boolean[newCapacity];
+		this.wheelNext = new int[newCapacity];
+		this.wheelPrev = new int[newCapacity];
+		this.wheelBucket = new int[newCapacity];
+		Arrays.fill(this.wheel, PackedFlowCache.NONE);
+		this.size = 0;
+		this.hand = 0;
+	}
+
+	/**
+	 * Resize table and reinsert records.
+	 *
+	 * @param newCapacity new capacity of table, power of 2
+	 */
+	private void rehash(final int newCapacity) {
+		final int oldCapacity = this.capacity;
+		final long[] oldKeys = this.keys;
+		final long[] oldValues = this.values;
+		final long[] oldDeadlines = this.deadlines;
+		final boolean[] oldReferenced = this.referenced;
+		final int count = this.size;
+		this.allocate(newCapacity);
+		for (int i = 0; i < oldCapacity; i++) {
+			if (oldDeadlines[i] == PackedFlowCache.EMPTY) continue;
+			final int oldKey = i * PackedFlowCache.KEY_SIZE;
+			int index = PackedFlowCache.hash(oldKeys[oldKey], oldKeys[oldKey + 1], oldKeys[oldKey + 2],
+			        oldKeys[oldKey + 3], oldKeys[oldKey + 4])
+			        & this.mask;
+			while (this.deadlines[index] != PackedFlowCache.EMPTY) {
+				index = index + 1 & this.mask;
+			}
+			System.arraycopy(oldKeys, oldKey, this.keys, index * PackedFlowCache.KEY_SIZE, PackedFlowCache.KEY_SIZE);
+			System.arraycopy(oldValues, i * PackedFlowCache.VALUE_SIZE, this.values, index * PackedFlowCache.VALUE_SIZE,
+			        PackedFlowCache.VALUE_SIZE);
+			this.deadlines[index] = oldDeadlines[i];
+			this.referenced[index] = oldReferenced[i];
+			this.schedule(index);
+		}
+		this.size = count;
+		PackedFlowCache.log.debug("flows table resized to " + newCapacity + " records");
+	}
+
+	/**
+	 * Return hash of record key
+	 *
+	 * @param index index of record
+	 * @return hash of key
+	 */
+	private int hash(final int index) {
+		final int key = index * PackedFlowCache.KEY_SIZE;
+		return PackedFlowCache.hash(this.keys[key], this.keys[key + 1], this.keys[key + 2], this.keys[key + 3],
+		        this.keys[key + 4]);
+	}
+
+	/**
+	 * Calculate hash of key. TCP flags are not hashed.
+	 *
+	 * @param k0 key value
+	 * @param k1 key value
+	 * @param k2 key value
+	 * @param k3 key value
+	 * @param k4 key value
+	 * @return hash of key
+	 */
+	private static int hash(final long k0, final long k1, final long k2, final long k3, final long k4) {
+		long h = k0;
+		h = h * 31 + k1;
+		h = h * 31 + (k2 & ~PackedFlowCache.TCP_FLAGS);
+		h = h * 31 + k3;
+		h = h * 31 + k4;
+		// mix bits
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		return (int) h;
+	}
+
+	/**
+	 * Return table capacity for count of flows
+	 *
+	 * @param count count of flows
+	 * @return minimal capacity of table, power of 2
+	 */
+	private static int capacityFor(final int count) {
+		final long required = (long) count * 4 / 3 + 1;
+		if (required > 1 << 30) throw new IllegalArgumentException("too many flows: " + count);
+		int cap = PackedFlowCache.MIN_CAPACITY;
+		while (cap < required) {
+			cap <<= 1;
+		}
+		return cap;
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * PackedFlowCacheMBean.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+import java.util.*;
+
+import org.dicr.netflow.packet.*;
+
+/**
+ * MBean interface for PackedFlowCache
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public interface PackedFlowCacheMBean {
+
+	/**
+	 * Set buffer size
+	 * 
+	 * @param size buffer size in elements
+	 */
+	public void setBufferSize(final int size);
+
+	/**
+	 * Return buffer size
+	 * 
+	 * @return buffer size in elements
+	 */
+	public int getBufferSize();
+
+	/**
+	 * Return capacity of flows table
+	 * 
+	 * @return number of records in table
+	 */
+	public int getCapacity();
+
+	/**
+	 * Return count of flows in the cache
+	 * 
+	 * @return number of cached flows
+	 */
+	public int getFlowsCount();
+
+	/**
+	 * Set expire time (active timeout). Flows expire when this time elapsed since first packet of flow.
+	 * 
+	 * @param time expire time in seconds
+	 */
+	public void setExpireTime(final int time);
+
+	/**
+	 * Return expire time
+	 * 
+	 * @return flows expire time
+	 */
+	public int getExpireTime();
+
+	/**
+	 * Set inactive time (inactive timeout). Flows expire when this time elapsed since last packet of flow.
+	 * 
+	 * @param time inactive time in seconds
+	 */
+	public void setInactiveTime(final int time);
+
+	/**
+	 * Return inactive time
+	 * 
+	 * @return flows inactive time in seconds
+	 */
+	public int getInactiveTime();
+
+	/**
+	 * Accumulate flow
+	 * 
+	 * @param flow flow to accumulate
+	 */
+	public void accumulate(final Flow flow);
+
+	/**
+	 * Return cache content
+	 * 
+	 * @return flows from cache
+	 */
+	public Collection<Flow> getContent();
+
+	/**
+	 * Clear cache
+	 */
+	public void clear();
+
+	/**
+	 * Expire cache.
+	 * 
+	 * @return expired flows
+	 */
+	public Collection<Flow> expire();
+
+	/**
+	 * Check if expiration thread is running
+	 * 
+	 * @return true if running
+	 */
+	public boolean isRunning();
+
+	/**
+	 * Start expiration thread
+	 */
+	public void start();
+
+	/**
+	 * Stop expiration thread
+	 */
+	public void stop();
+
+}
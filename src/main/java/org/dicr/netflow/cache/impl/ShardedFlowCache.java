@@ -0,0 +1,217 @@
+/**
+ * ShardedFlowCache.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+import java.util.*;
+
+import org.apache.log4j.*;
+import org.dicr.netflow.packet.*;
+
+/**
+ * Sharded Flow Cache.
+ * <P>
+ * Cache partition flows by {@link FlowType#getFlowKey(Flow) flow key} hash into several shards. Each shard is a
+ * {@link DefaultFlowCache} with its own lock, so several threads can accumulate flows concurrently. Expiration is done
+ * shard by shard, so while one shard is expiring, flows still accumulated in others.
+ * </P>
+ * <P>
+ * {@link #setBufferSize(int) Buffer size} is divided between shards equally.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class ShardedFlowCache extends AbstractFlowCache implements ShardedFlowCacheMBean {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(ShardedFlowCache.class);
+
+	/** Default shards count */
+	public static final int DEFAULT_SHARDS_COUNT = Runtime.getRuntime().availableProcessors() * 2;
+
+	/** Shards */
+	private final DefaultFlowCache[] shards;
+
+	/** Buffer size of all shards */
+	private int bufferSize = 1000;
+
+	/**
+	 * Default constructor. Used in IoC configurations.
+	 */
+	public ShardedFlowCache() {
+		this(ShardedFlowCache.DEFAULT_SHARDS_COUNT);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param shardsCount number of shards
+	 */
+	public ShardedFlowCache(final int shardsCount) {
+		super();
+		if (shardsCount < 1) throw new IllegalArgumentException("shards count: " + shardsCount);
+		this.shards = new DefaultFlowCache[shardsCount];
+		for (int i = 0; i < shardsCount; i++) {
+			this.shards[i] = new DefaultFlowCache();
+		}
+		this.setBufferSize(this.bufferSize);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param type type of flows in the cache
+	 * @param shardsCount number of shards
+	 */
+	public ShardedFlowCache(final FlowType type, final int shardsCount) {
+		this(shardsCount);
+		this.setFlowType(type);
+	}
+
+	/**
+	 * Set flow type of cache and all shards.
+	 * 
+	 * @see org.dicr.netflow.cache.impl.AbstractFlowCache#setFlowType(org.dicr.netflow.packet.FlowType)
+	 */
+	@Override
+	public void setFlowType(final FlowType type) {
+		super.setFlowType(type);
+		for (final DefaultFlowCache shard : this.shards) {
+			shard.setFlowType(type);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.ShardedFlowCacheMBean#getShardsCount()
+	 */
+	public int getShardsCount() {
+		return this.shards.length;
+	}
+
+	/**
+	 * Set size of buffer. Each shard buffer get equal part of size.
+	 * 
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#setBufferSize(int)
+	 */
+	public void setBufferSize(final int size) {
+		if (size < 1) throw new IllegalArgumentException("buffer size: " + size);
+		final int shardSize = (size + this.shards.length - 1) / this.shards.length;
+		synchronized (this) {
+			this.bufferSize = size;
+			for (final DefaultFlowCache shard : this.shards) {
+				shard.setBufferSize(shardSize);
+			}
+		}
+		ShardedFlowCache.log.debug("configured buffer size: " + size + " (" + shardSize + " per shard)");
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getBufferSize()
+	 */
+	public int getBufferSize() {
+		synchronized (this) {
+			return this.bufferSize;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#setExpireTime(int)
+	 */
+	public void setExpireTime(final int time) {
+		for (final DefaultFlowCache shard : this.shards) {
+			shard.setExpireTime(time);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getExpireTime()
+	 */
+	public int getExpireTime() {
+		return this.shards[0].getExpireTime();
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#setInactiveTime(int)
+	 */
+	public void setInactiveTime(final int time) {
+		for (final DefaultFlowCache shard : this.shards) {
+			shard.setInactiveTime(time);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getInactiveTime()
+	 */
+	public int getInactiveTime() {
+		return this.shards[0].getInactiveTime();
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#setEvictionPolicy(org.dicr.netflow.cache.impl.EvictionPolicy)
+	 */
+	public void setEvictionPolicy(final EvictionPolicy policy) {
+		for (final DefaultFlowCache shard : this.shards) {
+			shard.setEvictionPolicy(policy);
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getEvictionPolicy()
+	 */
+	public EvictionPolicy getEvictionPolicy() {
+		return this.shards[0].getEvictionPolicy();
+	}
+
+	/**
+	 * Accumulate flow to shard, selected by hash of flow key.
+	 * 
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#accumulate(org.dicr.netflow.packet.Flow)
+	 */
+	public void accumulate(final Flow flow) {
+		if (flow == null) throw new IllegalArgumentException("null flow to accumulate");
+		// check flow type
+		final FlowType type = this.getFlowType();
+		if (type == null) throw new IllegalStateException("flow type not initialized");
+		if (!type.equals(flow.getFlowType())) throw new IllegalArgumentException("illegal flow type to accumulate: "
+		        + flow.getFlowType());
+		// select shard
+		final FlowKey key = type.getFlowKey(flow);
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		this.shards[(hash & 0x7FFFFFFF) % this.shards.length].accumulate(key, flow);
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#getContent()
+	 */
+	public Collection<Flow> getContent() {
+		final Collection<Flow> content = new ArrayList<Flow>();
+		for (final DefaultFlowCache shard : this.shards) {
+			content.addAll(shard.getContent());
+		}
+		return content;
+	}
+
+	/**
+	 * @see org.dicr.netflow.cache.impl.DefaultFlowCacheMBean#clear()
+	 */
+	public void clear() {
+		for (final DefaultFlowCache shard : this.shards) {
+			shard.clear();
+		}
+	}
+
+	/**
+	 * Expire shards one by one.
+	 * 
+	 * @see org.dicr.netflow.cache.impl.AbstractFlowCache#expire(long)
+	 */
+	@Override
+	public Collection<Flow> expire(final long uptime) {
+		final Collection<Flow> expiredFlows = new ArrayList<Flow>();
+		for (final DefaultFlowCache shard : this.shards) {
+			expiredFlows.addAll(shard.expire(uptime));
+		}
+		return expiredFlows;
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * ShardedFlowCacheMBean.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+/**
+ * MBean interface for ShardedFlowCache
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public interface ShardedFlowCacheMBean extends DefaultFlowCacheMBean {
+
+	/**
+	 * Return shards count
+	 * 
+	 * @return number of independently locked cache shards
+	 */
+	public int getShardsCount();
+}
@@ -0,0 +1,200 @@
+/**
+ * TimingWheel.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+import java.util.*;
+
+/**
+ * Timing Wheel.
+ * <P>
+ * Index of elements by expiration time. Wheel is a ring of buckets, each bucket collect elements, which expire at the
+ * same tick. On {@link #advance(long, Collection) advance} wheel return only elements from passed buckets, so cost of
+ * expiration is proportional to count of expired elements, rather then to count of all elements.
+ * </P>
+ * <P>
+ * Elements are {@link Node nodes} of intrusive lists of buckets, so element is scheduled in one bucket at a time:
+ * {@link #schedule(Node, long) schedule} of scheduled element move it to new bucket, and {@link #remove(Node) removed}
+ * element is unlinked at once, so wheel does not hold references to elements, which are removed by owner. Schedule
+ * and remove does not allocate memory.
+ * </P>
+ * <P>
+ * Elements, scheduled beyond one turn of wheel, returned one turn earlier, so caller must check returned elements and
+ * schedule again not expired ones.
+ * </P>
+ * <P>
+ * Wheel is not thread-safe and must be synchronized by owner.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @param <E> type of elements
+ */
+public class TimingWheel<E extends TimingWheel.Node> {
+	/** Tick duration in milliseconds */
+	private final long tickTime;
+
+	/** Heads of circular lists of buckets */
+	private final Node[] buckets;
+
+	/** Mask to get bucket index from tick */
+	private final int mask;
+
+	/** Last passed tick */
+	private long currentTick;
+
+	/** Count of elements in the wheel */
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param tick duration of tick in milliseconds
+	 * @param bucketsCount count of buckets, rounded up to power of 2
+	 * @param time current time in milliseconds
+	 */
+	public TimingWheel(final long tick, final int bucketsCount, final long time) {
+		super();
+		if (tick < 1) throw new IllegalArgumentException("tick: " + tick);
+		if (bucketsCount < 1 || bucketsCount > 0x40000000) throw new IllegalArgumentException("buckets count: "
+		        + bucketsCount);
+		int count = 1;
+		while (count < bucketsCount)
+			count <<= 1;
+		this.tickTime = tick;
+		this.buckets = new Node[count];
+		for (int i = 0; i < count; i++) {
+			final Node head = new Node();
+			head.prev = head;
+			head.next = head;
+			this.buckets[i] = head;
+		}
+		this.mask = count - 1;
+		this.currentTick = time / tick;
+	}
+
+	/**
+	 * Return tick duration
+	 * 
+	 * @return duration of tick in milliseconds
+	 */
+	public long getTickTime() {
+		return this.tickTime;
+	}
+
+	/**
+	 * Return count of elements
+	 * 
+	 * @return count of scheduled elements
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Schedule element. Element, which is already scheduled, is moved. Elements, which time already passed, returned
+	 * on next tick.
+	 * 
+	 * @param element element to schedule
+	 * @param time expiration time of element in milliseconds
+	 */
+	public void schedule(final E element, final long time) {
+		if (element == null) throw new IllegalArgumentException("null element");
+		if (element.next != null) this.unlink(element);
+		long tick = (time + this.tickTime - 1) / this.tickTime;
+		if (tick <= this.currentTick) tick = this.currentTick + 1;
+		final Node head = this.buckets[(int) (tick & this.mask)];
+		element.prev = head.prev;
+		element.next = head;
+		head.prev.next = element;
+		head.prev = element;
+		this.size++;
+	}
+
+	/**
+	 * Remove element
+	 * 
+	 * @param element element to remove
+	 * @return true if element was scheduled
+	 */
+	public boolean remove(final E element) {
+		if (element == null) throw new IllegalArgumentException("null element");
+		if (element.next == null) return false;
+		this.unlink(element);
+		return true;
+	}
+
+	/**
+	 * Unlink scheduled node from list of bucket
+	 * 
+	 * @param node scheduled node
+	 */
+	private void unlink(final Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+		this.size--;
+	}
+
+	/**
+	 * Advance wheel to specified time and collect elements from passed buckets. Collected elements are not scheduled.
+	 * 
+	 * @param time current time in milliseconds
+	 * @param expired collection to add elements of passed buckets
+	 */
+	@SuppressWarnings("unchecked")
+	public void advance(final long time, final Collection<? super E> expired) {
+		if (expired == null) throw new IllegalArgumentException("null collection");
+		final long tick = time / this.tickTime;
+		if (tick <= this.currentTick) return;
+		final long ticks = Math.min(tick - this.currentTick, this.buckets.length);
+		for (long i = 1; i <= ticks; i++) {
+			final Node head = this.buckets[(int) ((this.currentTick + i) & this.mask)];
+			while (head.next != head) {
+				final Node node = head.next;
+				this.unlink(node);
+				expired.add((E) node);
+			}
+		}
+		this.currentTick = tick;
+	}
+
+	/**
+	 * Remove all elements
+	 */
+	public void clear() {
+		for (final Node head : this.buckets) {
+			while (head.next != head) {
+				this.unlink(head.next);
+			}
+		}
+	}
+
+	/**
+	 * Element of wheel. Links of node are changed only by wheel.
+	 */
+	public static class Node {
+		/** Previous node in bucket or null if not scheduled */
+		Node prev = null;
+
+		/** Next node in bucket or null if not scheduled */
+		Node next = null;
+
+		/**
+		 * Constructor
+		 */
+		protected Node() {
+			super();
+		}
+
+		/**
+		 * Check if node is scheduled
+		 * 
+		 * @return true if node is in the wheel
+		 */
+		public final boolean isScheduled() {
+			return this.next != null;
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/**
+ * AbstractFlowView.java 17.10.2026
+ */
+package org.dicr.netflow.codec;
+
+import java.nio.*;
+
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+
+/**
+ * Abstract Flow View.
+ * <P>
+ * Implement cursor over fixed size records, which follow fixed size header, and fields of header, which are common for
+ * NetFlow versions 5, 7 and 8.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public abstract class AbstractFlowView implements FlowView {
+	/** Version of packet */
+	private final int version;
+
+	/** Size of packet header */
+	private final int headerSize;
+
+	/** Size of flow record */
+	private final int recordSize;
+
+	/** Maximum count of flows in packet */
+	private final int maxFlowsCount;
+
+	/** Maximum bits of IPv4 address mask */
+	private static final int MAX_MASK_BITS = 32;
+
+	/** Buffer with packet */
+	private ByteBuffer buf = null;
+
+	/** Offset of packet header in buffer */
+	private int base = 0;
+
+	/** Count of flow records in packet */
+	private int count = 0;
+
+	/** Index of current record */
+	private int index = -1;
+
+	/** Offset of current record in buffer */
+	private int offset = 0;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param versionCode version of packet
+	 * @param header size of packet header
+	 * @param record size of flow record
+	 * @param maxCount maximum count of flows in packet
+	 */
+	protected AbstractFlowView(final int versionCode, final int header, final int record, final int maxCount) {
+		super();
+		this.version = versionCode;
+		this.headerSize = header;
+		this.recordSize = record;
+		this.maxFlowsCount = maxCount;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#wrap(java.nio.ByteBuffer)
+	 */
+	public FlowView wrap(final ByteBuffer buffer) throws CodecException {
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		final int start = buffer.position();
+		if (buffer.remaining() < this.headerSize) throw new CodecException("short data buffer");
+		final int versionCode = ByteUtils.unsigned(buffer.getShort(start));
+		if (versionCode != this.version) throw new UnsupportedVersionException("packet version " + versionCode
+		        + " does not match required version: " + this.version);
+		final int flowsCount = ByteUtils.unsigned(buffer.getShort(start + 2));
+		if (flowsCount > this.maxFlowsCount) throw new CodecException("incorrect flows count: " + flowsCount);
+		if (buffer.remaining() < this.headerSize + flowsCount * this.recordSize) throw new CodecException(
+		        "short data buffer");
+		this.buf = buffer;
+		this.base = start;
+		this.count = flowsCount;
+		this.index = -1;
+		this.offset = 0;
+		this.checkHeader();
+		return this;
+	}
+
+	/**
+	 * Check specific fields of wrapped packet header. Default implementation does nothing.
+	 * 
+	 * @throws CodecException if header is incorrect
+	 */
+	protected void checkHeader() throws CodecException {
+		// NOP
+	}
+
+	/**
+	 * Return buffer
+	 * 
+	 * @return wrapped buffer
+	 */
+	protected final ByteBuffer getBuffer() {
+		return this.buf;
+	}
+
+	/**
+	 * Return offset of packet
+	 * 
+	 * @return offset of packet header in buffer
+	 */
+	protected final int getPacketOffset() {
+		return this.base;
+	}
+
+	/**
+	 * Return offset of current record
+	 * 
+	 * @return offset of current record in buffer
+	 */
+	protected final int getRecordOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * Return bits of address mask from current record, checked as {@link org.dicr.util.net.Mask#bits2mask(byte)}
+	 * does for decoded flows.
+	 * 
+	 * @param pos position of mask bits in record
+	 * @return count of mask bits
+	 * @throws CodecException if count of bits is incorrect
+	 */
+	protected final byte getMaskBits(final int pos) throws CodecException {
+		final byte bits = this.buf.get(this.offset + pos);
+		if (bits < 0 || bits > AbstractFlowView.MAX_MASK_BITS) throw new CodecException("incorrect mask bits: " + bits);
+		return bits;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getFlowsCount()
+	 */
+	public int getFlowsCount() {
+		return this.count;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getPacketSize()
+	 */
+	public int getPacketSize() {
+		return this.headerSize + this.count * this.recordSize;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getSysUptime()
+	 */
+	public long getSysUptime() {
+		return ByteUtils.unsigned(this.buf.getInt(this.base + 4));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getUnixSecs()
+	 */
+	public long getUnixSecs() {
+		return ByteUtils.unsigned(this.buf.getInt(this.base + 8));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getUnixNSecs()
+	 */
+	public long getUnixNSecs() {
+		return ByteUtils.unsigned(this.buf.getInt(this.base + 12));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getFlowSequence()
+	 */
+	public long getFlowSequence() {
+		return ByteUtils.unsigned(this.buf.getInt(this.base + 16));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#next()
+	 */
+	public boolean next() {
+		if (this.index + 1 >= this.count) return false;
+		this.moveTo(this.index + 1);
+		return true;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#moveTo(int)
+	 */
+	public void moveTo(final int recordIndex) {
+		if (recordIndex < 0 || recordIndex >= this.count) throw new IndexOutOfBoundsException("index: " + recordIndex);
+		this.index = recordIndex;
+		this.offset = this.base + this.headerSize + recordIndex * this.recordSize;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getIndex()
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Add row with counters and times of current record, then copy specific fields by
+	 * {@link #copyRecord(FlowBatch, int)}. Row is removed, if record contains incorrect data.
+	 * 
+	 * @see org.dicr.netflow.codec.FlowView#copyTo(org.dicr.netflow.packet.FlowBatch)
+	 */
+	public void copyTo(final FlowBatch batch) throws CodecException {
+		if (batch == null) throw new IllegalArgumentException("null batch");
+		this.checkRecord();
+		final int row = batch.add(this.getFlowType());
+		batch.getBootTime()[row] = this.getUnixSecs() * 1000 - this.getSysUptime();
+		batch.getPacketsCount()[row] = this.getPacketsCount();
+		batch.getBytesCount()[row] = this.getBytesCount();
+		batch.getFirst()[row] = this.getFirst();
+		batch.getLast()[row] = this.getLast();
+		try {
+			this.copyRecord(batch, row);
+		} catch (final CodecException ex) {
+			batch.truncate(row);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Copy specific fields of current record to batch.
+	 * 
+	 * @param batch batch to copy to
+	 * @param row index of row in batch
+	 * @throws CodecException if record contains incorrect data
+	 */
+	protected abstract void copyRecord(FlowBatch batch, int row) throws CodecException;
+
+	/**
+	 * Check that cursor is positioned at record
+	 */
+	protected final void checkRecord() {
+		if (this.index < 0) throw new IllegalStateException("cursor is before first record");
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * FlowView.java 17.10.2026
+ */
+package org.dicr.netflow.codec;
+
+import java.nio.*;
+
+import org.dicr.netflow.packet.*;
+
+/**
+ * Flow View.
+ * <P>
+ * Flyweight cursor over encoded packet in {@link ByteBuffer}. View read fields of packet header and flow records
+ * directly from buffer, without creating {@link NetFlowPacket packet} and {@link Flow flow} objects. Each version of
+ * packet provide its own view with specific fields of flow records.
+ * </P>
+ * <P>
+ * View does not copy data, so buffer must not be changed while view is used. Views are not thread-safe.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see NetFlowCodec#createView()
+ */
+public interface FlowView {
+	/**
+	 * Wrap buffer with encoded packet.
+	 * <P>
+	 * Packet start at current position of buffer. Position of buffer is not changed. After wrap cursor is placed
+	 * before first record.
+	 * </P>
+	 * 
+	 * @param buffer buffer with packet
+	 * @return this view
+	 * @throws CodecException if buffer does not contain correct packet
+	 */
+	public FlowView wrap(ByteBuffer buffer) throws CodecException;
+
+	/**
+	 * Return flow type
+	 * 
+	 * @return type of flows in wrapped packet
+	 */
+	public FlowType getFlowType();
+
+	/**
+	 * Return count of flows in packet
+	 * 
+	 * @return number of flow records
+	 */
+	public int getFlowsCount();
+
+	/**
+	 * Return size of packet
+	 * 
+	 * @return size of header and records in bytes
+	 */
+	public int getPacketSize();
+
+	/**
+	 * Return SysUptime of packet
+	 * 
+	 * @return current time in milliseconds since the export device booted
+	 */
+	public long getSysUptime();
+
+	/**
+	 * Return UnixSecs of packet
+	 * 
+	 * @return current count of seconds since 0000 UTC 1970
+	 */
+	public long getUnixSecs();
+
+	/**
+	 * Return UnixNSecs of packet
+	 * 
+	 * @return residual nanoseconds since 0000 UTC 1970
+	 */
+	public long getUnixNSecs();
+
+	/**
+	 * Return FlowSequence of packet
+	 * 
+	 * @return sequence counter of total flows seen
+	 */
+	public long getFlowSequence();
+
+	/**
+	 * Move cursor to next record
+	 * 
+	 * @return true if moved, false if no more records
+	 */
+	public boolean next();
+
+	/**
+	 * Move cursor to record
+	 * 
+	 * @param recordIndex index of record
+	 */
+	public void moveTo(int recordIndex);
+
+	/**
+	 * Return index of current record
+	 * 
+	 * @return index of record or -1 if cursor is before first record
+	 */
+	public int getIndex();
+
+	/**
+	 * Return packets count of current record
+	 * 
+	 * @return packets in the flow
+	 */
+	public long getPacketsCount();
+
+	/**
+	 * Return octets count of current record
+	 * 
+	 * @return total number of layer 3 bytes in the packets of the flow
+	 */
+	public long getBytesCount();
+
+	/**
+	 * Return first packet uptime of current record
+	 * 
+	 * @return SysUptime at start of flow
+	 */
+	public long getFirst();
+
+	/**
+	 * Return last packet uptime of current record
+	 * 
+	 * @return SysUptime at the time the last packet of the flow was received
+	 */
+	public long getLast();
+
+	/**
+	 * Create flow object from current record.
+	 * 
+	 * @return new flow with fields of current record
+	 * @throws CodecException if record contains incorrect data
+	 */
+	public Flow toFlow() throws CodecException;
+
+	/**
+	 * Add current record to batch.
+	 * 
+	 * @param batch batch to add row of current record to
+	 * @throws CodecException if record contains incorrect data, row is not added
+	 */
+	public void copyTo(FlowBatch batch) throws CodecException;
+}
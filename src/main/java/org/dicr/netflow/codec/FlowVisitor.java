@@ -0,0 +1,27 @@
+/**
+ * FlowVisitor.java 17.10.2026
+ */
+package org.dicr.netflow.codec;
+
+/**
+ * Flow Visitor.
+ * <P>
+ * Process flow records of packet, {@link NetFlowCodec#decode(java.nio.ByteBuffer, FlowVisitor) decoded} as
+ * {@link FlowView views} instead of flow objects.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public interface FlowVisitor {
+	/**
+	 * Visit flow record.
+	 * <P>
+	 * View is positioned at visited record and valid only while this method is running. View must not be moved or
+	 * stored by visitor. To keep flow, visitor can {@link FlowView#toFlow() create} flow object.
+	 * </P>
+	 * 
+	 * @param view view of packet, positioned at flow record
+	 */
+	public void visitFlow(FlowView view);
+}
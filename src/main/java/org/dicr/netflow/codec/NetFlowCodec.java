@@ -18,11 +18,24 @@ import org.dicr.util.data.*;
  * {@link FlowType#getTypeByVersion(int) registry}. You must {@link FlowType#registerType(int, FlowType) register}
  * packet version/type before decoding it.
  * </P>
+ * <P>
+ * Codecs, which provide {@link #createView() views}, can also {@link #decode(ByteBuffer, FlowVisitor) decode}
+ * packets to {@link FlowVisitor visitors} or {@link #decode(ByteBuffer, FlowBatch) batches} without creating packet
+ * and flow objects.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 061219
  */
 public abstract class NetFlowCodec {
+	/** Views of decoding threads */
+	private final ThreadLocal<FlowView> views = new ThreadLocal<FlowView>() {
+		@Override
+		protected FlowView initialValue() {
+			return NetFlowCodec.this.createView();
+		}
+	};
+
 	/**
 	 * Encode specific packet to buffer.
 	 * 
@@ -32,6 +45,19 @@ public abstract class NetFlowCodec {
 	 */
 	public abstract void encodePacket(NetFlowPacket packet, ByteBuffer buf) throws CodecException;
 
+	/**
+	 * Encode flow record to buffer.
+	 * <P>
+	 * Used to stream flows into encoded packet without creating of packet objects: record is encoded at buffer
+	 * position after header and previous records.
+	 * </P>
+	 * 
+	 * @param flow flow to encode, must be specific type for this codec
+	 * @param buf buffer to encode to
+	 * @throws CodecException if flow can't be encoded
+	 */
+	public abstract void encodeFlow(Flow flow, ByteBuffer buf) throws CodecException;
+
 	/**
 	 * Decode specific packet from buffer.
 	 * 
@@ -41,6 +67,104 @@ public abstract class NetFlowCodec {
 	 */
 	public abstract NetFlowPacket decodePacket(ByteBuffer buf) throws CodecException;
 
+	/**
+	 * Create flyweight view of packets.
+	 * <P>
+	 * Default implementation return <CODE>null</CODE>, which mean that codec does not support views.
+	 * </P>
+	 * 
+	 * @return new view of specific for this codec packets or null if not supported
+	 */
+	public FlowView createView() {
+		return null;
+	}
+
+	/**
+	 * Decode specific packet from buffer to visitor.
+	 * <P>
+	 * Flow records are not decoded to objects, but visited by {@link FlowView view} of packet. Views are reused by
+	 * decoding thread, so decoding does not allocate memory. Buffer position is moved to the end of packet.
+	 * </P>
+	 * 
+	 * @param buf buffer to decode from
+	 * @param visitor visitor of flow records
+	 * @return count of visited flows
+	 * @throws CodecException decoding exception or if codec does not support views
+	 */
+	public int decodePacket(final ByteBuffer buf, final FlowVisitor visitor) throws CodecException {
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		if (visitor == null) throw new IllegalArgumentException("null visitor");
+		return NetFlowCodec.visit(this.getView(buf), buf, visitor);
+	}
+
+	/**
+	 * Decode specific packet from buffer to batch.
+	 * <P>
+	 * Flow records are added to batch as rows, without creating flow objects. Buffer position is moved to the end of
+	 * packet. If packet contains incorrect record, rows of packet are removed from batch, as packet object is not
+	 * decoded.
+	 * </P>
+	 * 
+	 * @param buf buffer to decode from
+	 * @param batch batch to add flows to, must be empty or contain flows of the same type
+	 * @return count of added flows
+	 * @throws CodecException decoding exception or if codec does not support views
+	 */
+	public int decodePacket(final ByteBuffer buf, final FlowBatch batch) throws CodecException {
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		if (batch == null) throw new IllegalArgumentException("null batch");
+		final FlowView view = this.getView(buf).wrap(buf);
+		if (batch.getFlowsCount() > 0 && !batch.getFlowType().equals(view.getFlowType())) throw new IllegalArgumentException(
+		        "batch flow type '" + batch.getFlowType() + "' does not match packet flow type: " + view.getFlowType());
+		final int count = view.getFlowsCount();
+		final int start = batch.getFlowsCount();
+		batch.ensureCapacity(start + count);
+		try {
+			while (view.next()) {
+				view.copyTo(batch);
+			}
+		} catch (final CodecException ex) {
+			batch.truncate(start);
+			throw ex;
+		}
+		buf.position(buf.position() + view.getPacketSize());
+		return count;
+	}
+
+	/**
+	 * Return view of decoding thread for packet in buffer.
+	 * 
+	 * @param buf buffer with packet at current position
+	 * @return view of packet
+	 * @throws CodecException if codec does not support views or packet
+	 */
+	protected FlowView getView(final ByteBuffer buf) throws CodecException {
+		final FlowView view = this.views.get();
+		if (view == null) throw new UnsupportedVersionException("views are not supported by "
+		        + this.getClass().getName());
+		return view;
+	}
+
+	/**
+	 * Wrap buffer with view and visit all flow records.
+	 * 
+	 * @param view view to use
+	 * @param buf buffer with packet
+	 * @param visitor visitor of flow records
+	 * @return count of visited flows
+	 * @throws CodecException decoding exception
+	 */
+	protected static int visit(final FlowView view, final ByteBuffer buf, final FlowVisitor visitor)
+	        throws CodecException {
+		view.wrap(buf);
+		final int count = view.getFlowsCount();
+		while (view.next()) {
+			visitor.visitFlow(view);
+		}
+		buf.position(buf.position() + view.getPacketSize());
+		return count;
+	}
+
 	/**
 	 * Decode any packet from the buffer.
 	 * <P>
@@ -68,6 +192,63 @@ public abstract class NetFlowCodec {
 		return flowType.getCodec().decodePacket(buf);
 	}
 
+	/**
+	 * Decode any packet from the buffer to visitor.
+	 * <P>
+	 * Decode all known ({@link FlowType#registerType(int, FlowType) registered}) types of packet, which codecs
+	 * support {@link #createView() views}.
+	 * </P>
+	 * 
+	 * @param buf buffer with packet
+	 * @param visitor visitor of flow records
+	 * @return count of visited flows
+	 * @throws CodecException codec exception
+	 * @see #decodePacket(ByteBuffer, FlowVisitor)
+	 */
+	public static int decode(final ByteBuffer buf, final FlowVisitor visitor) throws CodecException {
+		return NetFlowCodec.getCodec(buf).decodePacket(buf, visitor);
+	}
+
+	/**
+	 * Decode any packet from the buffer to batch.
+	 * <P>
+	 * Decode all known ({@link FlowType#registerType(int, FlowType) registered}) types of packet, which codecs
+	 * support {@link #createView() views}.
+	 * </P>
+	 * 
+	 * @param buf buffer with packet
+	 * @param batch batch to add flows to
+	 * @return count of added flows
+	 * @throws CodecException codec exception
+	 * @see #decodePacket(ByteBuffer, FlowBatch)
+	 */
+	public static int decode(final ByteBuffer buf, final FlowBatch batch) throws CodecException {
+		return NetFlowCodec.getCodec(buf).decodePacket(buf, batch);
+	}
+
+	/**
+	 * Return codec of packet by version code at current position of buffer.
+	 * 
+	 * @param buf buffer with packet
+	 * @return codec of packet version
+	 * @throws CodecException if buffer is too short or version is unknown
+	 */
+	private static NetFlowCodec getCodec(final ByteBuffer buf) throws CodecException {
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		// get version code
+		int versionCode = 0;
+		try {
+			versionCode = ByteUtils.unsigned(buf.getShort(buf.position()));
+		} catch (final IndexOutOfBoundsException ex) {
+			throw new CodecException("short buffer data");
+		}
+
+		// search implementation
+		final FlowType flowType = FlowType.getTypeByVersion(versionCode);
+		if (flowType == null) throw new CodecException("unknown flow version: " + versionCode);
+		return flowType.getCodec();
+	}
+
 	/**
 	 * Encode any packet to buffer.
 	 * <P>
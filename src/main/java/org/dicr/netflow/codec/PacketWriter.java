@@ -0,0 +1,169 @@
+/**
+ * PacketWriter.java 17.10.2026
+ */
+package org.dicr.netflow.codec;
+
+import java.nio.*;
+
+import org.dicr.netflow.packet.*;
+
+/**
+ * Streaming encoder of packets.
+ * <P>
+ * Writer encode flows directly to reusable buffer after space, reserved for header of packet, without creating of
+ * {@link NetFlowPacket packet} objects and collections of flows. When packet is {@link #isFull() full} or flows
+ * ended, {@link #finish(long) finish} encode header with count of flows and sequence and return buffer with datagram,
+ * which must be sent before next {@link #write(Flow) write}, because buffer is reused for next packet. As
+ * {@link NetFlowPacket#addFlow(Flow) packet} object does, writer set SysUptime of header by maximum uptime of last
+ * packet of written flows.
+ * </P>
+ * <P>
+ * Writer is not thread-safe.
+ * </P>
+ *
+ * <PRE>
+ * for (final Flow flow : flows) {
+ * 	writer.write(flow);
+ * 	if (writer.isFull()) send(writer.finish(sequence));
+ * }
+ * if (writer.getFlowsCount() &gt; 0) send(writer.finish(sequence));
+ * </PRE>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public final class PacketWriter {
+	/** Buffer */
+	private final ByteBuffer buffer;
+
+	/** Type of flows in current packet */
+	private FlowType flowType = null;
+
+	/** Codec of flows type */
+	private NetFlowCodec codec = null;
+
+	/** Size of header of flows type */
+	private int headerSize = 0;
+
+	/** Count of flows in current packet */
+	private int flowsCount = 0;
+
+	/** Maximum uptime of last packet of flows in current packet */
+	private long sysUptime = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param aBuffer buffer to encode packets, must have size for maximum packet
+	 */
+	public PacketWriter(final ByteBuffer aBuffer) {
+		super();
+		if (aBuffer == null) throw new IllegalArgumentException("null buffer");
+		this.buffer = aBuffer;
+	}
+
+	/**
+	 * Return type of flows
+	 *
+	 * @return type of flows in current packet or type of last packet
+	 */
+	public FlowType getFlowType() {
+		return this.flowType;
+	}
+
+	/**
+	 * Return count of flows
+	 *
+	 * @return count of flows, written to current packet
+	 */
+	public int getFlowsCount() {
+		return this.flowsCount;
+	}
+
+	/**
+	 * Check if packet is full
+	 *
+	 * @return true if packet contains maximum count of flows and must be finished
+	 */
+	public boolean isFull() {
+		return this.flowType != null && this.flowsCount >= this.flowType.getMaxFlowsCount();
+	}
+
+	/**
+	 * Write flow to current packet. Start new packet if current is empty.
+	 *
+	 * @param flow flow to write
+	 * @throws CodecException if packet is full, type of flow does not match flows of packet or encoding error
+	 */
+	public void write(final Flow flow) throws CodecException {
+		if (flow == null) throw new IllegalArgumentException("null flow");
+		final FlowType type = flow.getFlowType();
+		if (this.flowsCount == 0) {
+			if (!type.equals(this.flowType)) {
+				// measure header of new type
+				this.flowType = type;
+				this.codec = type.getCodec();
+				this.buffer.clear();
+				this.codec.encodePacket(type.createPacket(), this.buffer);
+				this.headerSize = this.buffer.position();
+			}
+			this.buffer.clear();
+			this.buffer.position(this.headerSize);
+			this.sysUptime = 0;
+		} else if (!type.equals(this.flowType)) throw new CodecException("flow type " + type
+		        + " does not match packet type " + this.flowType);
+		else if (this.isFull()) throw new CodecException("packet is full");
+		this.codec.encodeFlow(flow, this.buffer);
+		this.flowsCount++;
+		if (this.sysUptime < flow.getLast()) this.sysUptime = flow.getLast();
+	}
+
+	/**
+	 * Finish current packet. Encode header with count of flows, sequence and SysUptime of flows.
+	 *
+	 * @param sequence flows sequence of packet, ignored if flows type has not sequence
+	 * @return buffer with datagram between position and limit
+	 * @throws CodecException if packet is empty or error encoding header
+	 */
+	public ByteBuffer finish(final long sequence) throws CodecException {
+		if (this.flowsCount == 0) throw new CodecException("empty packet");
+		final NetFlowPacket header = this.flowType.createPacket();
+		header.setSysUptime(this.sysUptime);
+		if (header instanceof SequencedPacket) ((SequencedPacket) header).setFlowSequence(sequence);
+		return this.finish(header);
+	}
+
+	/**
+	 * Finish current packet with specified header.
+	 *
+	 * @param header empty packet with fields of header, such as times and sequence
+	 * @return buffer with datagram between position and limit
+	 * @throws CodecException if packet is empty, type of header does not match flows or error encoding header
+	 */
+	public ByteBuffer finish(final NetFlowPacket header) throws CodecException {
+		if (header == null) throw new IllegalArgumentException("null header");
+		if (this.flowsCount == 0) throw new CodecException("empty packet");
+		if (!this.flowType.equals(header.getFlowType())) throw new CodecException("header type "
+		        + header.getFlowType() + " does not match packet type " + this.flowType);
+		if (header.getFlowsCount() > 0) throw new IllegalArgumentException("header contains flows");
+		final int count = this.flowsCount;
+		this.flowsCount = 0;
+		this.sysUptime = 0;
+		final int end = this.buffer.position();
+		this.buffer.position(0);
+		this.codec.encodePacket(header, this.buffer);
+		// count follows version in headers of all versions
+		this.buffer.putShort(2, (short) count);
+		this.buffer.position(0);
+		this.buffer.limit(end);
+		return this.buffer;
+	}
+
+	/**
+	 * Discard flows of current packet
+	 */
+	public void reset() {
+		this.flowsCount = 0;
+		this.sysUptime = 0;
+	}
+}
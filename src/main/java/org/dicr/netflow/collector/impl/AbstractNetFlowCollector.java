@@ -4,6 +4,7 @@
 package org.dicr.netflow.collector.impl;
 
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import org.apache.log4j.*;
 import org.dicr.netflow.collector.*;
@@ -19,6 +20,17 @@ import org.dicr.netflow.packet.*;
  * <P>
  * Implements common used methods
  * </P>
+ * <P>
+ * Listeners, which implement {@link BatchListener}, receive flows of packets in {@link FlowBatch batches} instead of
+ * packets, when implementation decode packets to batches.
+ * </P>
+ * <P>
+ * Listeners are invoked by receiving thread, or asynchronously by own threads, when
+ * {@link #setDispatchQueueSize(int) dispatch queue size} is configured. Listeners and their dispatchers are kept in
+ * immutable snapshot, which is replaced on change, so registration of listeners does not block firing of packets.
+ * Exceptions of listeners are counted and logged not more often than {@link #ERROR_LOG_INTERVAL}, so failing listener
+ * does not flood the log.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 070108
@@ -27,8 +39,29 @@ public abstract class AbstractNetFlowCollector implements NetFlowCollector, Pack
 	/** Logger */
 	private static final Logger log = Logger.getLogger(AbstractNetFlowCollector.class);
 
-	/** Packet Listeners */
-	private final Set<PacketListener> listeners = new HashSet<PacketListener>();
+	/** Minimum interval between logging of decode and listener errors in milliseconds */
+	public static final long ERROR_LOG_INTERVAL = 10000;
+
+	/** Lock of listeners configuration */
+	private final Object listenersLock = new Object();
+
+	/** Listeners and their dispatchers. Replaced on every change, so firing does not lock and allocate */
+	private volatile Listeners listeners = new Listeners(new PacketListener[0], null);
+
+	/** Capacity of queue of listener in asynchronous dispatch mode, 0 to fire packets synchronously */
+	private int dispatchQueueSize = 0;
+
+	/** Dispatchers are started by collector */
+	private boolean dispatching = false;
+
+	/** Count of exceptions, thrown by listeners, invoked synchronously */
+	private final LongAdder listenerErrors = new LongAdder();
+
+	/** Time of last logged listener error */
+	private final AtomicLong errorLogTime = new AtomicLong();
+
+	/** Count of listener errors, which was not logged */
+	private final AtomicLong suppressedErrors = new AtomicLong();
 
 	/** Skip empty packets */
 	private boolean skipEmpty = true;
@@ -51,10 +84,13 @@ public abstract class AbstractNetFlowCollector implements NetFlowCollector, Pack
 	 * @see org.dicr.netflow.packet.PacketSource#setPacketListeners(java.util.Set)
 	 */
 	public void setPacketListeners(final Set<PacketListener> packetListeners) {
-		synchronized (this.listeners) {
-			this.listeners.clear();
-			if (packetListeners != null) this.listeners.addAll(packetListeners);
+		final Collection<ListenerDispatcher> removed;
+		synchronized (this.listenersLock) {
+			final Set<PacketListener> set = new LinkedHashSet<PacketListener>();
+			if (packetListeners != null) set.addAll(packetListeners);
+			removed = this.updateListeners(set.toArray(new PacketListener[set.size()]), true);
 		}
+		AbstractNetFlowCollector.stopDispatchers(removed);
 		AbstractNetFlowCollector.log.debug("configured " + (packetListeners != null ? packetListeners.size() : 0)
 		        + " NetFlow packet listeners");
 	}
@@ -64,8 +100,13 @@ public abstract class AbstractNetFlowCollector implements NetFlowCollector, Pack
 	 */
 	public void addListener(final PacketListener listener) {
 		if (listener == null) throw new IllegalArgumentException("null listener");
-		synchronized (this.listeners) {
-			this.listeners.add(listener);
+		synchronized (this.listenersLock) {
+			final PacketListener[] array = this.listeners.array;
+			if (Arrays.asList(array).contains(listener)) return;
+			final PacketListener[] newArray = Arrays.copyOf(array, array.length + 1);
+			newArray[array.length] = listener;
+			// no dispatchers are removed
+			this.updateListeners(newArray, true);
 		}
 	}
 
@@ -74,9 +115,181 @@ public abstract class AbstractNetFlowCollector implements NetFlowCollector, Pack
 	 */
 	public void removeListener(final PacketListener listener) {
 		if (listener == null) throw new IllegalArgumentException("null listener");
-		synchronized (this.listeners) {
-			this.listeners.remove(listener);
+		final Collection<ListenerDispatcher> removed;
+		synchronized (this.listenersLock) {
+			final List<PacketListener> list = new ArrayList<PacketListener>(Arrays.asList(this.listeners.array));
+			if (!list.remove(listener)) return;
+			removed = this.updateListeners(list.toArray(new PacketListener[list.size()]), true);
+		}
+		AbstractNetFlowCollector.stopDispatchers(removed);
+	}
+
+	/**
+	 * Replace listeners and create dispatchers of new listeners. Dispatchers are started, if collector started them.
+	 * Must be called under lock of listeners.
+	 * 
+	 * @param array new listeners
+	 * @param reuse true to reuse dispatchers of remaining listeners
+	 * @return dispatchers of removed listeners, which must be stopped by caller without lock
+	 */
+	private Collection<ListenerDispatcher> updateListeners(final PacketListener[] array, final boolean reuse) {
+		final Map<PacketListener, ListenerDispatcher> old = new HashMap<PacketListener, ListenerDispatcher>();
+		final ListenerDispatcher[] oldDispatchers = this.listeners.dispatchers;
+		if (oldDispatchers != null) {
+			for (final ListenerDispatcher dispatcher : oldDispatchers) {
+				old.put(dispatcher.getListener(), dispatcher);
+			}
+		}
+		ListenerDispatcher[] newDispatchers = null;
+		if (this.dispatchQueueSize > 0) {
+			newDispatchers = new ListenerDispatcher[array.length];
+			for (int i = 0; i < array.length; i++) {
+				ListenerDispatcher dispatcher = reuse ? old.remove(array[i]) : null;
+				if (dispatcher == null) {
+					dispatcher = new ListenerDispatcher(array[i], this.dispatchQueueSize);
+					if (this.dispatching) dispatcher.start();
+				}
+				newDispatchers[i] = dispatcher;
+			}
+		}
+		this.listeners = new Listeners(array, newDispatchers);
+		return old.values();
+	}
+
+	/**
+	 * Stop dispatchers and wait until they deliver queued packets.
+	 * 
+	 * @param dispatchers dispatchers to stop
+	 */
+	private static void stopDispatchers(final Collection<ListenerDispatcher> dispatchers) {
+		for (final ListenerDispatcher dispatcher : dispatchers) {
+			dispatcher.stop();
+		}
+	}
+
+	/**
+	 * Start dispatchers of listeners in asynchronous mode. Called by implementation, when collector is started.
+	 * Dispatchers of listeners, added while collector is running, are started on adding.
+	 */
+	protected void startDispatchers() {
+		synchronized (this.listenersLock) {
+			this.dispatching = true;
+			final ListenerDispatcher[] array = this.listeners.dispatchers;
+			if (array != null) {
+				for (final ListenerDispatcher dispatcher : array) {
+					dispatcher.start();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop dispatchers of listeners and wait until they deliver queued packets. Called by implementation, when
+	 * collector is stopped, without holding locks, which listeners can use.
+	 */
+	protected void stopDispatchers() {
+		final ListenerDispatcher[] array;
+		synchronized (this.listenersLock) {
+			this.dispatching = false;
+			array = this.listeners.dispatchers;
+		}
+		if (array != null) AbstractNetFlowCollector.stopDispatchers(Arrays.asList(array));
+	}
+
+	/**
+	 * Set size of listener queue.
+	 * <P>
+	 * When size is more than 0, packets are dispatched asynchronously: each listener has own
+	 * {@link ListenerDispatcher dispatcher} with bounded queue of specified size and thread, so slow listener does not
+	 * block receiving and other listeners. Packets are dropped for listener, which queue is full. In asynchronous mode
+	 * {@link BatchListener}s receive packets instead of batches. Threads of dispatchers run while collector is
+	 * running.
+	 * </P>
+	 * 
+	 * @param size capacity of queue of each listener, 0 to fire packets synchronously by receiving thread
+	 */
+	public void setDispatchQueueSize(final int size) {
+		if (size < 0) throw new IllegalArgumentException("dispatch queue size: " + size);
+		final Collection<ListenerDispatcher> removed;
+		synchronized (this.listenersLock) {
+			if (size == this.dispatchQueueSize) return;
+			// recreate dispatchers with new queues
+			this.dispatchQueueSize = size;
+			removed = this.updateListeners(this.listeners.array, false);
+		}
+		AbstractNetFlowCollector.stopDispatchers(removed);
+		AbstractNetFlowCollector.log.debug("configured dispatch queue size: " + size);
+	}
+
+	/**
+	 * Return size of listener queue
+	 * 
+	 * @return capacity of queue of each listener, 0 if packets are fired synchronously
+	 */
+	public int getDispatchQueueSize() {
+		synchronized (this.listenersLock) {
+			return this.dispatchQueueSize;
+		}
+	}
+
+	/**
+	 * Return dispatchers of listeners
+	 * 
+	 * @return dispatchers with statistics of listeners, empty if packets are fired synchronously
+	 */
+	public List<ListenerDispatcher> getDispatchers() {
+		final ListenerDispatcher[] array = this.listeners.dispatchers;
+		if (array == null) return Collections.emptyList();
+		return Collections.unmodifiableList(Arrays.asList(array));
+	}
+
+	/**
+	 * Return statistics of dispatchers
+	 * 
+	 * @return lag, dropped packets and latency of each listener in asynchronous mode
+	 */
+	public String[] getDispatchStatistics() {
+		final List<ListenerDispatcher> list = this.getDispatchers();
+		final String[] stats = new String[list.size()];
+		for (int i = 0; i < stats.length; i++) {
+			stats[i] = list.get(i).toString();
 		}
+		return stats;
+	}
+
+	/**
+	 * Return count of listener errors
+	 * 
+	 * @return count of exceptions, thrown by listeners, including listeners of dispatchers
+	 */
+	public long getListenerErrorsCount() {
+		long count = this.listenerErrors.sum();
+		final ListenerDispatcher[] array = this.listeners.dispatchers;
+		if (array != null) {
+			for (final ListenerDispatcher dispatcher : array) {
+				count += dispatcher.getErrorsCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return count of batch listeners
+	 * 
+	 * @return count of listeners, which implement {@link BatchListener}
+	 */
+	protected int getBatchListenersCount() {
+		return this.listeners.batchCount;
+	}
+
+	/**
+	 * Return count of packet listeners
+	 * 
+	 * @return count of listeners, which does not implement {@link BatchListener}
+	 */
+	protected int getPacketListenersCount() {
+		final Listeners current = this.listeners;
+		return current.array.length - current.batchCount;
 	}
 
 	/**
@@ -98,29 +311,123 @@ public abstract class AbstractNetFlowCollector implements NetFlowCollector, Pack
 	}
 
 	/**
-	 * Fire received packet to flow listeners.
+	 * Fire received packet to all listeners.
 	 * 
 	 * @param packet received packet
 	 */
 	protected void firePacket(final NetFlowPacket packet) {
+		this.firePacket(packet, false);
+	}
+
+	/**
+	 * Fire received packet to listeners.
+	 * 
+	 * @param packet received packet
+	 * @param batched true if packet was already fired as batch to {@link BatchListener}s, so skip them
+	 */
+	protected void firePacket(final NetFlowPacket packet, final boolean batched) {
 		if (packet == null) throw new IllegalArgumentException("null packet");
 		if (packet.getFlowsCount() < 1 && this.skipEmpty) {
 			AbstractNetFlowCollector.log.trace("skipping empty packet");
 			return;
 		}
-		synchronized (this.listeners) {
-			if (this.listeners.isEmpty()) AbstractNetFlowCollector.log.trace("no listeners");
-			else {
-				AbstractNetFlowCollector.log.trace("firing packet:\n" + packet + " to " + this.listeners.size()
-				        + " listeners");
-				for (final PacketListener listener : this.listeners) {
-					try {
-						listener.processPacket(packet);
-					} catch (final Exception ex) {
-						AbstractNetFlowCollector.log.error("error invoking listener: " + listener, ex);
-					}
+		final Listeners current = this.listeners;
+		final ListenerDispatcher[] queues = current.dispatchers;
+		if (queues != null) {
+			for (final ListenerDispatcher dispatcher : queues) {
+				if (batched && dispatcher.getListener() instanceof BatchListener) continue;
+				dispatcher.dispatch(packet);
+			}
+			return;
+		}
+		final PacketListener[] array = current.array;
+		if (array.length < 1) AbstractNetFlowCollector.log.trace("no listeners");
+		else {
+			if (AbstractNetFlowCollector.log.isTraceEnabled()) AbstractNetFlowCollector.log.trace("firing packet:\n"
+			        + packet + " to " + array.length + " listeners");
+			for (final PacketListener listener : array) {
+				if (batched && listener instanceof BatchListener) continue;
+				try {
+					listener.processPacket(packet);
+				} catch (final Exception ex) {
+					this.listenerError(listener, ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fire flows of received packet to batch listeners.
+	 * 
+	 * @param batch flows of received packet
+	 */
+	protected void fireBatch(final FlowBatch batch) {
+		if (batch == null) throw new IllegalArgumentException("null batch");
+		if (batch.getFlowsCount() < 1 && this.skipEmpty) {
+			AbstractNetFlowCollector.log.trace("skipping empty batch");
+			return;
+		}
+		for (final PacketListener listener : this.listeners.array) {
+			if (!(listener instanceof BatchListener)) continue;
+			try {
+				((BatchListener) listener).processBatch(batch);
+			} catch (final Exception ex) {
+				this.listenerError(listener, ex);
+			}
+		}
+	}
+
+	/**
+	 * Count exception of listener and log it, if errors was not logged during {@link #ERROR_LOG_INTERVAL}.
+	 * 
+	 * @param listener listener
+	 * @param ex exception, thrown by listener
+	 */
+	private void listenerError(final PacketListener listener, final Exception ex) {
+		this.listenerErrors.increment();
+		final long now = System.currentTimeMillis();
+		final long last = this.errorLogTime.get();
+		if (now - last < AbstractNetFlowCollector.ERROR_LOG_INTERVAL || !this.errorLogTime.compareAndSet(last, now)) {
+			this.suppressedErrors.incrementAndGet();
+			return;
+		}
+		final long suppressed = this.suppressedErrors.getAndSet(0);
+		AbstractNetFlowCollector.log.error("error invoking listener " + listener + ": " + ex
+		        + (suppressed > 0 ? " (" + suppressed + " errors not logged)" : ""));
+		if (AbstractNetFlowCollector.log.isDebugEnabled()) AbstractNetFlowCollector.log.debug("listener error", ex);
+	}
+
+	/**
+	 * Snapshot of listeners
+	 */
+	private static final class Listeners {
+		/** Listeners */
+		final PacketListener[] array;
+
+		/** Dispatchers of listeners in asynchronous mode or null */
+		final ListenerDispatcher[] dispatchers;
+
+		/** Count of listeners, which process batches */
+		final int batchCount;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param anArray listeners
+		 * @param aDispatchers dispatchers of listeners or null
+		 */
+		Listeners(final PacketListener[] anArray, final ListenerDispatcher[] aDispatchers) {
+			super();
+			this.array = anArray;
+			this.dispatchers = aDispatchers;
+			// batches are not queued, so in asynchronous mode all listeners receive packets
+			int count = 0;
+			if (aDispatchers == null) {
+				for (final PacketListener listener : anArray) {
+					if (listener instanceof BatchListener) count++;
 				}
 			}
+			this.batchCount = count;
 		}
 	}
 }
@@ -0,0 +1,222 @@
+/**
+ * CollectorMetrics.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.dicr.netflow.codec.*;
+
+/**
+ * Metrics of collector.
+ * <P>
+ * Count received datagrams and bytes, decoded packets and flows of each version, decode errors by cause and latency
+ * from receiving of datagram to the end of firing of packet. Counters are {@link LongAdder striped} and latency is
+ * recorded to {@link LatencyHistogram histogram}, so metrics can be updated by all receive threads without contention
+ * and allocation of memory.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class CollectorMetrics {
+	/** Maximum tracked version of NetFlow */
+	public static final int MAX_VERSION = 9;
+
+	/** Count of received datagrams */
+	private final LongAdder datagramsCount = new LongAdder();
+
+	/** Count of received bytes */
+	private final LongAdder bytesCount = new LongAdder();
+
+	/** Count of decoded packets by version */
+	private final LongAdder[] packetsCount = new LongAdder[CollectorMetrics.MAX_VERSION + 1];
+
+	/** Count of decoded flows by version */
+	private final LongAdder[] flowsCount = new LongAdder[CollectorMetrics.MAX_VERSION + 1];
+
+	/** Count of decode errors */
+	private final LongAdder errorsCount = new LongAdder();
+
+	/** Count of decode errors by cause */
+	private final ConcurrentMap<String, LongAdder> errorsByCause = new ConcurrentHashMap<String, LongAdder>();
+
+	/** Latency of packets in nanoseconds */
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	/**
+	 * Constructor
+	 */
+	public CollectorMetrics() {
+		super();
+		for (int i = 0; i <= CollectorMetrics.MAX_VERSION; i++) {
+			this.packetsCount[i] = new LongAdder();
+			this.flowsCount[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Count received datagram
+	 *
+	 * @param size size of datagram in bytes
+	 */
+	public void received(final int size) {
+		this.datagramsCount.increment();
+		this.bytesCount.add(size);
+	}
+
+	/**
+	 * Count decoded and fired packet
+	 *
+	 * @param version version of packet
+	 * @param flows count of flows in packet
+	 * @param nanos latency from receiving to the end of firing in nanoseconds
+	 */
+	public void decoded(final int version, final int flows, final long nanos) {
+		if (version >= 0 && version <= CollectorMetrics.MAX_VERSION) {
+			this.packetsCount[version].increment();
+			this.flowsCount[version].add(flows);
+		}
+		this.latency.record(nanos);
+	}
+
+	/**
+	 * Count decode error
+	 *
+	 * @param ex error of decoding
+	 * @return cause of error: message without details and class of cause
+	 */
+	public String decodeError(final CodecException ex) {
+		if (ex == null) throw new IllegalArgumentException("null exception");
+		this.errorsCount.increment();
+		final String cause = CollectorMetrics.getCause(ex);
+		LongAdder counter = this.errorsByCause.get(cause);
+		if (counter == null) {
+			final LongAdder newCounter = new LongAdder();
+			counter = this.errorsByCause.putIfAbsent(cause, newCounter);
+			if (counter == null) counter = newCounter;
+		}
+		counter.increment();
+		return cause;
+	}
+
+	/**
+	 * Return cause of decode error: message of innermost codec exception and class of its cause. Details of message
+	 * (after colon) are removed, so count of causes is limited.
+	 *
+	 * @param ex error of decoding
+	 * @return name of cause
+	 */
+	private static String getCause(final CodecException ex) {
+		CodecException inner = ex;
+		while (inner.getCause() instanceof CodecException) {
+			inner = (CodecException) inner.getCause();
+		}
+		String cause = inner.getMessage();
+		if (cause == null) cause = inner.getClass().getSimpleName();
+		else if (cause.indexOf(':') >= 0) cause = cause.substring(0, cause.indexOf(':'));
+		if (inner.getCause() != null) cause += " (" + inner.getCause().getClass().getSimpleName() + ")";
+		return cause;
+	}
+
+	/**
+	 * Return count of datagrams
+	 *
+	 * @return count of received datagrams
+	 */
+	public long getDatagramsCount() {
+		return this.datagramsCount.sum();
+	}
+
+	/**
+	 * Return count of bytes
+	 *
+	 * @return count of bytes in received datagrams
+	 */
+	public long getBytesCount() {
+		return this.bytesCount.sum();
+	}
+
+	/**
+	 * Return count of packets
+	 *
+	 * @return count of decoded packets of all versions
+	 */
+	public long getPacketsCount() {
+		long sum = 0;
+		for (final LongAdder counter : this.packetsCount) {
+			sum += counter.sum();
+		}
+		return sum;
+	}
+
+	/**
+	 * Return count of flows
+	 *
+	 * @return count of flows in decoded packets of all versions
+	 */
+	public long getFlowsCount() {
+		long sum = 0;
+		for (final LongAdder counter : this.flowsCount) {
+			sum += counter.sum();
+		}
+		return sum;
+	}
+
+	/**
+	 * Return count of decode errors
+	 *
+	 * @return count of datagrams, which was not decoded
+	 */
+	public long getDecodeErrorsCount() {
+		return this.errorsCount.sum();
+	}
+
+	/**
+	 * Return latency histogram
+	 *
+	 * @return latency from receiving to the end of firing of packets in nanoseconds
+	 */
+	public LatencyHistogram getLatency() {
+		return this.latency;
+	}
+
+	/**
+	 * Return statistics of versions
+	 *
+	 * @return count of packets and flows of each received version
+	 */
+	public String[] getVersionStatistics() {
+		final List<String> stats = new ArrayList<String>();
+		for (int i = 0; i <= CollectorMetrics.MAX_VERSION; i++) {
+			final long packets = this.packetsCount[i].sum();
+			if (packets > 0) stats.add("v" + i + ": packets=" + packets + ", flows=" + this.flowsCount[i].sum());
+		}
+		return stats.toArray(new String[stats.size()]);
+	}
+
+	/**
+	 * Return statistics of decode errors
+	 *
+	 * @return count of errors of each cause
+	 */
+	public String[] getDecodeErrorStatistics() {
+		final List<String> stats = new ArrayList<String>();
+		for (final Map.Entry<String, LongAdder> entry : this.errorsByCause.entrySet()) {
+			stats.add(entry.getKey() + ": " + entry.getValue().sum());
+		}
+		return stats.toArray(new String[stats.size()]);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "datagrams=" + this.getDatagramsCount() + ", bytes=" + this.getBytesCount() + ", packets="
+		        + this.getPacketsCount() + ", flows=" + this.getFlowsCount() + ", errors="
+		        + this.getDecodeErrorsCount();
+	}
+}
@@ -0,0 +1,228 @@
+/**
+ * DatagramRing.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.net.*;
+import java.nio.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Datagram Ring.
+ * <P>
+ * Bounded ring of preallocated datagram buffers between receive and decode threads. Receive thread
+ * {@link #acquire(OverflowPolicy) acquire} free slot, receive datagram directly into slot buffer and
+ * {@link #publish(Slot) publish} it. Decode threads {@link #take() take} published slots and {@link #release(Slot)
+ * release} them after decoding. Buffers are reused, so ring does not allocate memory while running.
+ * </P>
+ * <P>
+ * When receive threads are stopped, ring is {@link #close() closed}: decode threads take remaining datagrams and
+ * then {@link #take()} return null, so decoders exit, when ring is drained.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class DatagramRing {
+	/** Maximum size of UDP datagram */
+	public static final int MAX_DATAGRAM_SIZE = 65535;
+
+	/** Interval of check of closing, while decode thread wait for datagram, milliseconds */
+	private static final long CLOSE_CHECK_INTERVAL = 100;
+
+	/** Free slots */
+	private final BlockingQueue<Slot> free;
+
+	/** Received slots */
+	private final BlockingQueue<Slot> received;
+
+	/** Count of received datagrams */
+	private final AtomicLong receivedCount = new AtomicLong();
+
+	/** Count of dropped datagrams */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** Ring is closed, no datagrams are published */
+	private volatile boolean closed = false;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity number of datagram buffers
+	 */
+	public DatagramRing(final int capacity) {
+		super();
+		if (capacity < 1) throw new IllegalArgumentException("capacity: " + capacity);
+		this.free = new ArrayBlockingQueue<Slot>(capacity);
+		this.received = new ArrayBlockingQueue<Slot>(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.free.add(new Slot());
+		}
+	}
+
+	/**
+	 * Acquire free slot to receive datagram.
+	 * 
+	 * @param policy action when ring is full
+	 * @return free slot or null if ring is full and policy is {@link OverflowPolicy#DROP}
+	 * @throws InterruptedException if interrupted while waiting for free slot
+	 */
+	public Slot acquire(final OverflowPolicy policy) throws InterruptedException {
+		if (policy == null) throw new IllegalArgumentException("null policy");
+		if (policy == OverflowPolicy.BLOCK) return this.free.take();
+		return this.free.poll();
+	}
+
+	/**
+	 * Publish slot with received datagram to decode threads.
+	 * 
+	 * @param slot slot with received datagram
+	 */
+	public void publish(final Slot slot) {
+		if (slot == null) throw new IllegalArgumentException("null slot");
+		this.receivedCount.incrementAndGet();
+		// can't overflow: count of slots is equal to queue capacity
+		this.received.add(slot);
+	}
+
+	/**
+	 * Take received datagram. Wait until datagram is available or ring is closed.
+	 * 
+	 * @return slot with received datagram or null if ring is closed and all datagrams are taken
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Slot take() throws InterruptedException {
+		while (true) {
+			final Slot slot = this.received.poll(DatagramRing.CLOSE_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			if (slot != null || this.closed && this.received.isEmpty()) return slot;
+		}
+	}
+
+	/**
+	 * Close ring. Must be called after receive threads are stopped, so datagrams are not published anymore.
+	 */
+	public void close() {
+		this.closed = true;
+	}
+
+	/**
+	 * Check if ring is closed
+	 * 
+	 * @return true if closed
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	/**
+	 * Release slot to receive next datagrams.
+	 * 
+	 * @param slot slot, which was acquired or taken
+	 */
+	public void release(final Slot slot) {
+		if (slot == null) throw new IllegalArgumentException("null slot");
+		slot.address = null;
+		slot.receiveTime = 0;
+		slot.buffer.clear();
+		this.free.add(slot);
+	}
+
+	/**
+	 * Count dropped datagram
+	 */
+	public void drop() {
+		this.droppedCount.incrementAndGet();
+	}
+
+	/**
+	 * Return count of datagrams, waiting for decode
+	 * 
+	 * @return number of published datagrams in the ring
+	 */
+	public int getDepth() {
+		return this.received.size();
+	}
+
+	/**
+	 * Return count of received datagrams
+	 * 
+	 * @return number of datagrams, published to the ring
+	 */
+	public long getReceivedCount() {
+		return this.receivedCount.get();
+	}
+
+	/**
+	 * Return count of dropped datagrams
+	 * 
+	 * @return number of datagrams, dropped because ring was full
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Slot of the ring
+	 */
+	public static final class Slot {
+		/** Datagram buffer */
+		private final ByteBuffer buffer = ByteBuffer.allocate(DatagramRing.MAX_DATAGRAM_SIZE);
+
+		/** Source address of datagram */
+		private SocketAddress address = null;
+
+		/** Time of receiving in nanoseconds */
+		private long receiveTime = 0;
+
+		/** Constructor */
+		Slot() {
+			super();
+		}
+
+		/**
+		 * Return buffer
+		 * 
+		 * @return datagram buffer
+		 */
+		public ByteBuffer getBuffer() {
+			return this.buffer;
+		}
+
+		/**
+		 * Set source address
+		 * 
+		 * @param addr source address of received datagram
+		 */
+		public void setAddress(final SocketAddress addr) {
+			this.address = addr;
+		}
+
+		/**
+		 * Return source address
+		 * 
+		 * @return source address of received datagram
+		 */
+		public SocketAddress getAddress() {
+			return this.address;
+		}
+
+		/**
+		 * Set receive time
+		 * 
+		 * @param nanos time of receiving of datagram by {@link System#nanoTime()}
+		 */
+		public void setReceiveTime(final long nanos) {
+			this.receiveTime = nanos;
+		}
+
+		/**
+		 * Return receive time
+		 * 
+		 * @return time of receiving of datagram by {@link System#nanoTime()}
+		 */
+		public long getReceiveTime() {
+			return this.receiveTime;
+		}
+	}
+}
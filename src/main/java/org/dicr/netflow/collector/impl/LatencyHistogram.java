@@ -0,0 +1,141 @@
+/**
+ * LatencyHistogram.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Latency histogram.
+ * <P>
+ * Histogram with log-linear buckets: each power of 2 is divided to {@link #SUB_BUCKETS} buckets, so relative error of
+ * percentiles is less than 1/{@link #SUB_BUCKETS} for any value. Buckets are preallocated, and count and maximum are
+ * striped by {@link LongAdder} and {@link LongAccumulator}, so {@link #record(long) recording} from many threads is
+ * lock-free, does not contend on shared variables and does not allocate memory.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public final class LatencyHistogram {
+	/** Bits of sub-bucket */
+	private static final int SUB_BITS = 3;
+
+	/** Count of buckets in each power of 2 */
+	public static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BITS;
+
+	/** Count of buckets for all positive long values */
+	private static final int BUCKETS = (64 - LatencyHistogram.SUB_BITS) * LatencyHistogram.SUB_BUCKETS;
+
+	/** Maximum of two values */
+	private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+		@Override
+		public long applyAsLong(final long left, final long right) {
+			return Math.max(left, right);
+		}
+	};
+
+	/** Counts of values in buckets */
+	private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+
+	/** Count of values */
+	private final LongAdder count = new LongAdder();
+
+	/** Maximum value */
+	private final LongAccumulator max = new LongAccumulator(LatencyHistogram.MAX, 0);
+
+	/**
+	 * Constructor
+	 */
+	public LatencyHistogram() {
+		super();
+	}
+
+	/**
+	 * Return index of bucket
+	 *
+	 * @param value not negative value
+	 * @return index of bucket of value
+	 */
+	private static int index(final long value) {
+		if (value < LatencyHistogram.SUB_BUCKETS) return (int) value;
+		final int exp = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> exp - LatencyHistogram.SUB_BITS) & LatencyHistogram.SUB_BUCKETS - 1;
+		return (exp - LatencyHistogram.SUB_BITS + 1) * LatencyHistogram.SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Return upper bound of bucket
+	 *
+	 * @param index index of bucket
+	 * @return maximum value in bucket
+	 */
+	private static long upperBound(final int index) {
+		if (index < LatencyHistogram.SUB_BUCKETS) return index;
+		final int exp = index / LatencyHistogram.SUB_BUCKETS + LatencyHistogram.SUB_BITS - 1;
+		final long sub = index % LatencyHistogram.SUB_BUCKETS;
+		final int shift = exp - LatencyHistogram.SUB_BITS;
+		// does not overflow for the last bucket
+		return (LatencyHistogram.SUB_BUCKETS + sub << shift) + (1L << shift) - 1;
+	}
+
+	/**
+	 * Record value
+	 *
+	 * @param value latency, negative values are recorded as 0
+	 */
+	public void record(final long value) {
+		final long v = value > 0 ? value : 0;
+		this.buckets.incrementAndGet(LatencyHistogram.index(v));
+		this.count.increment();
+		this.max.accumulate(v);
+	}
+
+	/**
+	 * Return count of values
+	 *
+	 * @return count of recorded values
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Return maximum value
+	 *
+	 * @return maximum recorded value
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Return percentile
+	 *
+	 * @param percent percent of values, from 0 to 100
+	 * @return upper bound of value, which is greater or equal than specified percent of recorded values, or 0 if no
+	 *         values recorded
+	 */
+	public long getPercentile(final double percent) {
+		if (percent < 0 || percent > 100) throw new IllegalArgumentException("percent: " + percent);
+		final long total = this.count.sum();
+		if (total < 1) return 0;
+		final long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+		long sum = 0;
+		for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+			sum += this.buckets.get(i);
+			if (sum >= rank) return Math.min(LatencyHistogram.upperBound(i), this.max.get());
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "count=" + this.getCount() + ", p50=" + this.getPercentile(50) + ", p90=" + this.getPercentile(90)
+		        + ", p99=" + this.getPercentile(99) + ", p99.9=" + this.getPercentile(99.9) + ", max=" + this.getMax();
+	}
+}
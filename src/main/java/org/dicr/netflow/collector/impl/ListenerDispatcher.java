@@ -0,0 +1,303 @@
+/**
+ * ListenerDispatcher.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.apache.log4j.*;
+import org.dicr.netflow.packet.*;
+
+/**
+ * Asynchronous dispatcher of packets to listener.
+ * <P>
+ * Dispatcher has own bounded ring and thread, which deliver queued packets to {@link PacketListener}, so slow listener
+ * does not block receive threads and other listeners. Ring is preallocated: packets and times of dispatch are stored
+ * in parallel arrays, so dispatch does not allocate memory. When ring is full, packets for this listener are dropped.
+ * Dispatcher count lag (depth of ring), dropped packets and record {@link LatencyHistogram histogram} of latency of
+ * delivery from {@link #dispatch(NetFlowPacket) dispatch} to the end of
+ * {@link PacketListener#processPacket(NetFlowPacket) processing}. Exceptions of listener are logged not more often than
+ * {@link AbstractNetFlowCollector#ERROR_LOG_INTERVAL}.
+ * </P>
+ * <P>
+ * Thread is {@link #start() started} and {@link #stop() stopped} with collector. On stop thread deliver all queued
+ * packets before exit, and packets, dispatched after stop, are dropped.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class ListenerDispatcher {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(ListenerDispatcher.class);
+
+	/** Listener */
+	private final PacketListener listener;
+
+	/** Ring of queued packets, also lock of ring */
+	private final NetFlowPacket[] packets;
+
+	/** Times of dispatch of queued packets in nanoseconds */
+	private final long[] times;
+
+	/** Index of next packet to deliver */
+	private int takeIndex = 0;
+
+	/** Count of queued packets */
+	private int count = 0;
+
+	/** Dispatcher is stopped: queued packets are delivered, new packets are dropped */
+	private boolean stopped = false;
+
+	/** Thread of listener or null if not started */
+	private DispatchThread thread = null;
+
+	/** Count of queued packets */
+	private final AtomicLong dispatchedCount = new AtomicLong();
+
+	/** Count of dropped packets */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** Count of processed packets, changed only by dispatch thread */
+	private volatile long processedCount = 0;
+
+	/** Count of exceptions, thrown by listener, changed only by dispatch thread */
+	private volatile long errorsCount = 0;
+
+	/** Latency in nanoseconds */
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	/** Time of last logged error, changed only by dispatch thread */
+	private long errorLogTime = 0;
+
+	/** Count of errors, which was not logged, changed only by dispatch thread */
+	private long suppressedErrors = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param aListener listener to dispatch packets to
+	 * @param capacity capacity of ring
+	 */
+	public ListenerDispatcher(final PacketListener aListener, final int capacity) {
+		super();
+		if (aListener == null) throw new IllegalArgumentException("null listener");
+		if (capacity < 1) throw new IllegalArgumentException("capacity: " + capacity);
+		this.listener = aListener;
+		this.packets = new NetFlowPacket[capacity];
+		this.times = new long[capacity];
+	}
+
+	/**
+	 * Return listener
+	 *
+	 * @return listener of dispatcher
+	 */
+	public PacketListener getListener() {
+		return this.listener;
+	}
+
+	/**
+	 * Start dispatch thread. Packets, queued before start, are delivered.
+	 */
+	public void start() {
+		synchronized (this.packets) {
+			if (this.thread != null) return;
+			this.stopped = false;
+			this.thread = new DispatchThread();
+			this.thread.start();
+		}
+	}
+
+	/**
+	 * Stop dispatch thread. Wait until thread deliver queued packets. Packets, queued to not started dispatcher, are
+	 * discarded.
+	 */
+	public void stop() {
+		final DispatchThread dispatchThread;
+		synchronized (this.packets) {
+			this.stopped = true;
+			dispatchThread = this.thread;
+			this.thread = null;
+			if (dispatchThread == null) {
+				this.droppedCount.addAndGet(this.count);
+				Arrays.fill(this.packets, null);
+				this.count = 0;
+			}
+			this.packets.notifyAll();
+		}
+		if (dispatchThread == null || dispatchThread == Thread.currentThread()) return;
+		try {
+			dispatchThread.join();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Queue packet to listener. Does not wait: if ring is full or dispatcher is stopped, packet is dropped.
+	 *
+	 * @param packet packet to dispatch
+	 * @return true if queued, false if dropped
+	 */
+	public boolean dispatch(final NetFlowPacket packet) {
+		if (packet == null) throw new IllegalArgumentException("null packet");
+		final long time = System.nanoTime();
+		synchronized (this.packets) {
+			if (this.stopped || this.count == this.packets.length) {
+				this.droppedCount.incrementAndGet();
+				return false;
+			}
+			int index = this.takeIndex + this.count;
+			if (index >= this.packets.length) index -= this.packets.length;
+			this.packets[index] = packet;
+			this.times[index] = time;
+			// thread wait only on empty ring
+			if (this.count++ == 0) this.packets.notify();
+		}
+		this.dispatchedCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Return lag of listener
+	 *
+	 * @return count of packets in ring
+	 */
+	public int getQueueDepth() {
+		synchronized (this.packets) {
+			return this.count;
+		}
+	}
+
+	/**
+	 * Return count of queued packets
+	 *
+	 * @return count of packets, queued to listener
+	 */
+	public long getDispatchedCount() {
+		return this.dispatchedCount.get();
+	}
+
+	/**
+	 * Return count of processed packets
+	 *
+	 * @return count of packets, processed by listener
+	 */
+	public long getProcessedCount() {
+		return this.processedCount;
+	}
+
+	/**
+	 * Return count of dropped packets
+	 *
+	 * @return count of packets, dropped because ring was full or dispatcher was stopped
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Return count of errors
+	 *
+	 * @return count of exceptions, thrown by listener
+	 */
+	public long getErrorsCount() {
+		return this.errorsCount;
+	}
+
+	/**
+	 * Return latency histogram
+	 *
+	 * @return time from dispatch to the end of processing in nanoseconds
+	 */
+	public LatencyHistogram getLatency() {
+		return this.latency;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.listener + ": depth=" + this.getQueueDepth() + ", dispatched=" + this.getDispatchedCount()
+		        + ", processed=" + this.getProcessedCount() + ", dropped=" + this.getDroppedCount() + ", errors="
+		        + this.getErrorsCount() + ", latency p50/p99/max=" + this.latency.getPercentile(50) / 1000 + "/"
+		        + this.latency.getPercentile(99) / 1000 + "/" + this.latency.getMax() / 1000 + " us";
+	}
+
+	/**
+	 * Dispatch thread. Deliver queued packets to listener until dispatcher is stopped and ring is empty.
+	 */
+	private final class DispatchThread extends Thread {
+		/**
+		 * Constructor
+		 */
+		DispatchThread() {
+			super();
+			this.setName("NetFlow dispatcher of " + ListenerDispatcher.this.listener);
+			this.setDaemon(false);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			ListenerDispatcher.log.debug("started " + this.getName());
+			final ListenerDispatcher dispatcher = ListenerDispatcher.this;
+			final NetFlowPacket[] ring = dispatcher.packets;
+			while (true) {
+				final NetFlowPacket packet;
+				final long time;
+				synchronized (ring) {
+					try {
+						while (dispatcher.count == 0 && !dispatcher.stopped) {
+							ring.wait();
+						}
+					} catch (final InterruptedException ex) {
+						break;
+					}
+					// stopped and drained
+					if (dispatcher.count == 0) break;
+					packet = ring[dispatcher.takeIndex];
+					time = dispatcher.times[dispatcher.takeIndex];
+					ring[dispatcher.takeIndex] = null;
+					if (++dispatcher.takeIndex == ring.length) dispatcher.takeIndex = 0;
+					dispatcher.count--;
+				}
+				try {
+					dispatcher.listener.processPacket(packet);
+				} catch (final Exception ex) {
+					dispatcher.errorsCount++;
+					this.error(ex);
+				}
+				dispatcher.latency.record(System.nanoTime() - time);
+				dispatcher.processedCount++;
+			}
+			ListenerDispatcher.log.debug("stopped " + this.getName());
+		}
+
+		/**
+		 * Log exception of listener, if errors was not logged during
+		 * {@link AbstractNetFlowCollector#ERROR_LOG_INTERVAL}.
+		 *
+		 * @param ex exception, thrown by listener
+		 */
+		private void error(final Exception ex) {
+			final ListenerDispatcher dispatcher = ListenerDispatcher.this;
+			final long now = System.currentTimeMillis();
+			if (now - dispatcher.errorLogTime < AbstractNetFlowCollector.ERROR_LOG_INTERVAL) {
+				dispatcher.suppressedErrors++;
+				return;
+			}
+			dispatcher.errorLogTime = now;
+			final long suppressed = dispatcher.suppressedErrors;
+			dispatcher.suppressedErrors = 0;
+			ListenerDispatcher.log.error("error invoking listener " + dispatcher.listener + ": " + ex
+			        + (suppressed > 0 ? " (" + suppressed + " errors not logged)" : ""));
+			if (ListenerDispatcher.log.isDebugEnabled()) ListenerDispatcher.log.debug("listener error", ex);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * OverflowPolicy.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+/**
+ * Overflow Policy.
+ * <P>
+ * Action of receive thread, when {@link DatagramRing ring} of received datagrams is full.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public enum OverflowPolicy {
+	/**
+	 * Receive and drop datagram, so socket buffer does not overflow.
+	 */
+	DROP,
+
+	/**
+	 * Wait for free buffer in the ring, leaving datagrams in socket buffer.
+	 */
+	BLOCK
+}
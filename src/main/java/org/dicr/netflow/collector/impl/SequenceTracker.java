@@ -0,0 +1,395 @@
+/**
+ * SequenceTracker.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.net.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.impl.v6.*;
+import org.dicr.netflow.impl.v7.*;
+import org.dicr.netflow.impl.v8.*;
+
+/**
+ * Tracker of flow sequences.
+ * <P>
+ * Packets of NetFlow v5, v6, v7 and v8 contain sequence counter of total flows, exported by engine of router. Tracker
+ * keep next expected sequence for each source: address of router, version, engine type, engine id and aggregation
+ * scheme of v8, which has own sequence, and count flows, lost between router and decoding (in network, in socket
+ * buffer or {@link DatagramRing#drop() dropped} by pipeline), duplicated and reordered packets. Sequence is 32-bit
+ * counter, so comparison is done modulo 2<sup>32</sup>.
+ * </P>
+ * <P>
+ * When packet arrive after expected sequence, missing flows are counted as lost. If missing packet arrive later, it is
+ * counted as reordered and its flows are substracted from lost. Packet, which sequence was already received, is
+ * counted as duplicate. When router is restarted (uptime goes back) or sequence goes back too far, tracker
+ * resynchronize with source and count reset. Uptime is 32-bit counter too, so it is compared by signed 32-bit
+ * distance, as {@link org.dicr.netflow.packet.RouterClock clock} does, and wrap of uptime is not a restart.
+ * </P>
+ * <P>
+ * Routers are kept in {@link SourceTable bounded table}, so sources, which are idle longer than idle time, are removed,
+ * and packets of new sources are not tracked, when table is full.
+ * </P>
+ * <P>
+ * Header is read directly from datagram buffer, which must be already validated by decoding, and tracker does not
+ * allocate memory for known sources, so it can be used by all receive threads.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class SequenceTracker {
+	/** Minimum size of sequenced header */
+	private static final int HEADER_SIZE = 24;
+
+	/** Offset of flows count in header */
+	private static final int COUNT_OFFSET = 2;
+
+	/** Offset of system uptime in header */
+	private static final int UPTIME_OFFSET = 4;
+
+	/** Offset of flow sequence in header */
+	private static final int SEQUENCE_OFFSET = 16;
+
+	/** Offset of engine type in v5, v6 and v8 header, followed by engine id */
+	private static final int ENGINE_OFFSET = 20;
+
+	/** Offset of aggregation scheme in v8 header */
+	private static final int AGGREGATION_OFFSET = 22;
+
+	/** Count of flows, which sequence can go back on reordering, before resynchronization */
+	public static final int REORDER_WINDOW = 1 << 16;
+
+	/** Uptime in milliseconds, which can go back on reordering, before router is considered restarted */
+	public static final long UPTIME_TOLERANCE = 60000;
+
+	/** Count of last received packets to detect duplicates */
+	private static final int HISTORY_SIZE = 64;
+
+	/** Sources by router address */
+	private final SourceTable<Source[]> sources;
+
+	/** Count of tracked packets */
+	private final AtomicLong packetsCount = new AtomicLong();
+
+	/** Count of lost flows */
+	private final AtomicLong lostCount = new AtomicLong();
+
+	/** Count of duplicated packets */
+	private final AtomicLong duplicatesCount = new AtomicLong();
+
+	/** Count of reordered packets */
+	private final AtomicLong reorderedCount = new AtomicLong();
+
+	/** Count of resynchronizations */
+	private final AtomicLong resetsCount = new AtomicLong();
+
+	/**
+	 * Constructor with default {@link SourceTable#MAX_SOURCES maximum count} of routers and
+	 * {@link SourceTable#IDLE_TIME idle time}.
+	 */
+	public SequenceTracker() {
+		this(SourceTable.MAX_SOURCES, SourceTable.IDLE_TIME);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxSources maximum count of tracked routers
+	 * @param idleTime time of inactivity in milliseconds, after which router is not tracked
+	 */
+	public SequenceTracker(final int maxSources, final long idleTime) {
+		super();
+		this.sources = new SourceTable<Source[]>(maxSources, idleTime);
+	}
+
+	/**
+	 * Track sequence of decoded datagram. Position of buffer is not changed.
+	 *
+	 * @param buf buffer with datagram
+	 * @param addr source address of datagram
+	 * @return true if datagram contains sequence and was tracked, false if sequence is not supported or table of
+	 *         sources is full
+	 */
+	public boolean track(final ByteBuffer buf, final SocketAddress addr) {
+		if (buf == null) throw new IllegalArgumentException("null buffer");
+		if (!(addr instanceof InetSocketAddress)) return false;
+		final int pos = buf.position();
+		if (buf.remaining() < SequenceTracker.HEADER_SIZE) return false;
+		final int version = buf.getShort(pos) & 0xFFFF;
+		long engine = (long) version << 32;
+		switch (version) {
+			case FlowTypeV8.VERSION:
+				engine |= buf.get(pos + SequenceTracker.AGGREGATION_OFFSET) & 0xFF;
+				// v8 header also has engine type and id
+			case FlowTypeV5.VERSION:
+			case FlowTypeV6.VERSION:
+				engine |= (buf.getShort(pos + SequenceTracker.ENGINE_OFFSET) & 0xFFFF) << 8;
+				break;
+			case FlowTypeV7.VERSION:
+				break;
+			default:
+				return false;
+		}
+		final Source source = this.getSource(((InetSocketAddress) addr).getAddress(), engine);
+		if (source == null) return false;
+		source.update(buf.getInt(pos + SequenceTracker.SEQUENCE_OFFSET) & 0xFFFFFFFFL, buf.getShort(pos
+		        + SequenceTracker.COUNT_OFFSET) & 0xFFFF, buf.getInt(pos + SequenceTracker.UPTIME_OFFSET) & 0xFFFFFFFFL);
+		this.packetsCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Return source. Create new source if not exists.
+	 *
+	 * @param address router address
+	 * @param engine version, engine type, engine id and aggregation
+	 * @return source or null if router is new and table of sources is full
+	 */
+	private Source getSource(final InetAddress address, final long engine) {
+		Source[] array = this.sources.get(address);
+		if (array != null) {
+			for (final Source source : array) {
+				if (source.engine == engine) return source;
+			}
+		}
+		synchronized (this.sources) {
+			array = this.sources.get(address);
+			if (array != null) {
+				for (final Source source : array) {
+					if (source.engine == engine) return source;
+				}
+			} else array = new Source[0];
+			final Source source = new Source(address, engine);
+			final Source[] newArray = Arrays.copyOf(array, array.length + 1);
+			newArray[array.length] = source;
+			return this.sources.put(address, newArray) != null ? source : null;
+		}
+	}
+
+	/**
+	 * Return count of tracked packets
+	 *
+	 * @return count of packets with sequence
+	 */
+	public long getPacketsCount() {
+		return this.packetsCount.get();
+	}
+
+	/**
+	 * Return count of lost flows
+	 *
+	 * @return count of flows, missing in sequences of all sources
+	 */
+	public long getLostCount() {
+		return this.lostCount.get();
+	}
+
+	/**
+	 * Return count of duplicates
+	 *
+	 * @return count of packets, received more than once
+	 */
+	public long getDuplicatesCount() {
+		return this.duplicatesCount.get();
+	}
+
+	/**
+	 * Return count of reordered packets
+	 *
+	 * @return count of packets, received after packets with greater sequence
+	 */
+	public long getReorderedCount() {
+		return this.reorderedCount.get();
+	}
+
+	/**
+	 * Return count of resynchronizations
+	 *
+	 * @return count of restarts of routers and sequences, which gone back out of reorder window
+	 */
+	public long getResetsCount() {
+		return this.resetsCount.get();
+	}
+
+	/**
+	 * Return count of rejected routers
+	 *
+	 * @return count of new routers, which was not tracked, because table of sources was full
+	 */
+	public long getRejectedCount() {
+		return this.sources.getRejectedCount();
+	}
+
+	/**
+	 * Return count of sources
+	 *
+	 * @return count of tracked router engines
+	 */
+	public int getSourcesCount() {
+		int count = 0;
+		for (final Source[] array : this.sources.values()) {
+			count += array.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Return statistics of sources
+	 *
+	 * @return address, engine, expected sequence and counters of each source
+	 */
+	public String[] getStatistics() {
+		final List<String> stats = new ArrayList<String>();
+		for (final Source[] array : this.sources.values()) {
+			for (final Source source : array) {
+				stats.add(source.toString());
+			}
+		}
+		return stats.toArray(new String[stats.size()]);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "sources=" + this.getSourcesCount() + ", packets=" + this.getPacketsCount() + ", lost="
+		        + this.getLostCount() + ", duplicates=" + this.getDuplicatesCount() + ", reordered="
+		        + this.getReorderedCount() + ", resets=" + this.getResetsCount() + ", rejected="
+		        + this.getRejectedCount();
+	}
+
+	/**
+	 * Sequence of router engine
+	 */
+	private final class Source {
+		/** Router address */
+		final InetAddress address;
+
+		/** Version (high 32 bits), engine type, engine id and aggregation of v8 (low byte) */
+		final long engine;
+
+		/** Next expected sequence, -1 before first packet */
+		private long expected = -1;
+
+		/** Uptime of last packet in order */
+		private long uptime = 0;
+
+		/** Sequences of last packets */
+		private final long[] history = new long[SequenceTracker.HISTORY_SIZE];
+
+		/** Position in history */
+		private int historyPos = 0;
+
+		/** Count of packets */
+		private long packets = 0;
+
+		/** Count of lost flows */
+		private long lost = 0;
+
+		/** Count of duplicates */
+		private long duplicates = 0;
+
+		/** Count of reordered packets */
+		private long reordered = 0;
+
+		/** Count of resynchronizations */
+		private long resets = 0;
+
+		/**
+		 * Constructor
+		 *
+		 * @param anAddress router address
+		 * @param anEngine version, engine type, engine id and aggregation
+		 */
+		Source(final InetAddress anAddress, final long anEngine) {
+			super();
+			this.address = anAddress;
+			this.engine = anEngine;
+			Arrays.fill(this.history, -1);
+		}
+
+		/**
+		 * Remember sequence of packet
+		 *
+		 * @param sequence sequence of packet
+		 */
+		private void remember(final long sequence) {
+			this.history[this.historyPos] = sequence;
+			this.historyPos = (this.historyPos + 1) % this.history.length;
+		}
+
+		/**
+		 * Check if packet was received
+		 *
+		 * @param sequence sequence of packet
+		 * @return true if sequence is in history
+		 */
+		private boolean isReceived(final long sequence) {
+			for (final long seq : this.history) {
+				if (seq == sequence) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Update sequence by received packet
+		 *
+		 * @param sequence flow sequence of packet
+		 * @param count count of flows in packet
+		 * @param sysUptime uptime of router
+		 */
+		synchronized void update(final long sequence, final int count, final long sysUptime) {
+			final SequenceTracker tracker = SequenceTracker.this;
+			this.packets++;
+			// distances from expected sequence and from uptime of last packet modulo 2^32
+			final int diff = (int) (sequence - this.expected);
+			final int uptimeDiff = (int) (sysUptime - this.uptime);
+			if (this.expected < 0 || uptimeDiff < -SequenceTracker.UPTIME_TOLERANCE
+			        || diff < -SequenceTracker.REORDER_WINDOW) {
+				if (this.expected >= 0) {
+					this.resets++;
+					tracker.resetsCount.incrementAndGet();
+					Arrays.fill(this.history, -1);
+				}
+			} else if (diff < 0) {
+				if (this.isReceived(sequence)) {
+					this.duplicates++;
+					tracker.duplicatesCount.incrementAndGet();
+				} else {
+					// late packet, which flows was counted as lost
+					this.reordered++;
+					tracker.reorderedCount.incrementAndGet();
+					final long recovered = Math.min(count, this.lost);
+					this.lost -= recovered;
+					tracker.lostCount.addAndGet(-recovered);
+					this.remember(sequence);
+				}
+				return;
+			} else if (diff > 0) {
+				this.lost += diff;
+				tracker.lostCount.addAndGet(diff);
+			}
+			this.remember(sequence);
+			this.expected = sequence + count & 0xFFFFFFFFL;
+			this.uptime = sysUptime;
+		}
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public synchronized String toString() {
+			return this.address.getHostAddress() + " v" + (this.engine >>> 32) + " engine "
+			        + (this.engine >>> 16 & 0xFF) + "/" + (this.engine >>> 8 & 0xFF)
+			        + ((this.engine >>> 32) == FlowTypeV8.VERSION ? " aggregation " + (this.engine & 0xFF) : "")
+			        + ": expected=" + this.expected
+			        + ", packets=" + this.packets + ", lost=" + this.lost + ", duplicates=" + this.duplicates
+			        + ", reordered=" + this.reordered + ", resets=" + this.resets;
+		}
+	}
+}
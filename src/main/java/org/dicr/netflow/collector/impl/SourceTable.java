@@ -0,0 +1,207 @@
+/**
+ * SourceTable.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Bounded table of state of routers by address.
+ * <P>
+ * Source address of UDP datagram can be spoofed, so state, which collector keep for each router, must not grow without
+ * bound. Table remember time of last access of each source and remove sources, which are idle longer than
+ * {@link #getIdleTime() idle time}, at most once per {@link #SWEEP_INTERVAL}, when new source is added. When table
+ * contains {@link #getMaxSources() maximum} count of active sources, new sources are rejected and counted, so flood of
+ * spoofed addresses does not evict state of real routers.
+ * </P>
+ * <P>
+ * Lookup of known source does not allocate memory. Table is thread-safe, but callers, which replace values, must
+ * synchronize own read-modify-write.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @param <V> type of source state
+ */
+final class SourceTable<V> {
+	/** Default maximum count of sources */
+	public static final int MAX_SOURCES = 10000;
+
+	/** Default time of inactivity, after which source is removed, milliseconds */
+	public static final long IDLE_TIME = 3600000;
+
+	/** Minimum interval between sweeps of idle sources, milliseconds */
+	public static final long SWEEP_INTERVAL = 1000;
+
+	/** Entries by address */
+	private final ConcurrentMap<InetAddress, Entry<V>> entries = new ConcurrentHashMap<InetAddress, Entry<V>>();
+
+	/** Maximum count of sources */
+	private final int maxSources;
+
+	/** Time of inactivity, after which source is removed */
+	private final long idleTime;
+
+	/** Time of last sweep */
+	private final AtomicLong sweepTime = new AtomicLong();
+
+	/** Count of rejected sources */
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param max maximum count of sources
+	 * @param idle time of inactivity in milliseconds, after which source is removed
+	 */
+	SourceTable(final int max, final long idle) {
+		super();
+		if (max < 1) throw new IllegalArgumentException("max sources: " + max);
+		if (idle < 1) throw new IllegalArgumentException("idle time: " + idle);
+		this.maxSources = max;
+		this.idleTime = idle;
+	}
+
+	/**
+	 * Return maximum count of sources
+	 *
+	 * @return maximum count of sources in table
+	 */
+	public int getMaxSources() {
+		return this.maxSources;
+	}
+
+	/**
+	 * Return idle time
+	 *
+	 * @return time of inactivity in milliseconds, after which source is removed
+	 */
+	public long getIdleTime() {
+		return this.idleTime;
+	}
+
+	/**
+	 * Return state of source and update time of access
+	 *
+	 * @param address address of source
+	 * @return state or null if source is unknown
+	 */
+	public V get(final InetAddress address) {
+		final Entry<V> entry = this.entries.get(address);
+		if (entry == null) return null;
+		final long now = System.currentTimeMillis();
+		if (entry.time != now) entry.time = now;
+		return entry.value;
+	}
+
+	/**
+	 * Set state of source. New source is added if table is not full of active sources.
+	 *
+	 * @param address address of source
+	 * @param value state of source
+	 * @return value or null if source is new and rejected
+	 */
+	public V put(final InetAddress address, final V value) {
+		if (address == null) throw new IllegalArgumentException("null address");
+		if (value == null) throw new IllegalArgumentException("null value");
+		final long now = System.currentTimeMillis();
+		final Entry<V> entry = this.entries.get(address);
+		if (entry != null) {
+			entry.time = now;
+			entry.value = value;
+			return value;
+		}
+		this.sweep(now);
+		if (this.entries.size() >= this.maxSources) {
+			this.rejectedCount.incrementAndGet();
+			return null;
+		}
+		this.entries.put(address, new Entry<V>(value, now));
+		return value;
+	}
+
+	/**
+	 * Remove idle sources, if sweep interval is passed
+	 *
+	 * @param now current time
+	 */
+	private void sweep(final long now) {
+		final long last = this.sweepTime.get();
+		if (now - last < SourceTable.SWEEP_INTERVAL || !this.sweepTime.compareAndSet(last, now)) return;
+		for (final Iterator<Entry<V>> it = this.entries.values().iterator(); it.hasNext();) {
+			if (now - it.next().time > this.idleTime) it.remove();
+		}
+	}
+
+	/**
+	 * Return states of sources
+	 *
+	 * @return states of all sources
+	 */
+	public List<V> values() {
+		final List<V> values = new ArrayList<V>();
+		for (final Entry<V> entry : this.entries.values()) {
+			values.add(entry.value);
+		}
+		return values;
+	}
+
+	/**
+	 * Return states of sources by address
+	 *
+	 * @return copy of table
+	 */
+	public Map<InetAddress, V> toMap() {
+		final Map<InetAddress, V> map = new HashMap<InetAddress, V>();
+		for (final Map.Entry<InetAddress, Entry<V>> entry : this.entries.entrySet()) {
+			map.put(entry.getKey(), entry.getValue().value);
+		}
+		return map;
+	}
+
+	/**
+	 * Return count of sources
+	 *
+	 * @return count of sources in table
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Return count of rejected sources
+	 *
+	 * @return count of new sources, which was not added, because table was full
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	/**
+	 * State of source with time of last access
+	 *
+	 * @param <V> type of state
+	 */
+	private static final class Entry<V> {
+		/** State */
+		volatile V value;
+
+		/** Time of last access */
+		volatile long time;
+
+		/**
+		 * Constructor
+		 *
+		 * @param aValue state
+		 * @param aTime time of access
+		 */
+		Entry(final V aValue, final long aTime) {
+			super();
+			this.value = aValue;
+			this.time = aTime;
+		}
+	}
+}
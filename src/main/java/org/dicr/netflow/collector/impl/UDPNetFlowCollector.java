@@ -8,6 +8,7 @@ import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import javax.management.*;
 
@@ -21,6 +22,38 @@ import org.dicr.netflow.packet.*;
  * This implementation provide separate thread to receive and decode packets from specified UDP port. For network
  * operations it use NIO API.
  * </P>
+ * <P>
+ * When {@link #setWorkersCount(int) workers count} is more than 1, collector open one datagram channel and start
+ * specified number of worker threads, which concurrently receive, decode and fire packets from shared channel, so
+ * ingest rate scale with count of processors.
+ * </P>
+ * <P>
+ * When {@link #setPipelineCapacity(int) pipeline capacity} is configured, receive threads only receive datagrams into
+ * {@link DatagramRing ring} of preallocated buffers, and separate {@link #setDecodersCount(int) decode threads} decode
+ * and fire packets to listeners, so slow listeners does not block receiving. When ring is full, datagrams are dropped
+ * or receiving is blocked, according to {@link #setOverflowPolicy(OverflowPolicy) overflow policy}.
+ * </P>
+ * <P>
+ * Collector track {@link SequenceTracker flow sequences} of received packets per router engine and count lost flows,
+ * duplicated and reordered packets, so losses in network and socket of collector can be monitored.
+ * </P>
+ * <P>
+ * Address of exporter and monotonic time of receiving are set to fired {@link NetFlowPacket packets} and
+ * {@link FlowBatch batches}. Time is taken right after datagram is received from socket, so in pipeline mode it include
+ * time of waiting in ring.
+ * </P>
+ * <P>
+ * Collector keep {@link RouterClock clock} of each router, which is updated by headers of packets. Clock is set to
+ * fired packets, and boot times of {@link FlowBatch batches} are calculated by clock, so uptimes of flows are converted
+ * to time correctly, when uptime of router wrap. Clocks are kept in {@link SourceTable bounded table} with the same
+ * limits as sources of {@link SequenceTracker sequence tracker}, so clocks of idle routers are removed and new routers
+ * have no clock, when table is full, and uptimes of their flows are converted by headers of packets.
+ * </P>
+ * <P>
+ * {@link CollectorMetrics Metrics} of received datagrams, decoded flows of each version, decode errors by cause and
+ * latency are published by MBean. Decode errors are logged not more often than {@link #ERROR_LOG_INTERVAL}, so flood of
+ * malformed packets does not overload log.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 060712
@@ -32,12 +65,78 @@ public class UDPNetFlowCollector extends AbstractNetFlowCollector implements MBe
 	/** Default object name for MBean */
 	public static final String DEFAULT_OBJECT_NAME = "org.dicr:service=traffic;type=source;name=netflow";
 
+	/** Size of time fields in header of all versions */
+	private static final int CLOCK_HEADER_SIZE = 16;
+
+	/** Offset of SysUptime in header */
+	private static final int UPTIME_OFFSET = 4;
+
+	/** Offset of UnixSecs in header */
+	private static final int SECS_OFFSET = 8;
+
+	/** Offset of UnixNSecs in header */
+	private static final int NSECS_OFFSET = 12;
+
 	/** Port to listen */
 	private int port = -1;
 
+	/** Size of socket receive buffer, 0 for system default */
+	private int receiveBufferSize = 0;
+
+	/** Count of receive threads */
+	private int workersCount = 1;
+
 	/** Client IO thread */
 	private ClientThread clientThread = null;
 
+	/** Channel, shared by workers */
+	private DatagramChannel workersChannel = null;
+
+	/** Receive worker threads */
+	private final List<WorkerThread> workers = new ArrayList<WorkerThread>();
+
+	/** Capacity of pipeline ring, 0 to decode packets in receive threads */
+	private int pipelineCapacity = 0;
+
+	/** Count of decode threads in pipeline mode */
+	private int decodersCount = 1;
+
+	/** Action on pipeline overflow */
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+	/** Pipeline ring of received datagrams */
+	private volatile DatagramRing ring = null;
+
+	/** Decode threads of pipeline */
+	private final List<DecoderThread> decoders = new ArrayList<DecoderThread>();
+
+	/** Lock of start and stop, held while stop wait for threads, so start does not run during stop */
+	private final Object lifecycleLock = new Object();
+
+	/** Tracker of flow sequences */
+	private volatile SequenceTracker sequences = new SequenceTracker();
+
+	/** Metrics of collector */
+	private volatile CollectorMetrics metrics = new CollectorMetrics();
+
+	/** Time of last logged decode error */
+	private final AtomicLong errorLogTime = new AtomicLong();
+
+	/** Count of decode errors, which was not logged */
+	private final AtomicLong suppressedErrors = new AtomicLong();
+
+	/** Clocks of routers by address */
+	private final SourceTable<RouterClock> clocks = new SourceTable<RouterClock>(SourceTable.MAX_SOURCES,
+	        SourceTable.IDLE_TIME);
+
+	/** Batches of decoding threads */
+	private final ThreadLocal<FlowBatch> batches = new ThreadLocal<FlowBatch>() {
+		@Override
+		protected FlowBatch initialValue() {
+			return new FlowBatch();
+		}
+	};
+
 	/**
 	 * Constructor
 	 */
@@ -77,12 +176,288 @@ public class UDPNetFlowCollector extends AbstractNetFlowCollector implements MBe
 		return this.port;
 	}
 
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#setReceiveBufferSize(int)
+	 */
+	public void setReceiveBufferSize(final int size) {
+		if (size < 0) throw new IllegalArgumentException("receive buffer size: " + size);
+		synchronized (this) {
+			this.receiveBufferSize = size;
+		}
+		UDPNetFlowCollector.log.debug("configured receive buffer size: " + size);
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getReceiveBufferSize()
+	 */
+	public int getReceiveBufferSize() {
+		synchronized (this) {
+			return this.receiveBufferSize;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#setWorkersCount(int)
+	 */
+	public void setWorkersCount(final int count) {
+		if (count < 1) throw new IllegalArgumentException("workers count: " + count);
+		synchronized (this) {
+			this.workersCount = count;
+		}
+		UDPNetFlowCollector.log.debug("configured workers count: " + count);
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getWorkersCount()
+	 */
+	public int getWorkersCount() {
+		synchronized (this) {
+			return this.workersCount;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#setPipelineCapacity(int)
+	 */
+	public void setPipelineCapacity(final int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("pipeline capacity: " + capacity);
+		synchronized (this) {
+			this.pipelineCapacity = capacity;
+		}
+		UDPNetFlowCollector.log.debug("configured pipeline capacity: " + capacity);
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getPipelineCapacity()
+	 */
+	public int getPipelineCapacity() {
+		synchronized (this) {
+			return this.pipelineCapacity;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#setDecodersCount(int)
+	 */
+	public void setDecodersCount(final int count) {
+		if (count < 1) throw new IllegalArgumentException("decoders count: " + count);
+		synchronized (this) {
+			this.decodersCount = count;
+		}
+		UDPNetFlowCollector.log.debug("configured decoders count: " + count);
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getDecodersCount()
+	 */
+	public int getDecodersCount() {
+		synchronized (this) {
+			return this.decodersCount;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#setOverflowPolicy(org.dicr.netflow.collector.impl.OverflowPolicy)
+	 */
+	public void setOverflowPolicy(final OverflowPolicy policy) {
+		if (policy == null) throw new IllegalArgumentException("null policy");
+		this.overflowPolicy = policy;
+		UDPNetFlowCollector.log.debug("configured overflow policy: " + policy);
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getOverflowPolicy()
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getQueueDepth()
+	 */
+	public int getQueueDepth() {
+		final DatagramRing pipeline = this.ring;
+		return pipeline != null ? pipeline.getDepth() : 0;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getQueuedCount()
+	 */
+	public long getQueuedCount() {
+		final DatagramRing pipeline = this.ring;
+		return pipeline != null ? pipeline.getReceivedCount() : 0;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getDroppedCount()
+	 */
+	public long getDroppedCount() {
+		final DatagramRing pipeline = this.ring;
+		return pipeline != null ? pipeline.getDroppedCount() : 0;
+	}
+
+	/**
+	 * Return tracker of flow sequences
+	 * 
+	 * @return sequence tracker since last start
+	 */
+	public SequenceTracker getSequenceTracker() {
+		return this.sequences;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getLostFlowsCount()
+	 */
+	public long getLostFlowsCount() {
+		return this.sequences.getLostCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getDuplicatePacketsCount()
+	 */
+	public long getDuplicatePacketsCount() {
+		return this.sequences.getDuplicatesCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getReorderedPacketsCount()
+	 */
+	public long getReorderedPacketsCount() {
+		return this.sequences.getReorderedCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getSequenceResetsCount()
+	 */
+	public long getSequenceResetsCount() {
+		return this.sequences.getResetsCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getSequenceStatistics()
+	 */
+	public String[] getSequenceStatistics() {
+		return this.sequences.getStatistics();
+	}
+
+	/**
+	 * Return metrics
+	 * 
+	 * @return metrics of collector since last start
+	 */
+	public CollectorMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getDatagramsCount()
+	 */
+	public long getDatagramsCount() {
+		return this.metrics.getDatagramsCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getBytesCount()
+	 */
+	public long getBytesCount() {
+		return this.metrics.getBytesCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getPacketsCount()
+	 */
+	public long getPacketsCount() {
+		return this.metrics.getPacketsCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getFlowsCount()
+	 */
+	public long getFlowsCount() {
+		return this.metrics.getFlowsCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getVersionStatistics()
+	 */
+	public String[] getVersionStatistics() {
+		return this.metrics.getVersionStatistics();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getDecodeErrorsCount()
+	 */
+	public long getDecodeErrorsCount() {
+		return this.metrics.getDecodeErrorsCount();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getDecodeErrorStatistics()
+	 */
+	public String[] getDecodeErrorStatistics() {
+		return this.metrics.getDecodeErrorStatistics();
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getLatencyStatistics()
+	 */
+	public String getLatencyStatistics() {
+		return this.metrics.getLatency().toString() + " ns";
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getLatencyMedian()
+	 */
+	public long getLatencyMedian() {
+		return this.metrics.getLatency().getPercentile(50) / 1000;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getLatency99()
+	 */
+	public long getLatency99() {
+		return this.metrics.getLatency().getPercentile(99) / 1000;
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getLatencyMax()
+	 */
+	public long getLatencyMax() {
+		return this.metrics.getLatency().getMax() / 1000;
+	}
+
+	/**
+	 * Return clock of router
+	 * 
+	 * @param address address of router
+	 * @return clock of router or null if packets from this address was not received
+	 */
+	public RouterClock getClock(final InetAddress address) {
+		if (address == null) throw new IllegalArgumentException("null address");
+		return this.clocks.get(address);
+	}
+
+	/**
+	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#getClockStatistics()
+	 */
+	public String[] getClockStatistics() {
+		final List<String> stats = new ArrayList<String>();
+		for (final Map.Entry<InetAddress, RouterClock> entry : this.clocks.toMap().entrySet()) {
+			stats.add(entry.getKey().getHostAddress() + ": " + entry.getValue());
+		}
+		return stats.toArray(new String[stats.size()]);
+	}
+
 	/**
 	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#isRunning()
 	 */
 	public boolean isRunning() {
 		synchronized (this) {
-			return this.clientThread != null && this.clientThread.isAlive();
+			if (this.clientThread != null && this.clientThread.isAlive()) return true;
+			for (final WorkerThread worker : this.workers) {
+				if (worker.isAlive()) return true;
+			}
+			return false;
 		}
 	}
 
@@ -90,30 +465,347 @@ public class UDPNetFlowCollector extends AbstractNetFlowCollector implements MBe
 	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#start()
 	 */
 	public void start() {
+		synchronized (this.lifecycleLock) {
+			this.doStart();
+		}
+	}
+
+	/**
+	 * Start receive threads, pipeline and dispatchers. Must be called under lock of lifecycle.
+	 */
+	private void doStart() {
 		synchronized (this) {
 			if (this.port < 0) throw new IllegalStateException("port not configured");
-			if (this.isRunning()) UDPNetFlowCollector.log.debug("NetFlow client already running on port: " + this.port);
-			else {
+			if (this.isRunning()) {
+				UDPNetFlowCollector.log.debug("NetFlow client already running on port: " + this.port);
+				return;
+			}
+			this.sequences = new SequenceTracker();
+			this.metrics = new CollectorMetrics();
+			this.startDispatchers();
+			if (this.pipelineCapacity > 0) this.startPipeline();
+			else this.ring = null;
+			if (this.workersCount == 1) {
 				this.clientThread = new ClientThread(this.port, UDPNetFlowCollector.log);
 				this.clientThread.start();
+			} else {
+				UDPNetFlowCollector.log.info("starting UDP NetFlow client on port " + this.port + " with "
+				        + this.workersCount + " workers");
+				try {
+					this.workersChannel = DatagramChannel.open();
+					this.configureSocket(this.workersChannel.socket());
+					this.workersChannel.socket().bind(new InetSocketAddress("0.0.0.0", this.port));
+				} catch (final IOException ex) {
+					UDPNetFlowCollector.log.error("error opening datagram channel on port " + this.port, ex);
+					this.closeWorkersChannel();
+					// nothing was received, so decoders exit at once
+					if (this.ring != null) this.ring.close();
+					this.decoders.clear();
+					this.stopDispatchers();
+					return;
+				}
+				this.workers.clear();
+				for (int i = 0; i < this.workersCount; i++) {
+					final WorkerThread worker = new WorkerThread(this.workersChannel, this.port, i,
+					        UDPNetFlowCollector.log);
+					this.workers.add(worker);
+					worker.start();
+				}
 			}
 		}
 	}
 
 	/**
+	 * Stop collector. Receive threads are stopped first, then decode threads decode datagrams, remaining in pipeline,
+	 * and only then dispatchers deliver queued packets and stop, so received datagrams are not lost.
+	 * 
 	 * @see org.dicr.netflow.collector.impl.UDPNetFlowCollectorMBean#stop()
 	 */
 	public void stop() {
-		synchronized (this) {
-			if (!this.isRunning()) UDPNetFlowCollector.log.debug("NetFlow client on port " + this.port
-			        + " already stopped");
-			else {
-				this.clientThread.interrupt();
-				this.clientThread = null;
+		synchronized (this.lifecycleLock) {
+			final List<Thread> receivers = new ArrayList<Thread>();
+			final List<Thread> pipelineDecoders = new ArrayList<Thread>();
+			final DatagramRing pipeline;
+			synchronized (this) {
+				if (!this.isRunning()) UDPNetFlowCollector.log.debug("NetFlow client on port " + this.port
+				        + " already stopped");
+				else if (this.clientThread != null) {
+					this.clientThread.interrupt();
+					receivers.add(this.clientThread);
+					this.clientThread = null;
+				} else {
+					// closing channel wake up workers, blocked on receive
+					this.closeWorkersChannel();
+					for (final WorkerThread worker : this.workers) {
+						worker.interrupt();
+						receivers.add(worker);
+					}
+					this.workers.clear();
+					UDPNetFlowCollector.log.info("stopped UDP NetFlow client at port " + this.port);
+				}
+				pipeline = this.ring;
+				pipelineDecoders.addAll(this.decoders);
+				this.decoders.clear();
+			}
+			// listeners can use collector, so wait for threads without lock
+			UDPNetFlowCollector.join(receivers);
+			if (pipeline != null && !pipelineDecoders.isEmpty()) {
+				pipeline.close();
+				UDPNetFlowCollector.join(pipelineDecoders);
+				UDPNetFlowCollector.log.debug("stopped pipeline, dropped " + pipeline.getDroppedCount() + " datagrams");
+			}
+			this.stopDispatchers();
+		}
+	}
+
+	/**
+	 * Wait for exit of threads. Current thread is not waited.
+	 * 
+	 * @param threads threads to wait
+	 */
+	private static void join(final List<Thread> threads) {
+		for (final Thread thread : threads) {
+			if (thread == Thread.currentThread()) continue;
+			try {
+				thread.join();
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
 			}
 		}
 	}
 
+	/**
+	 * Create ring and start decode threads. Must be called under lock.
+	 */
+	private void startPipeline() {
+		this.ring = new DatagramRing(this.pipelineCapacity);
+		this.decoders.clear();
+		for (int i = 0; i < this.decodersCount; i++) {
+			final DecoderThread decoder = new DecoderThread(this.ring, this.port, i);
+			this.decoders.add(decoder);
+			decoder.start();
+		}
+		UDPNetFlowCollector.log.debug("started pipeline with " + this.pipelineCapacity + " buffers and "
+		        + this.decodersCount + " decoders");
+	}
+
+	/**
+	 * Configure socket before bind.
+	 * 
+	 * @param socket socket of datagram channel
+	 * @throws SocketException error setting socket options
+	 */
+	protected void configureSocket(final DatagramSocket socket) throws SocketException {
+		final int size = this.getReceiveBufferSize();
+		if (size > 0) {
+			socket.setReceiveBufferSize(size);
+			// system can limit buffer size
+			UDPNetFlowCollector.log.debug("socket receive buffer size: " + socket.getReceiveBufferSize());
+		}
+	}
+
+	/**
+	 * Receive datagram from channel.
+	 * <P>
+	 * Without pipeline datagram is decoded and fired by calling thread, otherwise datagram received into pipeline ring
+	 * for decode threads.
+	 * </P>
+	 * 
+	 * @param channel channel to receive datagram from
+	 * @param buf buffer of receive thread
+	 * @return true if datagram received, false if no datagrams available in non-blocking channel
+	 * @throws IOException error receiving datagram
+	 * @throws CodecException error decoding datagram
+	 * @throws InterruptedException if interrupted while waiting for free buffer in pipeline
+	 */
+	protected boolean receive(final DatagramChannel channel, final ByteBuffer buf) throws IOException,
+	        CodecException, InterruptedException {
+		final DatagramRing pipeline = this.ring;
+		if (pipeline == null) {
+			buf.clear();
+			final SocketAddress addr = channel.receive(buf);
+			if (addr == null) return false;
+			final long time = System.nanoTime();
+			buf.flip();
+			try {
+				this.decode(buf, addr, time);
+			} catch (final CodecException ex) {
+				this.decodeError(ex, addr);
+			}
+			return true;
+		}
+		final DatagramRing.Slot slot = pipeline.acquire(this.overflowPolicy);
+		if (slot == null) {
+			// ring is full, drop datagram
+			buf.clear();
+			if (channel.receive(buf) == null) return false;
+			pipeline.drop();
+			return true;
+		}
+		boolean published = false;
+		try {
+			final SocketAddress addr = channel.receive(slot.getBuffer());
+			if (addr != null) {
+				slot.setReceiveTime(System.nanoTime());
+				slot.getBuffer().flip();
+				slot.setAddress(addr);
+				pipeline.publish(slot);
+				published = true;
+			}
+		} finally {
+			if (!published) pipeline.release(slot);
+		}
+		return published;
+	}
+
+	/**
+	 * Decode datagram, received now, and fire packet to listeners.
+	 * 
+	 * @param buf buffer with datagram
+	 * @param addr source address of datagram
+	 * @throws CodecException error decoding packet
+	 * @see #decode(ByteBuffer, SocketAddress, long)
+	 */
+	protected void decode(final ByteBuffer buf, final SocketAddress addr) throws CodecException {
+		this.decode(buf, addr, System.nanoTime());
+	}
+
+	/**
+	 * Decode received datagram and fire packet to listeners.
+	 * <P>
+	 * When {@link BatchListener batch listeners} are configured, datagram is decoded to batch of decoding thread for
+	 * them, and packet object is decoded only if other listeners exists or packet version does not support batches.
+	 * Flow sequence of datagram is tracked and clock of router is updated only after successful decoding, before
+	 * firing, so malformed datagram does not change them.
+	 * </P>
+	 * 
+	 * @param buf buffer with datagram
+	 * @param addr source address of datagram
+	 * @param time time of receiving by {@link System#nanoTime()}
+	 * @throws CodecException error decoding packet
+	 */
+	protected void decode(final ByteBuffer buf, final SocketAddress addr, final long time) throws CodecException {
+		final CollectorMetrics stats = this.metrics;
+		stats.received(buf.remaining());
+		final int position = buf.position();
+
+		// decode batch and packet
+		FlowBatch batch = null;
+		if (this.getBatchListenersCount() > 0) {
+			batch = this.decodeBatch(buf);
+			buf.position(position);
+		}
+		NetFlowPacket packet = null;
+		if (batch == null || this.getPacketListenersCount() > 0) {
+			packet = NetFlowCodec.decode(buf);
+			buf.position(position);
+		}
+
+		// header is valid, because packet was decoded
+		this.sequences.track(buf, addr);
+		final RouterClock clock = this.updateClock(buf, addr);
+		final int version = buf.getShort(position) & 0xFFFF;
+		final int count = buf.getShort(position + 2) & 0xFFFF;
+		buf.position(buf.limit());
+
+		// fire
+		if (batch != null) {
+			batch.setSourceAddress(addr);
+			batch.setReceiveTime(time);
+			if (clock != null) clock.toBootTimes(batch.getLast(), batch.getBootTime(), batch.getFlowsCount());
+			if (UDPNetFlowCollector.log.isTraceEnabled()) UDPNetFlowCollector.log.trace("received " + batch
+			        + " from address " + addr + " on port " + this.port);
+			this.fireBatch(batch);
+		}
+		if (packet != null) {
+			packet.setSourceAddress(addr);
+			packet.setReceiveTime(time);
+			packet.setClock(clock);
+			if (UDPNetFlowCollector.log.isTraceEnabled()) UDPNetFlowCollector.log.trace("received "
+			        + packet.getFlowsCount() + " flows in " + packet.getFlowType() + " packet from address " + addr
+			        + " on port " + this.port);
+			this.firePacket(packet, batch != null);
+		}
+		stats.decoded(version, count, System.nanoTime() - time);
+	}
+
+	/**
+	 * Decode received datagram to batch of decoding thread.
+	 * 
+	 * @param buf buffer with datagram
+	 * @return batch or null if packet version does not support batches
+	 * @throws CodecException error decoding packet
+	 */
+	private FlowBatch decodeBatch(final ByteBuffer buf) throws CodecException {
+		final FlowBatch batch = this.batches.get();
+		batch.clear();
+		try {
+			NetFlowCodec.decode(buf, batch);
+		} catch (final UnsupportedVersionException ex) {
+			return null;
+		}
+		return batch;
+	}
+
+	/**
+	 * Count decode error and log it, if errors was not logged during {@link #ERROR_LOG_INTERVAL}.
+	 * 
+	 * @param ex error of decoding
+	 * @param addr source address of datagram
+	 */
+	protected void decodeError(final CodecException ex, final SocketAddress addr) {
+		final String cause = this.metrics.decodeError(ex);
+		final long now = System.currentTimeMillis();
+		final long last = this.errorLogTime.get();
+		if (now - last < AbstractNetFlowCollector.ERROR_LOG_INTERVAL || !this.errorLogTime.compareAndSet(last, now)) {
+			this.suppressedErrors.incrementAndGet();
+			return;
+		}
+		final long suppressed = this.suppressedErrors.getAndSet(0);
+		UDPNetFlowCollector.log.warn("error decoding NetFlow packet from " + addr + " on port " + this.port + ": "
+		        + cause + (suppressed > 0 ? " (" + suppressed + " errors not logged)" : ""));
+		if (UDPNetFlowCollector.log.isDebugEnabled()) UDPNetFlowCollector.log.debug("decode error", ex);
+	}
+
+	/**
+	 * Update clock of router by header of decoded datagram. Position of buffer is not changed.
+	 * 
+	 * @param buf buffer with datagram
+	 * @param addr source address of datagram
+	 * @return clock of router or null if datagram is not a known packet, address is unknown or table of clocks is full
+	 */
+	private RouterClock updateClock(final ByteBuffer buf, final SocketAddress addr) {
+		if (!(addr instanceof InetSocketAddress) || buf.remaining() < UDPNetFlowCollector.CLOCK_HEADER_SIZE) return null;
+		final int pos = buf.position();
+		if (FlowType.getTypeByVersion(buf.getShort(pos) & 0xFFFF) == null) return null;
+		final InetAddress address = ((InetSocketAddress) addr).getAddress();
+		RouterClock clock = this.clocks.get(address);
+		if (clock == null) {
+			synchronized (this.clocks) {
+				clock = this.clocks.get(address);
+				if (clock == null) clock = this.clocks.put(address, new RouterClock());
+			}
+			if (clock == null) return null;
+		}
+		clock.update(buf.getInt(pos + UDPNetFlowCollector.UPTIME_OFFSET) & 0xFFFFFFFFL, buf.getInt(pos
+		        + UDPNetFlowCollector.SECS_OFFSET) & 0xFFFFFFFFL, buf.getInt(pos + UDPNetFlowCollector.NSECS_OFFSET)
+		        & 0xFFFFFFFFL);
+		return clock;
+	}
+
+	/**
+	 * Close channel of workers
+	 */
+	private void closeWorkersChannel() {
+		if (this.workersChannel != null) try {
+			this.workersChannel.close();
+		} catch (final Exception ex) {
+			// NOP
+		}
+		this.workersChannel = null;
+	}
+
 	/**
 	 * NetFLow client IO thread
 	 */
@@ -155,7 +847,7 @@ public class UDPNetFlowCollector extends AbstractNetFlowCollector implements MBe
 				// prepare channel
 				channel = DatagramChannel.open();
 				channel.configureBlocking(false);
-				channel.socket().setSendBufferSize(65535);
+				UDPNetFlowCollector.this.configureSocket(channel.socket());
 				channel.socket().bind(new InetSocketAddress("0.0.0.0", this.listenPort));
 				sel = Selector.open();
 				channel.register(sel, SelectionKey.OP_READ);
@@ -171,20 +863,17 @@ public class UDPNetFlowCollector extends AbstractNetFlowCollector implements MBe
 							final SelectionKey key = iterator.next();
 							if (!key.isReadable()) continue;
 							iterator.remove();
-							// read data
-							buf.clear();
-							final SocketAddress addr = channel.receive(buf);
-							// decode packet
-							buf.flip();
-							final NetFlowPacket packet = NetFlowCodec.decode(buf);
-							this.loger.trace("received " + packet.getFlowsCount() + " flows in " + packet.getFlowType()
-							        + " packet from address " + addr + " on port " + this.listenPort);
-							// fire packet
-							UDPNetFlowCollector.this.firePacket(packet);
+							// read and decode all available data
+							while (UDPNetFlowCollector.this.receive(channel, buf)) {
+								// NOP
+							}
 						}
 					} catch (final ClosedByInterruptException ex) {
 						this.loger.debug("interrupted USP NetFlow client on port " + this.listenPort);
 						break;
+					} catch (final InterruptedException ex) {
+						this.loger.debug("interrupted USP NetFlow client on port " + this.listenPort);
+						break;
 					} catch (final Exception ex) {
 						this.loger.error("error receiving NetFlow packet", ex);
 					}
@@ -208,6 +897,116 @@ public class UDPNetFlowCollector extends AbstractNetFlowCollector implements MBe
 		}
 	}
 
+	/**
+	 * NetFlow receive worker thread. Receive, decode and fire packets from channel, shared with other workers.
+	 */
+	protected class WorkerThread extends Thread {
+		/** Shared channel */
+		private DatagramChannel channel = null;
+
+		/** port to listen */
+		private int listenPort = 0;
+
+		/** Lopgger */
+		private Logger loger = null;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aChannel bound blocking channel to receive packets from
+		 * @param aPort listen port
+		 * @param number number of worker
+		 * @param alog logger
+		 */
+		protected WorkerThread(final DatagramChannel aChannel, final int aPort, final int number, final Logger alog) {
+			super();
+			if (aChannel == null) throw new IllegalArgumentException("null channel");
+			this.channel = aChannel;
+			if (aPort < 0 || aPort > 65535) throw new IllegalArgumentException("port: " + aPort);
+			this.listenPort = aPort;
+			if (alog == null) throw new IllegalArgumentException("null log");
+			this.loger = alog;
+			this.setName("NetFlow client on port " + aPort + " worker " + number);
+			this.setDaemon(false);
+		}
+
+		/**
+		 * Run worker. Read and fire packets until channel closed.
+		 * 
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			this.loger.debug("started " + this.getName());
+			final ByteBuffer buf = ByteBuffer.allocate(65535);
+			while (!this.isInterrupted() && this.channel.isOpen()) {
+				try {
+					// wait, read and decode packet
+					UDPNetFlowCollector.this.receive(this.channel, buf);
+				} catch (final ClosedChannelException ex) {
+					this.loger.debug("closed channel of " + this.getName());
+					break;
+				} catch (final InterruptedException ex) {
+					this.loger.debug("interrupted " + this.getName());
+					break;
+				} catch (final Exception ex) {
+					this.loger.error("error receiving NetFlow packet", ex);
+				}
+			}
+			this.loger.debug("stopped " + this.getName());
+		}
+	}
+
+	/**
+	 * Pipeline decode thread. Decode and fire packets from ring.
+	 */
+	protected class DecoderThread extends Thread {
+		/** Ring of received datagrams */
+		private DatagramRing pipeline = null;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aRing ring of received datagrams
+		 * @param aPort listen port
+		 * @param number number of decoder
+		 */
+		protected DecoderThread(final DatagramRing aRing, final int aPort, final int number) {
+			super();
+			if (aRing == null) throw new IllegalArgumentException("null ring");
+			this.pipeline = aRing;
+			this.setName("NetFlow client on port " + aPort + " decoder " + number);
+			this.setDaemon(false);
+		}
+
+		/**
+		 * Run decoder. Decode and fire packets until ring is closed and drained, or thread is interrupted.
+		 * 
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			UDPNetFlowCollector.log.debug("started " + this.getName());
+			while (!this.isInterrupted()) {
+				DatagramRing.Slot slot = null;
+				try {
+					slot = this.pipeline.take();
+					if (slot == null) break;
+					UDPNetFlowCollector.this.decode(slot.getBuffer(), slot.getAddress(), slot.getReceiveTime());
+				} catch (final InterruptedException ex) {
+					break;
+				} catch (final CodecException ex) {
+					UDPNetFlowCollector.this.decodeError(ex, slot.getAddress());
+				} catch (final Exception ex) {
+					UDPNetFlowCollector.log.error("error decoding NetFlow packet", ex);
+				} finally {
+					if (slot != null) this.pipeline.release(slot);
+				}
+			}
+			UDPNetFlowCollector.log.debug("stopped " + this.getName());
+		}
+	}
+
 	/**
 	 * @see javax.management.MBeanRegistration#preRegister(javax.management.MBeanServer, javax.management.ObjectName)
 	 */
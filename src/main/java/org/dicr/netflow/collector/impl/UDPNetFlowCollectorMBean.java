@@ -25,6 +25,265 @@ public interface UDPNetFlowCollectorMBean {
      */
 	public int getPort();
 
+	/**
+     * Set size of socket receive buffer (SO_RCVBUF).
+     * <P>
+     * Large buffer allow to receive bursts of packets without losses. System can limit actual size of buffer. Applied
+     * on next {@link #start() start}.
+     * </P>
+     *
+     * @param size buffer size in bytes, 0 to use system default
+     */
+	public void setReceiveBufferSize(int size);
+
+	/**
+     * Return size of socket receive buffer.
+     *
+     * @return buffer size in bytes or 0 if system default used
+     */
+	public int getReceiveBufferSize();
+
+	/**
+     * Set count of receive workers.
+     * <P>
+     * With one worker (default) single thread receive packets. With more workers, threads share one channel and
+     * receive, decode and fire packets concurrently. Applied on next {@link #start() start}.
+     * </P>
+     *
+     * @param count number of receive threads
+     */
+	public void setWorkersCount(int count);
+
+	/**
+     * Return count of receive workers.
+     *
+     * @return number of receive threads
+     */
+	public int getWorkersCount();
+
+	/**
+     * Set capacity of pipeline.
+     * <P>
+     * When capacity is more than 0, receive threads put received datagrams into ring of specified number of buffers,
+     * and separate threads decode and fire packets. With 0 (default) packets decoded and fired by receive threads.
+     * Applied on next {@link #start() start}.
+     * </P>
+     *
+     * @param capacity number of datagram buffers in pipeline ring
+     */
+	public void setPipelineCapacity(int capacity);
+
+	/**
+     * Return capacity of pipeline.
+     *
+     * @return number of datagram buffers in pipeline ring or 0 if pipeline is disabled
+     */
+	public int getPipelineCapacity();
+
+	/**
+     * Set count of pipeline decode threads. Applied on next {@link #start() start}.
+     *
+     * @param count number of decode threads
+     */
+	public void setDecodersCount(int count);
+
+	/**
+     * Return count of pipeline decode threads.
+     *
+     * @return number of decode threads
+     */
+	public int getDecodersCount();
+
+	/**
+     * Set action, when pipeline ring is full.
+     *
+     * @param policy overflow policy
+     */
+	public void setOverflowPolicy(OverflowPolicy policy);
+
+	/**
+     * Return action, when pipeline ring is full.
+     *
+     * @return overflow policy
+     */
+	public OverflowPolicy getOverflowPolicy();
+
+	/**
+     * Return count of datagrams, waiting for decode in pipeline.
+     *
+     * @return pipeline queue depth
+     */
+	public int getQueueDepth();
+
+	/**
+     * Return count of datagrams, put into pipeline since start.
+     *
+     * @return number of queued datagrams
+     */
+	public long getQueuedCount();
+
+	/**
+     * Return count of datagrams, dropped because pipeline was full.
+     *
+     * @return number of dropped datagrams
+     */
+	public long getDroppedCount();
+
+	/**
+     * Return count of datagrams, received since start.
+     *
+     * @return count of datagrams, passed to decoding
+     */
+	public long getDatagramsCount();
+
+	/**
+     * Return count of bytes, received since start.
+     *
+     * @return size of datagrams, passed to decoding
+     */
+	public long getBytesCount();
+
+	/**
+     * Return count of decoded packets.
+     *
+     * @return count of packets of all versions, decoded and fired since start
+     */
+	public long getPacketsCount();
+
+	/**
+     * Return count of decoded flows.
+     *
+     * @return count of flows in packets of all versions, decoded and fired since start
+     */
+	public long getFlowsCount();
+
+	/**
+     * Return statistics of versions.
+     *
+     * @return count of packets and flows of each received version of NetFlow
+     */
+	public String[] getVersionStatistics();
+
+	/**
+     * Return count of decode errors.
+     *
+     * @return count of datagrams, which was not decoded since start
+     */
+	public long getDecodeErrorsCount();
+
+	/**
+     * Return statistics of decode errors.
+     *
+     * @return count of decode errors of each cause
+     */
+	public String[] getDecodeErrorStatistics();
+
+	/**
+     * Return count of listener errors.
+     *
+     * @return count of exceptions, thrown by listeners
+     */
+	public long getListenerErrorsCount();
+
+	/**
+     * Return latency statistics.
+     *
+     * @return count and percentiles of latency from receiving of datagram to the end of firing of packet to listeners
+     *         (or queues of listeners in asynchronous mode) in nanoseconds
+     */
+	public String getLatencyStatistics();
+
+	/**
+     * Return median of latency.
+     *
+     * @return 50th percentile of latency from receiving to the end of firing in microseconds
+     */
+	public long getLatencyMedian();
+
+	/**
+     * Return 99th percentile of latency.
+     *
+     * @return 99th percentile of latency from receiving to the end of firing in microseconds
+     */
+	public long getLatency99();
+
+	/**
+     * Return maximum latency.
+     *
+     * @return maximum latency from receiving to the end of firing in microseconds
+     */
+	public long getLatencyMax();
+
+	/**
+     * Return count of lost flows.
+     * <P>
+     * Flows are counted by gaps in flow sequences of v5, v6, v7 and v8 packets of each router engine, so count include
+     * flows, lost in network, in socket buffer and dropped by pipeline. Flows of reordered packets are not counted.
+     * </P>
+     *
+     * @return count of flows, lost since start
+     * @see SequenceTracker
+     */
+	public long getLostFlowsCount();
+
+	/**
+     * Return count of duplicated packets.
+     *
+     * @return count of packets, which sequence was already received
+     */
+	public long getDuplicatePacketsCount();
+
+	/**
+     * Return count of reordered packets.
+     *
+     * @return count of packets, received after packets with greater sequence
+     */
+	public long getReorderedPacketsCount();
+
+	/**
+     * Return count of sequence resynchronizations.
+     *
+     * @return count of router restarts and sequences, which gone back too far
+     */
+	public long getSequenceResetsCount();
+
+	/**
+     * Return statistics of flow sequences
+     *
+     * @return expected sequence, lost flows, duplicated and reordered packets of each router engine
+     */
+	public String[] getSequenceStatistics();
+
+	/**
+     * Return statistics of clocks of routers
+     *
+     * @return boot time, uptime, count of uptime wraps and resets of clock of each router
+     * @see org.dicr.netflow.packet.RouterClock
+     */
+	public String[] getClockStatistics();
+
+	/**
+     * Set size of listener queue.
+     *
+     * @param size capacity of queue of each listener for asynchronous dispatch, 0 to fire packets synchronously
+     * @see AbstractNetFlowCollector#setDispatchQueueSize(int)
+     */
+	public void setDispatchQueueSize(int size);
+
+	/**
+     * Return size of listener queue
+     *
+     * @return capacity of queue of each listener, 0 if packets are fired synchronously
+     */
+	public int getDispatchQueueSize();
+
+	/**
+     * Return statistics of listeners
+     *
+     * @return lag, dropped packets and latency of each listener in asynchronous dispatch mode
+     */
+	public String[] getDispatchStatistics();
+
 	/**
      * Check if listener thread is running
      *
@@ -4,6 +4,7 @@
 package org.dicr.netflow.exporter.impl;
 
 import java.io.*;
+import java.nio.*;
 import java.util.*;
 
 import org.apache.log4j.*;
@@ -17,6 +18,11 @@ import org.dicr.netflow.packet.*;
  * <P>
  * Implement common used methods.
  * </P>
+ * <P>
+ * Exporters send packets as datagrams and can {@link #streamFlows(Collection, PacketWriter) stream} flows without
+ * building of intermediate packets: flows are encoded directly to wire buffer and each datagram is
+ * {@link #exportDatagram(ByteBuffer) exported} as soon as it is full.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 070108
@@ -34,7 +40,7 @@ public abstract class AbstractExporter implements NetFlowExporter {
 	 * @param flowsCount count of flows in next packet
 	 * @return flows sequence for packet
 	 */
-	private long nextSequence(final int flowsCount) {
+	protected long nextSequence(final int flowsCount) {
 		synchronized (this) {
 			this.flowSequence += flowsCount;
 			return this.flowSequence;
@@ -93,6 +99,56 @@ public abstract class AbstractExporter implements NetFlowExporter {
 		return packets;
 	}
 
+	/**
+	 * Stream flows to destination. Flows are encoded by writer and each full packet is
+	 * {@link #exportDatagram(ByteBuffer) exported} before encoding of next flows. Last not full packet is exported
+	 * after all flows. Types of flows are checked before encoding, so flows of different types are rejected before any
+	 * packet is sent and flows sequence is not changed.
+	 * 
+	 * @param flows flows of the same type to export
+	 * @param writer writer to encode packets
+	 * @throws IOException IO exception in channel
+	 * @throws NetFlowException flows of different types or encoding problem
+	 */
+	protected void streamFlows(final Collection<? extends Flow> flows, final PacketWriter writer) throws IOException,
+	        NetFlowException {
+		if (flows == null) throw new IllegalArgumentException("null flows");
+		if (writer == null) throw new IllegalArgumentException("null writer");
+		// check flow types
+		FlowType flowType = null;
+		for (final Flow flow : flows) {
+			if (flowType == null) flowType = flow.getFlowType();
+			else if (!flow.getFlowType().equals(flowType)) throw new NetFlowException("incorrect flow type: "
+			        + flow.getFlowType());
+		}
+		writer.reset();
+		for (final Flow flow : flows) {
+			writer.write(flow);
+			if (writer.isFull()) this.exportDatagram(this.finishPacket(writer));
+		}
+		if (writer.getFlowsCount() > 0) this.exportDatagram(this.finishPacket(writer));
+	}
+
+	/**
+	 * Finish packet of writer with next flows sequence.
+	 * 
+	 * @param writer writer with not empty packet
+	 * @return buffer with encoded datagram
+	 * @throws CodecException error encoding header
+	 */
+	protected ByteBuffer finishPacket(final PacketWriter writer) throws CodecException {
+		if (writer == null) throw new IllegalArgumentException("null writer");
+		return writer.finish(this.nextSequence(writer.getFlowsCount()));
+	}
+
+	/**
+	 * Export encoded packet to destination.
+	 * 
+	 * @param datagram buffer with encoded packet between position and limit, which is reused after return
+	 * @throws IOException IO exception in channel
+	 */
+	protected abstract void exportDatagram(final ByteBuffer datagram) throws IOException;
+
 	/**
 	 * Export packets to destination. For each packet call {@link #export(NetFlowPacket)}.
 	 * 
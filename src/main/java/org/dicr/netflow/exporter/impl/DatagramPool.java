@@ -0,0 +1,180 @@
+/**
+ * DatagramPool.java 17.10.2026
+ */
+package org.dicr.netflow.exporter.impl;
+
+import java.nio.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Pool of datagram buffers.
+ * <P>
+ * Encoded packet is {@link #acquire(ByteBuffer) copied} once into pooled direct buffer, which is shared by
+ * {@link TargetSender send pipelines} of all destinations. Each pipeline {@link Datagram#retain() retain} datagram,
+ * while it is queued, and {@link Datagram#release() release} it after sending, so buffer return to the pool, when
+ * last pipeline is done. Channels write direct buffers without copying, and buffers are reused without allocation.
+ * </P>
+ * <P>
+ * Packets, larger than {@link #BUFFER_SIZE}, are copied to buffers of separate pool, which size is rounded up to power
+ * of two, so buffers of similar packets are reused too.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class DatagramPool {
+	/** Size of pooled buffers, larger than NetFlow packet of maximum flows count of all versions */
+	public static final int BUFFER_SIZE = 2048;
+
+	/** Free datagrams */
+	private final BlockingQueue<Datagram> free;
+
+	/** Free datagrams, larger than {@link #BUFFER_SIZE} */
+	private final BlockingQueue<Datagram> large;
+
+	/** Count of allocated buffers */
+	private final AtomicLong allocatedCount = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity maximum count of free buffers, kept in the pool
+	 */
+	public DatagramPool(final int capacity) {
+		super();
+		if (capacity < 1) throw new IllegalArgumentException("capacity: " + capacity);
+		this.free = new ArrayBlockingQueue<Datagram>(capacity);
+		this.large = new ArrayBlockingQueue<Datagram>(capacity);
+	}
+
+	/**
+	 * Acquire datagram and copy packet into it. Caller hold one reference and must {@link Datagram#release() release}
+	 * it.
+	 *
+	 * @param packet buffer with encoded packet between position and limit, position is moved to limit
+	 * @return datagram with copy of packet
+	 */
+	public Datagram acquire(final ByteBuffer packet) {
+		if (packet == null) throw new IllegalArgumentException("null packet");
+		final int size = packet.remaining();
+		Datagram datagram;
+		if (size > DatagramPool.BUFFER_SIZE) {
+			datagram = this.large.poll();
+			if (datagram == null || datagram.buffer.capacity() < size) datagram = new Datagram(this, Integer
+			        .highestOneBit(size - 1) << 1);
+		} else {
+			datagram = this.free.poll();
+			if (datagram == null) datagram = new Datagram(this, DatagramPool.BUFFER_SIZE);
+		}
+		datagram.buffer.clear();
+		datagram.buffer.put(packet);
+		datagram.buffer.flip();
+		datagram.refs.set(1);
+		return datagram;
+	}
+
+	/**
+	 * Return count of free buffers
+	 *
+	 * @return count of buffers in the pool
+	 */
+	public int getFreeCount() {
+		return this.free.size() + this.large.size();
+	}
+
+	/**
+	 * Return count of allocated buffers
+	 *
+	 * @return count of buffers, allocated by the pool
+	 */
+	public long getAllocatedCount() {
+		return this.allocatedCount.get();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "free=" + this.getFreeCount() + ", allocated=" + this.getAllocatedCount();
+	}
+
+	/**
+	 * Datagram with reference count
+	 */
+	public static final class Datagram {
+		/** Pool or null if datagram is not pooled */
+		private final DatagramPool pool;
+
+		/** Direct buffer */
+		final ByteBuffer buffer;
+
+		/** Count of references */
+		final AtomicInteger refs = new AtomicInteger();
+
+		/**
+		 * Constructor
+		 *
+		 * @param aPool pool of datagram or null
+		 * @param size size of buffer
+		 */
+		Datagram(final DatagramPool aPool, final int size) {
+			super();
+			this.pool = aPool;
+			this.buffer = ByteBuffer.allocateDirect(size);
+			if (aPool != null) aPool.allocatedCount.incrementAndGet();
+		}
+
+		/**
+		 * Return size of packet
+		 *
+		 * @return count of bytes in datagram
+		 */
+		public int size() {
+			return this.buffer.remaining();
+		}
+
+		/**
+		 * Create view of packet. Each caller get own read-only view of shared buffer. As pooled datagrams are reused,
+		 * caller can create view once and {@link #rewind(ByteBuffer) rewind} it for each packet.
+		 *
+		 * @return read-only buffer with packet between position and limit
+		 */
+		public ByteBuffer getData() {
+			return this.buffer.asReadOnlyBuffer();
+		}
+
+		/**
+		 * Set position and limit of view, created by {@link #getData()}, to current packet.
+		 *
+		 * @param view view of this datagram
+		 * @return view with packet between position and limit
+		 */
+		public ByteBuffer rewind(final ByteBuffer view) {
+			if (view == null) throw new IllegalArgumentException("null view");
+			view.clear();
+			view.limit(this.buffer.limit());
+			return view;
+		}
+
+		/**
+		 * Add reference
+		 */
+		public void retain() {
+			this.refs.incrementAndGet();
+		}
+
+		/**
+		 * Release reference. When last reference is released, datagram return to the pool.
+		 */
+		public void release() {
+			final int count = this.refs.decrementAndGet();
+			if (count < 0) throw new IllegalStateException("datagram released more than retained");
+			if (count == 0 && this.pool != null) {
+				if (this.buffer.capacity() > DatagramPool.BUFFER_SIZE) this.pool.large.offer(this);
+				else this.pool.free.offer(this);
+			}
+		}
+	}
+}
@@ -0,0 +1,459 @@
+/**
+ * TargetSender.java 17.10.2026
+ */
+package org.dicr.netflow.exporter.impl;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.apache.log4j.*;
+
+/**
+ * Send pipeline of export destination.
+ * <P>
+ * Sender has own datagram channel, connected to destination, bounded queue of encoded packets and thread, so
+ * unreachable or slow destination does not delay or break sending to other destinations. When queue is full, packets
+ * for this destination are dropped, or, in synchronous mode, caller wait for free space. Send errors are counted and
+ * does not stop sending of next packets.
+ * </P>
+ * <P>
+ * Queued {@link DatagramPool.Datagram datagrams} are shared between senders. Sender retain datagram while it is
+ * queued and release it after sending, so buffer return to the pool, when all senders are done. Datagrams, which are
+ * left in queue, when send thread is finished, are released as dropped.
+ * </P>
+ * <P>
+ * Sending can be {@link #setPacing(long, long) paced} by packets and bytes rate with {@link TokenBucket token
+ * buckets}, so burst of packets is spread in time and does not overflow receive buffer of collector. Packets, which
+ * wait for sending, stay in bounded queue.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class TargetSender {
+	/** Logger */
+	private static final Logger log = Logger.getLogger(TargetSender.class);
+
+	/** Marker of the end of queue */
+	private static final DatagramPool.Datagram STOP = new DatagramPool.Datagram(null, 0);
+
+	/** Time of burst, allowed by pacing, milliseconds */
+	private static final long PACING_BURST = 10;
+
+	/** Interval of rate measurement, nanoseconds */
+	private static final long RATE_INTERVAL = 1000000000L;
+
+	/** Interval of check of stop, while caller wait for free space in queue, milliseconds */
+	private static final long WAIT_INTERVAL = 100;
+
+	/** Destination address */
+	private final SocketAddress target;
+
+	/** Queue of encoded packets */
+	private final BlockingQueue<DatagramPool.Datagram> queue;
+
+	/** Send thread */
+	private final SendThread thread;
+
+	/** Sender is stopped, so caller must not wait for free space in queue */
+	private volatile boolean stopped = false;
+
+	/** Count of queued packets */
+	private final AtomicLong queuedCount = new AtomicLong();
+
+	/** Count of dropped packets */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** Count of sent packets, changed only by send thread */
+	private volatile long sentCount = 0;
+
+	/** Count of send errors, changed only by send thread */
+	private volatile long failedCount = 0;
+
+	/** Last send error */
+	private volatile String lastError = null;
+
+	/** Packets rate limiter or null */
+	private volatile TokenBucket packetsBucket = null;
+
+	/** Bytes rate limiter or null */
+	private volatile TokenBucket bytesBucket = null;
+
+	/** Count of sent bytes, changed only by send thread */
+	private volatile long sentBytes = 0;
+
+	/** Sum of pacing delays in nanoseconds, changed only by send thread */
+	private volatile long totalDelay = 0;
+
+	/** Maximum pacing delay in nanoseconds, changed only by send thread */
+	private volatile long maxDelay = 0;
+
+	/** Start of current rate measurement interval, nanoseconds */
+	private volatile long rateTime = System.nanoTime();
+
+	/** Sent packets and bytes at start of current interval */
+	private long ratePackets = 0, rateBytes = 0;
+
+	/** Packets rate, measured in last interval */
+	private volatile long packetsRate = 0;
+
+	/** Bytes rate, measured in last interval */
+	private volatile long bytesRate = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param aTarget destination address
+	 * @param capacity capacity of queue in packets
+	 */
+	public TargetSender(final SocketAddress aTarget, final int capacity) {
+		super();
+		if (aTarget == null) throw new IllegalArgumentException("null target");
+		if (capacity < 1) throw new IllegalArgumentException("capacity: " + capacity);
+		this.target = aTarget;
+		this.queue = new ArrayBlockingQueue<DatagramPool.Datagram>(capacity);
+		this.thread = new SendThread();
+	}
+
+	/**
+	 * Return destination
+	 *
+	 * @return destination address
+	 */
+	public SocketAddress getTarget() {
+		return this.target;
+	}
+
+	/**
+	 * Set pacing of sending.
+	 *
+	 * @param packetsPerSecond maximum packets rate, 0 to not limit
+	 * @param bytesPerSecond maximum bytes rate, 0 to not limit
+	 */
+	public void setPacing(final long packetsPerSecond, final long bytesPerSecond) {
+		if (packetsPerSecond < 0) throw new IllegalArgumentException("packets rate: " + packetsPerSecond);
+		if (bytesPerSecond < 0) throw new IllegalArgumentException("bytes rate: " + bytesPerSecond);
+		this.packetsBucket = packetsPerSecond > 0 ? new TokenBucket(packetsPerSecond, Math.max(1, packetsPerSecond
+		        * TargetSender.PACING_BURST / 1000)) : null;
+		this.bytesBucket = bytesPerSecond > 0 ? new TokenBucket(bytesPerSecond, Math.max(1, bytesPerSecond
+		        * TargetSender.PACING_BURST / 1000)) : null;
+	}
+
+	/**
+	 * Start send thread
+	 */
+	public void start() {
+		this.thread.start();
+	}
+
+	/**
+	 * Stop send thread. Wait while queued packets are sent.
+	 * <P>
+	 * Thread is not interrupted, because interrupt close channel, which is sending.
+	 * </P>
+	 */
+	public void stop() {
+		this.stopped = true;
+		try {
+			this.queue.put(TargetSender.STOP);
+			this.thread.join();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		this.drain();
+	}
+
+	/**
+	 * Release datagrams, left in queue, as dropped
+	 */
+	void drain() {
+		for (DatagramPool.Datagram datagram = this.queue.poll(); datagram != null; datagram = this.queue.poll()) {
+			if (datagram == TargetSender.STOP) continue;
+			datagram.release();
+			this.droppedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Queue packet to destination. Datagram is retained until it is sent. Packets, sent after stop, are dropped.
+	 *
+	 * @param datagram encoded packet
+	 * @param wait wait for free space in queue if true, drop packet if queue is full and false
+	 * @return true if queued, false if dropped
+	 */
+	public boolean send(final DatagramPool.Datagram datagram, final boolean wait) {
+		if (datagram == null) throw new IllegalArgumentException("null datagram");
+		datagram.retain();
+		boolean queued = false;
+		try {
+			if (wait) {
+				while (!this.stopped && !queued) {
+					queued = this.queue.offer(datagram, TargetSender.WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+				}
+			} else if (!this.stopped) queued = this.queue.offer(datagram);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		if (!queued) {
+			datagram.release();
+			this.droppedCount.incrementAndGet();
+			return false;
+		}
+		this.queuedCount.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * Return lag of destination
+	 *
+	 * @return count of packets in queue
+	 */
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Return count of queued packets
+	 *
+	 * @return count of packets, queued to destination
+	 */
+	public long getQueuedCount() {
+		return this.queuedCount.get();
+	}
+
+	/**
+	 * Return count of sent packets
+	 *
+	 * @return count of packets, sent to destination
+	 */
+	public long getSentCount() {
+		return this.sentCount;
+	}
+
+	/**
+	 * Return count of dropped packets
+	 *
+	 * @return count of packets, dropped because queue was full, sender was stopped or caller was interrupted
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Return count of send errors
+	 *
+	 * @return count of packets, which was not sent because of errors
+	 */
+	public long getFailedCount() {
+		return this.failedCount;
+	}
+
+	/**
+	 * Return count of sent bytes
+	 *
+	 * @return size of packets, sent to destination
+	 */
+	public long getSentBytes() {
+		return this.sentBytes;
+	}
+
+	/**
+	 * Return packets rate
+	 *
+	 * @return packets per second, sent in last second
+	 */
+	public long getPacketsRate() {
+		return System.nanoTime() - this.rateTime < 2 * TargetSender.RATE_INTERVAL ? this.packetsRate : 0;
+	}
+
+	/**
+	 * Return bytes rate
+	 *
+	 * @return bytes per second, sent in last second
+	 */
+	public long getBytesRate() {
+		return System.nanoTime() - this.rateTime < 2 * TargetSender.RATE_INTERVAL ? this.bytesRate : 0;
+	}
+
+	/**
+	 * Return average pacing delay
+	 *
+	 * @return average time, which packet waited for pacing, in microseconds
+	 */
+	public long getAveragePacingDelay() {
+		final long count = this.sentCount;
+		return count > 0 ? this.totalDelay / count / 1000 : 0;
+	}
+
+	/**
+	 * Return maximum pacing delay
+	 *
+	 * @return maximum time, which packet waited for pacing, in microseconds
+	 */
+	public long getMaxPacingDelay() {
+		return this.maxDelay / 1000;
+	}
+
+	/**
+	 * Return last error
+	 *
+	 * @return message of last send error or null
+	 */
+	public String getLastError() {
+		return this.lastError;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.target + ": depth=" + this.getQueueDepth() + ", queued=" + this.getQueuedCount() + ", sent="
+		        + this.getSentCount() + ", dropped=" + this.getDroppedCount() + ", failed=" + this.getFailedCount()
+		        + ", rate=" + this.getPacketsRate() + " pps/" + this.getBytesRate() + " Bps, pacing="
+		        + this.getAveragePacingDelay() + "/" + this.getMaxPacingDelay() + " us"
+		        + (this.lastError != null ? ", error=" + this.lastError : "");
+	}
+
+	/**
+	 * Send thread. Send queued packets until stopped.
+	 */
+	private final class SendThread extends Thread {
+		/** Channel, connected to destination */
+		private DatagramChannel channel = null;
+
+		/** Views of datagrams, created once for each datagram, which is reused by pool */
+		private final Map<DatagramPool.Datagram, ByteBuffer> views = new WeakHashMap<DatagramPool.Datagram,
+		        ByteBuffer>();
+
+		/**
+		 * Constructor
+		 */
+		SendThread() {
+			super();
+			this.setName("NetFlow exporter to " + TargetSender.this.target);
+			this.setDaemon(true);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			TargetSender.log.debug("started " + this.getName());
+			final TargetSender sender = TargetSender.this;
+			while (true) {
+				final DatagramPool.Datagram datagram;
+				try {
+					datagram = sender.queue.take();
+				} catch (final InterruptedException ex) {
+					break;
+				}
+				if (datagram == TargetSender.STOP) break;
+				final int size = datagram.size();
+				this.pace(size);
+				try {
+					this.write(datagram);
+					sender.sentCount++;
+					sender.sentBytes += size;
+					this.measure();
+				} catch (final IOException ex) {
+					sender.failedCount++;
+					sender.lastError = ex.toString();
+					TargetSender.log.warn("error sending packet to " + sender.target + ": " + ex);
+					this.close();
+				} finally {
+					datagram.release();
+				}
+			}
+			// interrupted thread does not send anymore
+			sender.stopped = true;
+			sender.drain();
+			this.close();
+			TargetSender.log.debug("stopped " + this.getName());
+		}
+
+		/**
+		 * Wait for tokens of packets and bytes buckets
+		 *
+		 * @param size size of datagram
+		 */
+		private void pace(final int size) {
+			final TargetSender sender = TargetSender.this;
+			final TokenBucket packets = sender.packetsBucket;
+			final TokenBucket bytes = sender.bytesBucket;
+			if (packets == null && bytes == null) return;
+			long delay = 0;
+			try {
+				if (packets != null) delay += packets.acquire(1);
+				if (bytes != null) delay += bytes.acquire(size);
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			sender.totalDelay += delay;
+			if (delay > sender.maxDelay) sender.maxDelay = delay;
+		}
+
+		/**
+		 * Update measured rate at the end of interval
+		 */
+		private void measure() {
+			final TargetSender sender = TargetSender.this;
+			final long now = System.nanoTime();
+			final long elapsed = now - sender.rateTime;
+			if (elapsed < TargetSender.RATE_INTERVAL) return;
+			sender.packetsRate = (sender.sentCount - sender.ratePackets) * TargetSender.RATE_INTERVAL / elapsed;
+			sender.bytesRate = (sender.sentBytes - sender.rateBytes) * TargetSender.RATE_INTERVAL / elapsed;
+			sender.ratePackets = sender.sentCount;
+			sender.rateBytes = sender.sentBytes;
+			sender.rateTime = now;
+		}
+
+		/**
+		 * Write datagram to channel. Open channel if required.
+		 * <P>
+		 * Connected channel report ICMP port unreachable of previous packet on next write, which is not performed, so
+		 * write is repeated once.
+		 * </P>
+		 *
+		 * @param datagram encoded packet
+		 * @throws IOException error sending datagram
+		 */
+		private void write(final DatagramPool.Datagram datagram) throws IOException {
+			if (this.channel == null) {
+				this.channel = DatagramChannel.open();
+				this.channel.configureBlocking(true);
+				this.channel.connect(TargetSender.this.target);
+			}
+			ByteBuffer view = this.views.get(datagram);
+			if (view == null) {
+				view = datagram.getData();
+				this.views.put(datagram, view);
+			}
+			try {
+				this.channel.write(datagram.rewind(view));
+			} catch (final PortUnreachableException ex) {
+				TargetSender.this.lastError = ex.toString();
+				this.channel.write(datagram.rewind(view));
+			}
+		}
+
+		/**
+		 * Close channel
+		 */
+		private void close() {
+			if (this.channel == null) return;
+			try {
+				this.channel.close();
+			} catch (final IOException ex) {
+				// NOP
+			}
+			this.channel = null;
+		}
+	}
+}
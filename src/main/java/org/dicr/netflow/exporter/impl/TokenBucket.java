@@ -0,0 +1,85 @@
+/**
+ * TokenBucket.java 17.10.2026
+ */
+package org.dicr.netflow.exporter.impl;
+
+/**
+ * Token bucket rate limiter.
+ * <P>
+ * Bucket is filled with tokens at configured rate up to capacity. Sender {@link #acquire(long) takes} tokens before
+ * sending and sleep when bucket has not enough tokens, so bursts are spread in time at configured rate. Bucket can go
+ * to debt, so amount larger than capacity is sent after waiting.
+ * </P>
+ * <P>
+ * Bucket is not thread-safe and must be used by one sending thread.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class TokenBucket {
+	/** Rate, tokens per second */
+	private final long rate;
+
+	/** Capacity of bucket, tokens */
+	private final long capacity;
+
+	/** Available tokens, negative when bucket is in debt */
+	private double tokens;
+
+	/** Time of last refill, nanoseconds */
+	private long time;
+
+	/**
+	 * Constructor. Bucket is full initially.
+	 *
+	 * @param aRate rate in tokens per second
+	 * @param aCapacity maximum count of tokens, which can be spent in burst
+	 */
+	public TokenBucket(final long aRate, final long aCapacity) {
+		super();
+		if (aRate < 1) throw new IllegalArgumentException("rate: " + aRate);
+		if (aCapacity < 1) throw new IllegalArgumentException("capacity: " + aCapacity);
+		this.rate = aRate;
+		this.capacity = aCapacity;
+		this.tokens = aCapacity;
+		this.time = System.nanoTime();
+	}
+
+	/**
+	 * Return rate
+	 *
+	 * @return rate in tokens per second
+	 */
+	public long getRate() {
+		return this.rate;
+	}
+
+	/**
+	 * Return capacity
+	 *
+	 * @return maximum count of tokens in bucket
+	 */
+	public long getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Take tokens, waiting while bucket is filled.
+	 *
+	 * @param count count of tokens to take
+	 * @return time of waiting in nanoseconds
+	 * @throws InterruptedException thread interrupted while waiting
+	 */
+	public long acquire(final long count) throws InterruptedException {
+		if (count < 0) throw new IllegalArgumentException("count: " + count);
+		final long now = System.nanoTime();
+		this.tokens = Math.min(this.capacity, this.tokens + (now - this.time) * (double) this.rate / 1000000000L);
+		this.time = now;
+		this.tokens -= count;
+		if (this.tokens >= 0) return 0;
+		final long wait = (long) (-this.tokens * 1000000000L / this.rate);
+		Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+		return wait;
+	}
+}
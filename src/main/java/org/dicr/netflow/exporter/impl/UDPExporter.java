@@ -6,11 +6,13 @@ package org.dicr.netflow.exporter.impl;
 import java.io.*;
 import java.net.*;
 import java.nio.*;
-import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.apache.log4j.*;
 import org.dicr.netflow.codec.*;
+import org.dicr.netflow.exc.*;
 import org.dicr.netflow.packet.*;
 
 /**
@@ -18,23 +20,87 @@ import org.dicr.netflow.packet.*;
  * <P>
  * Export NetFlow Packets throw UDP network socket.
  * </P>
+ * <P>
+ * When {@link #setQueueSize(int) queue size} is configured, exporter work in queued mode: {@link #export(Collection)
+ * exported} flows are put to bounded queue without blocking of caller (flows are dropped when queue is full), and
+ * separate sender thread fill packets up to {@link FlowType#getMaxFlowsCount() maximum} count of flows, encode each
+ * packet once into direct buffer and send it to all addresses. Packet, which is not full, is sent when first flow of
+ * it waited {@link #setFlushInterval(long) flush interval}.
+ * </P>
+ * <P>
+ * Each destination address has own {@link TargetSender send pipeline} with channel, queue and thread, so unreachable
+ * destination does not delay or break sending of packets to other destinations. Encoded packet is copied once to
+ * {@link DatagramPool pooled} direct buffer, which is shared by pipelines and return to the pool, when all of them has
+ * sent it. In synchronous mode caller wait for free space in queues of destinations, in queued mode packets are
+ * dropped for destination, which queue is full. Sending to each destination can be
+ * paced by {@link #setPacketsRate(long) packets} and {@link #setBytesRate(long) bytes} rate, so bursts of expired
+ * flows does not overflow receive buffers of collectors.
+ * </P>
  * 
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
  * @version 060710
  */
-public class UDPExporter extends AbstractExporter {
+public class UDPExporter extends AbstractExporter implements UDPExporterMBean {
 	/** Logger */
 	private static final Logger log = Logger.getLogger(UDPExporter.class);
 
+	/** Minimal interval between logging of dropped packets, milliseconds */
+	public static final long DROP_LOG_INTERVAL = 10000;
+
 	/** Addresses to export */
 	private final Set<SocketAddress> addresses = new HashSet<SocketAddress>();
 
-	/** Datagram channel */
-	private DatagramChannel channel = null;
+	/** Capacity of queue of each destination, packets */
+	private int targetQueueSize = 1000;
+
+	/** Maximum packets rate to each destination, 0 to not limit */
+	private long packetsRate = 0;
+
+	/** Maximum bytes rate to each destination, 0 to not limit */
+	private long bytesRate = 0;
+
+	/** Send pipelines of destinations, null if not opened */
+	private volatile TargetSender[] targets = null;
+
+	/** Pool of encoded packets, shared by pipelines, null if not opened */
+	private volatile DatagramPool pool = null;
 
 	/** Byte Buffer */
 	private final ByteBuffer buf = ByteBuffer.allocate(65535);
 
+	/** Writer of flows to buffer */
+	private final PacketWriter writer = new PacketWriter(this.buf);
+
+	/** Capacity of flows queue, 0 to export synchronously */
+	private int queueSize = 0;
+
+	/** Maximum time of flow in not full packet, milliseconds */
+	private volatile long flushInterval = 1000;
+
+	/** Queue of flows to send */
+	private volatile BlockingQueue<Flow> queue = null;
+
+	/** Sender thread */
+	private SenderThread sender = null;
+
+	/** Lock of sender configuration */
+	private final Object senderLock = new Object();
+
+	/** Count of queued flows */
+	private final AtomicLong queuedCount = new AtomicLong();
+
+	/** Count of dropped flows */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** Count of sent packets */
+	private final AtomicLong sentCount = new AtomicLong();
+
+	/** Time of last logging of dropped packets */
+	private final AtomicLong dropLogTime = new AtomicLong();
+
+	/** Count of drops, not logged since last logging */
+	private final AtomicLong suppressedDrops = new AtomicLong();
+
 	/**
 	 * Constructor.
 	 */
@@ -52,6 +118,7 @@ public class UDPExporter extends AbstractExporter {
 		synchronized (this.addresses) {
 			this.addresses.clear();
 			this.addresses.addAll(exportAddresses);
+			this.updateTargets();
 		}
 		UDPExporter.log.debug("configured " + exportAddresses.size() + " addresses to export flows to");
 	}
@@ -72,6 +139,7 @@ public class UDPExporter extends AbstractExporter {
 				        "incorrect port in addresses: " + port);
 				this.addresses.add(new InetSocketAddress(addr, port.intValue()));
 			}
+			this.updateTargets();
 		}
 		UDPExporter.log.debug("configured " + exportAddresses.size() + " addresses for export");
 	}
@@ -83,8 +151,9 @@ public class UDPExporter extends AbstractExporter {
 	 */
 	public void addAddress(final SocketAddress addr) {
 		if (addr == null) throw new IllegalArgumentException("null address");
-		synchronized (this) {
+		synchronized (this.addresses) {
 			this.addresses.add(addr);
+			this.updateTargets();
 		}
 	}
 
@@ -95,12 +164,268 @@ public class UDPExporter extends AbstractExporter {
 	 */
 	public Set<SocketAddress> getAddresses() {
 		synchronized (this.addresses) {
-			return Collections.unmodifiableSet(this.addresses);
+			return Collections.unmodifiableSet(new HashSet<SocketAddress>(this.addresses));
+		}
+	}
+
+	/**
+	 * Update send pipelines of destinations, if opened: reuse pipelines of remaining addresses, start new and stop
+	 * removed. Must be called under lock of addresses.
+	 */
+	private void updateTargets() {
+		if (this.targets == null) return;
+		final Map<SocketAddress, TargetSender> old = new HashMap<SocketAddress, TargetSender>();
+		for (final TargetSender target : this.targets) {
+			old.put(target.getTarget(), target);
+		}
+		final TargetSender[] newTargets = new TargetSender[this.addresses.size()];
+		int i = 0;
+		for (final SocketAddress addr : this.addresses) {
+			TargetSender target = old.remove(addr);
+			if (target == null) {
+				target = new TargetSender(addr, this.targetQueueSize);
+				target.setPacing(this.packetsRate, this.bytesRate);
+				target.start();
+			}
+			newTargets[i++] = target;
+		}
+		this.targets = newTargets;
+		for (final TargetSender target : old.values()) {
+			target.stop();
+		}
+	}
+
+	/**
+	 * Set size of destination queue.
+	 * <P>
+	 * Packets are dropped for destination, which queue is full. Applied on next {@link #open() open}.
+	 * </P>
+	 * 
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#setTargetQueueSize(int)
+	 */
+	public void setTargetQueueSize(final int size) {
+		if (size < 1) throw new IllegalArgumentException("target queue size: " + size);
+		synchronized (this.addresses) {
+			this.targetQueueSize = size;
+		}
+		UDPExporter.log.debug("configured target queue size: " + size);
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getTargetQueueSize()
+	 */
+	public int getTargetQueueSize() {
+		synchronized (this.addresses) {
+			return this.targetQueueSize;
+		}
+	}
+
+	/**
+	 * Set maximum packets rate.
+	 * <P>
+	 * Packets to each destination are sent with specified rate, allowing bursts of 10 ms. Packets, which wait for
+	 * sending, stay in destination queue, and are dropped when queue is full.
+	 * </P>
+	 * 
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#setPacketsRate(long)
+	 */
+	public void setPacketsRate(final long rate) {
+		if (rate < 0) throw new IllegalArgumentException("packets rate: " + rate);
+		synchronized (this.addresses) {
+			this.packetsRate = rate;
+			this.updatePacing();
+		}
+		UDPExporter.log.debug("configured packets rate: " + rate + " pps");
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getPacketsRate()
+	 */
+	public long getPacketsRate() {
+		synchronized (this.addresses) {
+			return this.packetsRate;
+		}
+	}
+
+	/**
+	 * Set maximum bytes rate.
+	 * 
+	 * @see #setPacketsRate(long)
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#setBytesRate(long)
+	 */
+	public void setBytesRate(final long rate) {
+		if (rate < 0) throw new IllegalArgumentException("bytes rate: " + rate);
+		synchronized (this.addresses) {
+			this.bytesRate = rate;
+			this.updatePacing();
+		}
+		UDPExporter.log.debug("configured bytes rate: " + rate + " Bps");
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getBytesRate()
+	 */
+	public long getBytesRate() {
+		synchronized (this.addresses) {
+			return this.bytesRate;
+		}
+	}
+
+	/**
+	 * Apply pacing to opened pipelines. Must be called under lock of addresses.
+	 */
+	private void updatePacing() {
+		if (this.targets == null) return;
+		for (final TargetSender target : this.targets) {
+			target.setPacing(this.packetsRate, this.bytesRate);
+		}
+	}
+
+	/**
+	 * Return send pipelines of destinations
+	 * 
+	 * @return pipelines with statistics of destinations, empty if not opened
+	 */
+	public List<TargetSender> getTargets() {
+		final TargetSender[] array = this.targets;
+		if (array == null) return Collections.emptyList();
+		return Collections.unmodifiableList(Arrays.asList(array));
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getTargetStatistics()
+	 */
+	public String[] getTargetStatistics() {
+		final List<TargetSender> list = this.getTargets();
+		final String[] stats = new String[list.size()];
+		for (int i = 0; i < stats.length; i++) {
+			stats[i] = list.get(i).toString();
+		}
+		return stats;
+	}
+
+	/**
+	 * Set size of flows queue.
+	 * <P>
+	 * Changing of size restart sender thread. Flows, queued before, are sent.
+	 * </P>
+	 * 
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#setQueueSize(int)
+	 */
+	public void setQueueSize(final int size) {
+		if (size < 0) throw new IllegalArgumentException("queue size: " + size);
+		synchronized (this.senderLock) {
+			this.stopSender();
+			this.queueSize = size;
+			if (size > 0) {
+				this.queue = new ArrayBlockingQueue<Flow>(size);
+				this.sender = new SenderThread(this.queue);
+				this.sender.start();
+			}
+		}
+		UDPExporter.log.debug("configured queue size: " + size);
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getQueueSize()
+	 */
+	public int getQueueSize() {
+		synchronized (this.senderLock) {
+			return this.queueSize;
+		}
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#setFlushInterval(long)
+	 */
+	public void setFlushInterval(final long interval) {
+		if (interval < 1) throw new IllegalArgumentException("flush interval: " + interval);
+		this.flushInterval = interval;
+		UDPExporter.log.debug("configured flush interval: " + interval + " ms");
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getFlushInterval()
+	 */
+	public long getFlushInterval() {
+		return this.flushInterval;
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getQueueDepth()
+	 */
+	public int getQueueDepth() {
+		final BlockingQueue<Flow> flows = this.queue;
+		return flows != null ? flows.size() : 0;
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getQueuedCount()
+	 */
+	public long getQueuedCount() {
+		return this.queuedCount.get();
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getDroppedCount()
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * @see org.dicr.netflow.exporter.impl.UDPExporterMBean#getSentCount()
+	 */
+	public long getSentCount() {
+		return this.sentCount.get();
+	}
+
+	/**
+	 * Export flows.
+	 * <P>
+	 * In queued mode flows are put to queue of sender thread without blocking, otherwise flows are
+	 * {@link #streamFlows(Collection, PacketWriter) streamed} by calling thread: each datagram is sent as soon as it is
+	 * full.
+	 * </P>
+	 * 
+	 * @see org.dicr.netflow.exporter.impl.AbstractExporter#export(java.util.Collection)
+	 */
+	@Override
+	public void export(final Collection<? extends Flow> flows) throws IOException, NetFlowException {
+		if (flows == null) throw new IllegalArgumentException("null flows");
+		final BlockingQueue<Flow> flowsQueue = this.queue;
+		if (flowsQueue == null) {
+			if (this.getAddresses().isEmpty()) UDPExporter.log.trace("no addresses configured to export to");
+			else synchronized (this.buf) {
+				this.streamFlows(flows, this.writer);
+			}
+			return;
+		}
+		int dropped = 0;
+		for (final Flow flow : flows) {
+			if (!flowsQueue.offer(flow)) dropped++;
 		}
+		this.queuedCount.addAndGet(flows.size() - dropped);
+		if (dropped > 0) {
+			this.droppedCount.addAndGet(dropped);
+			this.logDrop("export queue is full, dropped " + dropped + " flows");
+		}
+	}
+
+	/**
+	 * Export packet. In queued mode flows of packet are queued to sender thread.
+	 * 
+	 * @see org.dicr.netflow.exporter.impl.AbstractExporter#processPacket(org.dicr.netflow.packet.NetFlowPacket)
+	 */
+	@Override
+	public void processPacket(final NetFlowPacket packet) {
+		if (packet == null) throw new IllegalArgumentException("null packet");
+		if (this.queue == null) super.processPacket(packet);
+		else this.processFlows(packet.getFlows());
 	}
 
 	/**
-	 * Open datagram channel.
+	 * Open send pipelines of destinations.
 	 * <P>
 	 * Call to this method is optional and performed automatically in first call to {@link #export(NetFlowPacket)}
 	 * </P>
@@ -108,12 +433,12 @@ public class UDPExporter extends AbstractExporter {
 	 * @throws IOException error opening channel
 	 */
 	public void open() throws IOException {
-		synchronized (this.buf) {
-			if (this.channel == null) {
-				this.channel = DatagramChannel.open();
-				this.channel.configureBlocking(true);
-				this.channel.socket().setReceiveBufferSize(65535);
-				this.channel.socket().setReceiveBufferSize(65535);
+		synchronized (this.addresses) {
+			if (this.targets == null) {
+				// pipeline hold at most queue and one sending packet
+				this.pool = new DatagramPool(this.targetQueueSize + 1);
+				this.targets = new TargetSender[0];
+				this.updateTargets();
 			}
 		}
 	}
@@ -136,37 +461,102 @@ public class UDPExporter extends AbstractExporter {
 		}
 
 		synchronized (this.buf) {
-			UDPExporter.log.trace("exporting " + packet.getFlowsCount() + " flows in " + packet.getFlowType()
-			        + " packet to " + targets.size() + " addresses");
-
-			// configure channel
-			if (this.channel == null) this.open();
+			if (UDPExporter.log.isTraceEnabled()) UDPExporter.log.trace("exporting " + packet.getFlowsCount()
+			        + " flows in " + packet.getFlowType() + " packet to " + targets.size() + " addresses");
 
 			// encode packet
 			this.buf.clear();
 			packet.getFlowType().getCodec().encodePacket(packet, this.buf);
 			this.buf.flip();
 
-			// send to all addresses (throws IOException)
-			for (final SocketAddress addr : targets) {
-				this.channel.send(this.buf, addr);
-				this.buf.rewind();
+			// send to all addresses
+			this.send(this.buf, true);
+		}
+	}
+
+	/**
+	 * Send datagram to all destinations.
+	 * 
+	 * @see org.dicr.netflow.exporter.impl.AbstractExporter#exportDatagram(java.nio.ByteBuffer)
+	 */
+	@Override
+	protected void exportDatagram(final ByteBuffer datagram) throws IOException {
+		this.send(datagram, true);
+	}
+
+	/**
+	 * Queue encoded packet to all destinations. Packet is copied once to pooled direct buffer, which is shared by send
+	 * pipelines.
+	 * 
+	 * @param buffer buffer with encoded packet
+	 * @param wait wait for free space in queues of destinations, or drop packet for destination with full queue
+	 * @throws IOException error opening pipelines
+	 */
+	private void send(final ByteBuffer buffer, final boolean wait) throws IOException {
+		TargetSender[] array = this.targets;
+		if (array == null) {
+			this.open();
+			array = this.targets;
+		}
+		final DatagramPool.Datagram datagram = this.pool.acquire(buffer);
+		try {
+			for (final TargetSender target : array) {
+				if (!target.send(datagram, wait)) this.logDrop("queue of " + target.getTarget()
+				        + " is full, packet dropped");
 			}
+		} finally {
+			datagram.release();
 		}
+		this.sentCount.incrementAndGet();
 	}
 
 	/**
-	 * Close datagram channel.
+	 * Log drop not often than {@link #DROP_LOG_INTERVAL}
+	 * 
+	 * @param message message
+	 */
+	private void logDrop(final String message) {
+		final long now = System.currentTimeMillis();
+		final long last = this.dropLogTime.get();
+		if (now - last < UDPExporter.DROP_LOG_INTERVAL || !this.dropLogTime.compareAndSet(last, now)) {
+			this.suppressedDrops.incrementAndGet();
+			return;
+		}
+		final long suppressed = this.suppressedDrops.getAndSet(0);
+		UDPExporter.log.warn(message + (suppressed > 0 ? " (" + suppressed + " drops not logged)" : ""));
+	}
+
+	/**
+	 * Stop sender thread and wait while it send queued flows. Must be called under lock of sender.
+	 */
+	private void stopSender() {
+		if (this.sender == null) return;
+		this.sender.running = false;
+		try {
+			this.sender.join();
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		this.sender = null;
+		this.queue = null;
+	}
+
+	/**
+	 * Stop sender thread and send pipelines of destinations. Queued packets are sent before.
 	 */
 	public void close() {
-		synchronized (this.buf) {
-			if (this.channel != null) try {
-				this.channel.close();
-			} catch (final Exception ex) {
-				// NOP
+		synchronized (this.senderLock) {
+			this.stopSender();
+		}
+		synchronized (this.addresses) {
+			if (this.targets != null) {
+				for (final TargetSender target : this.targets) {
+					target.stop();
+				}
+				this.targets = null;
 			}
 		}
-		UDPExporter.log.info("datagram channel closed");
+		UDPExporter.log.info("datagram channels closed");
 	}
 
 	/**
@@ -177,4 +567,102 @@ public class UDPExporter extends AbstractExporter {
 		this.close();
 		super.finalize();
 	}
+
+	/**
+	 * Sender thread. Build packets from queued flows and send them until stopped, then send remaining flows.
+	 * <P>
+	 * Thread is stopped by flag instead of interrupt, so flows, queued before stop, are not lost.
+	 * </P>
+	 */
+	private final class SenderThread extends Thread {
+		/** Queue of flows */
+		private final BlockingQueue<Flow> flows;
+
+		/** Writer of flows to direct buffer */
+		private final PacketWriter packet = new PacketWriter(ByteBuffer.allocateDirect(65535));
+
+		/** Time to send not full packet */
+		private long deadline = 0;
+
+		/** Running flag */
+		volatile boolean running = true;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param aQueue queue of flows
+		 */
+		SenderThread(final BlockingQueue<Flow> aQueue) {
+			super();
+			this.flows = aQueue;
+			this.setName("NetFlow exporter sender");
+			this.setDaemon(true);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			UDPExporter.log.debug("started " + this.getName());
+			while (this.running) {
+				Flow flow = null;
+				final long wait = this.packet.getFlowsCount() == 0 ? UDPExporter.this.flushInterval : this.deadline
+				        - System.currentTimeMillis();
+				if (wait > 0) {
+					try {
+						flow = this.flows.poll(wait, TimeUnit.MILLISECONDS);
+					} catch (final InterruptedException ex) {
+						break;
+					}
+				}
+				if (flow != null) this.add(flow);
+				else if (this.packet.getFlowsCount() > 0 && System.currentTimeMillis() >= this.deadline) this.flush();
+			}
+			// send remaining flows
+			final List<Flow> remaining = new ArrayList<Flow>();
+			this.flows.drainTo(remaining);
+			for (final Flow flow : remaining) {
+				this.add(flow);
+			}
+			this.flush();
+			UDPExporter.log.debug("stopped " + this.getName());
+		}
+
+		/**
+		 * Encode flow to packet. Send packet when it is full.
+		 * 
+		 * @param flow flow to add
+		 */
+		private void add(final Flow flow) {
+			if (this.packet.getFlowsCount() > 0 && !this.packet.getFlowType().equals(flow.getFlowType())) this.flush();
+			if (this.packet.getFlowsCount() == 0) this.deadline = System.currentTimeMillis()
+			        + UDPExporter.this.flushInterval;
+			try {
+				this.packet.write(flow);
+			} catch (final CodecException ex) {
+				UDPExporter.log.error("error encoding flow", ex);
+			}
+			if (this.packet.isFull()) this.flush();
+		}
+
+		/**
+		 * Finish and send packet
+		 */
+		private void flush() {
+			if (this.packet.getFlowsCount() < 1) return;
+			if (UDPExporter.this.getAddresses().isEmpty()) {
+				UDPExporter.log.trace("no addresses configured to export to");
+				this.packet.reset();
+				return;
+			}
+			try {
+				UDPExporter.this.send(UDPExporter.this.finishPacket(this.packet), false);
+			} catch (final CodecException ex) {
+				UDPExporter.log.error("error exporting packet", ex);
+			} catch (final IOException ex) {
+				UDPExporter.log.error("error exporting packet", ex);
+			}
+		}
+	}
 }
@@ -0,0 +1,144 @@
+/**
+ * UDPExporterMBean.java 17.10.2026
+ */
+package org.dicr.netflow.exporter.impl;
+
+/**
+ * MBean interface of UDP NetFlow Exporter.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public interface UDPExporterMBean {
+
+	/**
+     * Set size of flows queue.
+     * <P>
+     * When size is more than 0, exported flows are queued without blocking and sent by separate thread. Flows are
+     * dropped when queue is full.
+     * </P>
+     *
+     * @param size capacity of queue in flows, 0 to export synchronously by calling thread
+     */
+	public void setQueueSize(int size);
+
+	/**
+     * Return size of flows queue.
+     *
+     * @return capacity of queue in flows, 0 if flows are exported synchronously
+     */
+	public int getQueueSize();
+
+	/**
+     * Set flush interval.
+     * <P>
+     * Packet, which is not full, is sent when first flow of it waited in sender thread this interval.
+     * </P>
+     *
+     * @param interval maximum latency of flow in milliseconds
+     */
+	public void setFlushInterval(long interval);
+
+	/**
+     * Return flush interval.
+     *
+     * @return maximum latency of flow in milliseconds
+     */
+	public long getFlushInterval();
+
+	/**
+     * Return depth of flows queue.
+     *
+     * @return count of flows, waiting in queue
+     */
+	public int getQueueDepth();
+
+	/**
+     * Return count of queued flows.
+     *
+     * @return count of flows, accepted to queue
+     */
+	public long getQueuedCount();
+
+	/**
+     * Return count of dropped flows.
+     *
+     * @return count of flows, dropped because queue was full
+     */
+	public long getDroppedCount();
+
+	/**
+     * Return count of sent packets.
+     *
+     * @return count of packets, queued to send pipelines of addresses
+     */
+	public long getSentCount();
+
+	/**
+     * Set size of destination queue.
+     * <P>
+     * Each destination address has own send pipeline with queue of encoded packets, so one unreachable destination
+     * does not delay other. Applied on next {@link #open() open}.
+     * </P>
+     *
+     * @param size capacity of queue of each destination in packets
+     */
+	public void setTargetQueueSize(int size);
+
+	/**
+     * Return size of destination queue.
+     *
+     * @return capacity of queue of each destination in packets
+     */
+	public int getTargetQueueSize();
+
+	/**
+     * Set maximum packets rate.
+     * <P>
+     * Packets to each destination are paced with token bucket, so bursts are spread in time.
+     * </P>
+     *
+     * @param rate packets per second to each destination, 0 to not limit
+     */
+	public void setPacketsRate(long rate);
+
+	/**
+     * Return maximum packets rate.
+     *
+     * @return packets per second to each destination, 0 if not limited
+     */
+	public long getPacketsRate();
+
+	/**
+     * Set maximum bytes rate.
+     *
+     * @param rate bytes per second to each destination, 0 to not limit
+     */
+	public void setBytesRate(long rate);
+
+	/**
+     * Return maximum bytes rate.
+     *
+     * @return bytes per second to each destination, 0 if not limited
+     */
+	public long getBytesRate();
+
+	/**
+     * Return statistics of destinations.
+     *
+     * @return lag, sent, dropped and failed packets, achieved rate and pacing delay of each destination
+     */
+	public String[] getTargetStatistics();
+
+	/**
+     * Open send pipelines of destinations.
+     *
+     * @throws java.io.IOException error opening pipelines
+     */
+	public void open() throws java.io.IOException;
+
+	/**
+     * Close channel and stop sender thread.
+     */
+	public void close();
+}
@@ -25,6 +25,15 @@ public class FlowV1 extends Flow {
 	/** Maximum value for protocol */
 	public static final int PROTO_MAX_VALUE = 0x0FF;
 
+	/** TCP protocol number */
+	public static final int PROTO_TCP = 6;
+
+	/** TCP FIN flag */
+	public static final byte TCP_FLAG_FIN = 0x01;
+
+	/** TCP RST flag */
+	public static final byte TCP_FLAG_RST = 0x04;
+
 	/** Source IP address */
 	private int srcAddr = 0;
 
@@ -278,6 +287,16 @@ public class FlowV1 extends Flow {
 		return this.tcpFlags;
 	}
 
+	/**
+     * TCP flow is finished when FIN or RST flag is seen.
+     *
+     * @see org.dicr.netflow.packet.Flow#isFinished()
+     */
+	@Override
+	public boolean isFinished() {
+		return this.proto == FlowV1.PROTO_TCP && (this.tcpFlags & (FlowV1.TCP_FLAG_FIN | FlowV1.TCP_FLAG_RST)) != 0;
+	}
+
 	/**
      * Convert flow to traffic element.
      *
@@ -301,26 +320,54 @@ public class FlowV1 extends Flow {
 	}
 
 	/**
+     * TCP flags are not part of flow key, so packets of TCP connection with different flags are merged to one flow and
+     * flags are accumulated. FIN or RST of merged flow make this flow {@link #isFinished() finished}.
+     *
      * @see org.dicr.netflow.packet.Flow#merge(org.dicr.netflow.packet.Flow)
      */
 	@Override
 	public boolean merge(Flow flow) {
-		if (flow == null) throw new IllegalArgumentException("null flow");
-		if (!(flow instanceof FlowV1)) return false;
+		if (!super.merge(flow)) return false;
+		this.tcpFlags |= ((FlowV1) flow).tcpFlags;
+		return true;
+	}
+
+	/**
+     * @see org.dicr.netflow.packet.Flow#keyEquals(org.dicr.netflow.packet.Flow)
+     */
+	@Override
+	public boolean keyEquals(Flow flow) {
+		if (!super.keyEquals(flow)) return false;
 		FlowV1 flow1 = (FlowV1) flow;
-		synchronized (this) {
-			if (this.dstAddr != flow1.dstAddr) return false;
-			if (this.dstPort != flow1.dstPort) return false;
-			if (this.ifInput != flow1.ifInput) return false;
-			if (this.ifOutput != flow1.ifOutput) return false;
-			if (this.nextHop != flow1.nextHop) return false;
-			if (this.proto != flow1.proto) return false;
-			if (this.srcAddr != flow1.srcAddr) return false;
-			if (this.srcPort != flow1.srcPort) return false;
-			if (this.tcpFlags != flow1.tcpFlags) return false;
-			if (this.tos != flow1.tos) return false;
-			return super.merge(flow1);
-		}
+		if (this.dstAddr != flow1.dstAddr) return false;
+		if (this.dstPort != flow1.dstPort) return false;
+		if (this.ifInput != flow1.ifInput) return false;
+		if (this.ifOutput != flow1.ifOutput) return false;
+		if (this.nextHop != flow1.nextHop) return false;
+		if (this.proto != flow1.proto) return false;
+		if (this.srcAddr != flow1.srcAddr) return false;
+		if (this.srcPort != flow1.srcPort) return false;
+		if (this.tos != flow1.tos) return false;
+		return true;
+	}
+
+	/**
+     * @see org.dicr.netflow.packet.Flow#keyHashCode()
+     */
+	@Override
+	public int keyHashCode() {
+		final int PRIME = 31;
+		int result = super.keyHashCode();
+		result = PRIME * result + this.dstAddr;
+		result = PRIME * result + this.dstPort;
+		result = PRIME * result + this.ifInput;
+		result = PRIME * result + this.ifOutput;
+		result = PRIME * result + this.nextHop;
+		result = PRIME * result + this.proto;
+		result = PRIME * result + this.srcAddr;
+		result = PRIME * result + this.srcPort;
+		result = PRIME * result + this.tos;
+		return result;
 	}
 
 	/**
@@ -92,6 +92,19 @@ public final class NetFlowCodecV1 extends NetFlowCodec {
 		return flow;
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#encodeFlow(org.dicr.netflow.packet.Flow, java.nio.ByteBuffer)
+	 */
+	@Override
+	public void encodeFlow(final Flow flow, final ByteBuffer buf) throws CodecException {
+		if (!(flow instanceof FlowV1)) throw new IllegalArgumentException("incorrect flow type: " + flow);
+		try {
+			NetFlowCodecV1.encodeFlow((FlowV1) flow, buf);
+		} catch (final BufferOverflowException ex) {
+			throw new CodecException("data buffer overflow", ex);
+		}
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#encode(org.dicr.netflow.packet.NetFlowPacket, java.nio.ByteBuffer)
 	 */
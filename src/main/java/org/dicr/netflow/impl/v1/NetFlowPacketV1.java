@@ -48,6 +48,7 @@ public class NetFlowPacketV1 extends NetFlowPacket {
      *
      * @return residual nanoseconds since 0000 UTC 1970
      */
+	@Override
 	public long getUnixNSecs() {
 		return this.unixNSecs;
 	}
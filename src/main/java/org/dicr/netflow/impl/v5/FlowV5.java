@@ -205,20 +205,31 @@ public class FlowV5 extends FlowV1 {
 	}
 
 	/**
-     * @see org.dicr.netflow.packet.Flow#merge(org.dicr.netflow.packet.Flow)
+     * @see org.dicr.netflow.packet.Flow#keyEquals(org.dicr.netflow.packet.Flow)
      */
 	@Override
-	public boolean merge(Flow flow) {
-		if (flow == null) throw new IllegalArgumentException("null flow");
-		if (!(flow instanceof FlowV5)) return false;
+	public boolean keyEquals(Flow flow) {
+		if (!super.keyEquals(flow)) return false;
 		FlowV5 flow5 = (FlowV5) flow;
-		synchronized (this) {
-			if (this.dstAs != flow5.dstAs) return false;
-			if (this.dstMask != flow5.dstMask) return false;
-			if (this.srcAs != flow5.srcAs) return false;
-			if (this.srcMask != flow5.srcMask) return false;
-			return super.merge(flow5);
-		}
+		if (this.dstAs != flow5.dstAs) return false;
+		if (this.dstMask != flow5.dstMask) return false;
+		if (this.srcAs != flow5.srcAs) return false;
+		if (this.srcMask != flow5.srcMask) return false;
+		return true;
+	}
+
+	/**
+     * @see org.dicr.netflow.packet.Flow#keyHashCode()
+     */
+	@Override
+	public int keyHashCode() {
+		final int PRIME = 31;
+		int result = super.keyHashCode();
+		result = PRIME * result + this.dstAs;
+		result = PRIME * result + this.dstMask;
+		result = PRIME * result + this.srcAs;
+		result = PRIME * result + this.srcMask;
+		return result;
 	}
 
 	/**
@@ -0,0 +1,294 @@
+/**
+ * FlowV5View.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v5;
+
+import java.nio.*;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+import org.dicr.util.net.*;
+
+/**
+ * Flyweight view of NetFlow V5 packet.
+ * <P>
+ * View read header and flow records fields directly from buffer with encoded packet, without creating
+ * {@link NetFlowPacketV5 packet} and {@link FlowV5 flow} objects. View is a cursor: {@link #wrap(ByteBuffer) wrap}
+ * buffer, then iterate records with {@link #next()} and read fields of current record. View object can be reused for
+ * many packets, so listeners, which only filter or aggregate flows, can process packets without allocations.
+ * </P>
+ * <P>
+ * View does not copy data, so buffer must not be changed while view is used. View is not thread-safe.
+ * </P>
+ *
+ * <PRE>
+ * final FlowV5View view = new FlowV5View();
+ * view.wrap(buf);
+ * while (view.next()) {
+ * 	total += view.getBytesCount();
+ * }
+ * </PRE>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public final class FlowV5View extends AbstractFlowView {
+	/** Size of packet header */
+	public static final int HEADER_SIZE = 24;
+
+	/** Size of flow record */
+	public static final int RECORD_SIZE = 48;
+
+	/**
+	 * Constructor
+	 */
+	public FlowV5View() {
+		super(FlowTypeV5.VERSION, FlowV5View.HEADER_SIZE, FlowV5View.RECORD_SIZE, FlowTypeV5.MAX_FLOWS_COUNT);
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.AbstractFlowView#wrap(java.nio.ByteBuffer)
+	 */
+	@Override
+	public FlowV5View wrap(final ByteBuffer buffer) throws CodecException {
+		super.wrap(buffer);
+		return this;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getFlowType()
+	 */
+	public FlowTypeV5 getFlowType() {
+		return FlowTypeV5.INSTANCE;
+	}
+
+	/**
+	 * Return EngineType of packet
+	 *
+	 * @return type of flow-switching engine
+	 */
+	public int getEngineType() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getPacketOffset() + 20));
+	}
+
+	/**
+	 * Return EngineId of packet
+	 *
+	 * @return slot number of the flow-switching engine
+	 */
+	public int getEngineId() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getPacketOffset() + 21));
+	}
+
+	/**
+	 * Return source address
+	 *
+	 * @return source IP address
+	 */
+	public int getSrcAddress() {
+		return this.getBuffer().getInt(this.getRecordOffset());
+	}
+
+	/**
+	 * Return destination address
+	 *
+	 * @return destination IP address
+	 */
+	public int getDstAddress() {
+		return this.getBuffer().getInt(this.getRecordOffset() + 4);
+	}
+
+	/**
+	 * Return next hop
+	 *
+	 * @return IP address of next hop router
+	 */
+	public int getNextHop() {
+		return this.getBuffer().getInt(this.getRecordOffset() + 8);
+	}
+
+	/**
+	 * Return input interface
+	 *
+	 * @return SNMP index of input interface
+	 */
+	public int getInInterface() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 12));
+	}
+
+	/**
+	 * Return output interface
+	 *
+	 * @return SNMP index of output interface
+	 */
+	public int getOutInterface() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 14));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getPacketsCount()
+	 */
+	public long getPacketsCount() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 16));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getBytesCount()
+	 */
+	public long getBytesCount() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 20));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getFirst()
+	 */
+	public long getFirst() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 24));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getLast()
+	 */
+	public long getLast() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 28));
+	}
+
+	/**
+	 * Return source port
+	 *
+	 * @return TCP/UDP source port number or equivalent
+	 */
+	public int getSrcPort() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 32));
+	}
+
+	/**
+	 * Return destination port
+	 *
+	 * @return TCP/UDP destination port number or equivalent
+	 */
+	public int getDstPort() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 34));
+	}
+
+	/**
+	 * Return TCP flags
+	 *
+	 * @return cumulative OR of TCP flags
+	 */
+	public byte getTcpFlags() {
+		return this.getBuffer().get(this.getRecordOffset() + 37);
+	}
+
+	/**
+	 * Return protocol
+	 *
+	 * @return IP protocol type
+	 */
+	public int getProto() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getRecordOffset() + 38));
+	}
+
+	/**
+	 * Return type of service
+	 *
+	 * @return IP type of service
+	 */
+	public byte getTos() {
+		return this.getBuffer().get(this.getRecordOffset() + 39);
+	}
+
+	/**
+	 * Return source AS
+	 *
+	 * @return autonomous system number of the source
+	 */
+	public int getSrcAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 40));
+	}
+
+	/**
+	 * Return destination AS
+	 *
+	 * @return autonomous system number of the destination
+	 */
+	public int getDstAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 42));
+	}
+
+	/**
+	 * Return source mask
+	 *
+	 * @return source address prefix mask
+	 * @see FlowV5#getSrcMask()
+	 */
+	public int getSrcMask() {
+		return Mask.bits2mask(this.getBuffer().get(this.getRecordOffset() + 44));
+	}
+
+	/**
+	 * Return destination mask
+	 *
+	 * @return destination address prefix mask
+	 * @see FlowV5#getDstMask()
+	 */
+	public int getDstMask() {
+		return Mask.bits2mask(this.getBuffer().get(this.getRecordOffset() + 45));
+	}
+
+	/**
+	 * Create flow object from current record.
+	 *
+	 * @return new flow with fields of current record
+	 * @throws CodecException if record contains incorrect data
+	 */
+	public FlowV5 toFlow() throws CodecException {
+		this.checkRecord();
+		final FlowV5 flow = new FlowV5();
+		try {
+			flow.setSrcAddress(this.getSrcAddress());
+			flow.setDstAddress(this.getDstAddress());
+			flow.setNextHop(this.getNextHop());
+			flow.setInInterface(this.getInInterface());
+			flow.setOutInterface(this.getOutInterface());
+			flow.setPacketsCount(this.getPacketsCount());
+			flow.setBytesCount(this.getBytesCount());
+			flow.setFirst(this.getFirst());
+			flow.setLast(this.getLast());
+			flow.setSrcPort(this.getSrcPort());
+			flow.setDstPort(this.getDstPort());
+			flow.setTcpFlags(this.getTcpFlags());
+			flow.setProtocol(this.getProto());
+			flow.setTos(this.getTos());
+			flow.setSrcAs(this.getSrcAs());
+			flow.setDstAs(this.getDstAs());
+			flow.setSrcMask(this.getSrcMask());
+			flow.setDstMask(this.getDstMask());
+		} catch (final IllegalArgumentException ex) {
+			throw new CodecException("incorrect data in buffer", ex);
+		}
+		return flow;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.AbstractFlowView#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		batch.getSrcAddress()[row] = this.getSrcAddress();
+		batch.getDstAddress()[row] = this.getDstAddress();
+		batch.getNextHop()[row] = this.getNextHop();
+		batch.getInInterface()[row] = this.getInInterface();
+		batch.getOutInterface()[row] = this.getOutInterface();
+		batch.getSrcPort()[row] = this.getSrcPort();
+		batch.getDstPort()[row] = this.getDstPort();
+		batch.getTcpFlags()[row] = this.getTcpFlags();
+		batch.getProto()[row] = this.getProto();
+		batch.getTos()[row] = this.getTos();
+		batch.getSrcAs()[row] = this.getSrcAs();
+		batch.getDstAs()[row] = this.getDstAs();
+		batch.getSrcMask()[row] = this.getMaskBits(44);
+		batch.getDstMask()[row] = this.getMaskBits(45);
+	}
+}
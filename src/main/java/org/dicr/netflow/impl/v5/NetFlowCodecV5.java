@@ -92,6 +92,19 @@ public final class NetFlowCodecV5 extends NetFlowCodec {
 		return flow;
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#encodeFlow(org.dicr.netflow.packet.Flow, java.nio.ByteBuffer)
+	 */
+	@Override
+	public void encodeFlow(final Flow flow, final ByteBuffer buf) throws CodecException {
+		if (!(flow instanceof FlowV5)) throw new IllegalArgumentException("incorrect flow type: " + flow);
+		try {
+			NetFlowCodecV5.encodeFlow((FlowV5) flow, buf);
+		} catch (final BufferOverflowException ex) {
+			throw new CodecException("data buffer overflow", ex);
+		}
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#encodePacket(org.dicr.netflow.packet.NetFlowPacket, java.nio.ByteBuffer)
 	 */
@@ -121,6 +134,14 @@ public final class NetFlowCodecV5 extends NetFlowCodec {
 		}
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#createView()
+	 */
+	@Override
+	public FlowV5View createView() {
+		return new FlowV5View();
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#decodePacket(java.nio.ByteBuffer)
 	 */
@@ -94,6 +94,19 @@ public final class NetFlowCodecV6 extends NetFlowCodec {
 		return flow;
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#encodeFlow(org.dicr.netflow.packet.Flow, java.nio.ByteBuffer)
+	 */
+	@Override
+	public void encodeFlow(final Flow flow, final ByteBuffer buf) throws CodecException {
+		if (!(flow instanceof FlowV6)) throw new IllegalArgumentException("incorrect flow type: " + flow);
+		try {
+			NetFlowCodecV6.encodeFlow((FlowV6) flow, buf);
+		} catch (final BufferOverflowException ex) {
+			throw new CodecException("data buffer overflow", ex);
+		}
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#encodePacket(org.dicr.netflow.packet.NetFlowPacket, java.nio.ByteBuffer)
 	 */
@@ -123,19 +123,29 @@ public class FlowV7 extends FlowV5 {
 	}
 
 	/**
-     * @see org.dicr.netflow.packet.Flow#merge(org.dicr.netflow.packet.Flow)
+     * @see org.dicr.netflow.packet.Flow#keyEquals(org.dicr.netflow.packet.Flow)
      */
 	@Override
-	public boolean merge(Flow flow) {
-		if (flow == null) throw new IllegalArgumentException("null flow");
-		if (!(flow instanceof FlowV7)) return false;
+	public boolean keyEquals(Flow flow) {
+		if (!super.keyEquals(flow)) return false;
 		FlowV7 flow7 = (FlowV7) flow;
-		synchronized (this) {
-			if (this.flags1 != flow7.flags1) return false;
-			if (this.flags2 != flow7.flags2) return false;
-			if (this.routerSc != flow7.routerSc) return false;
-			return super.merge(flow7);
-		}
+		if (this.flags1 != flow7.flags1) return false;
+		if (this.flags2 != flow7.flags2) return false;
+		if (this.routerSc != flow7.routerSc) return false;
+		return true;
+	}
+
+	/**
+     * @see org.dicr.netflow.packet.Flow#keyHashCode()
+     */
+	@Override
+	public int keyHashCode() {
+		final int PRIME = 31;
+		int result = super.keyHashCode();
+		result = PRIME * result + this.flags1;
+		result = PRIME * result + this.flags2;
+		result = PRIME * result + this.routerSc;
+		return result;
 	}
 
 	/**
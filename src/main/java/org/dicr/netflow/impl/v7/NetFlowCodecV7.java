@@ -89,6 +89,19 @@ public final class NetFlowCodecV7 extends NetFlowCodec {
 		return flow;
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#encodeFlow(org.dicr.netflow.packet.Flow, java.nio.ByteBuffer)
+	 */
+	@Override
+	public void encodeFlow(final Flow flow, final ByteBuffer buf) throws CodecException {
+		if (!(flow instanceof FlowV7)) throw new IllegalArgumentException("incorrect flow type: " + flow);
+		try {
+			NetFlowCodecV7.encodeFlow((FlowV7) flow, buf);
+		} catch (final BufferOverflowException ex) {
+			throw new CodecException("data buffer overflow", ex);
+		}
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#encodePacket(org.dicr.netflow.packet.NetFlowPacket, java.nio.ByteBuffer)
 	 */
@@ -116,6 +129,14 @@ public final class NetFlowCodecV7 extends NetFlowCodec {
 		}
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#createView()
+	 */
+	@Override
+	public FlowV7View createView() {
+		return new FlowV7View();
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#decodePacket(java.nio.ByteBuffer)
 	 */
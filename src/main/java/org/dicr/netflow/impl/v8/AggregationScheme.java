@@ -32,6 +32,11 @@ public enum AggregationScheme {
 			return FlowTypeV8.AS;
 		}
 
+		@Override
+		public FlowV8View_RouterAS createView() {
+			return new FlowV8View_RouterAS();
+		}
+
 	},
 
 	/**
@@ -53,6 +58,11 @@ public enum AggregationScheme {
 		public FlowTypeV8 getFlowType() {
 			return FlowTypeV8.PROTO_PORT;
 		}
+
+		@Override
+		public FlowV8View_RouterProtoPort createView() {
+			return new FlowV8View_RouterProtoPort();
+		}
 	},
 
 	/**
@@ -74,6 +84,11 @@ public enum AggregationScheme {
 		public FlowTypeV8 getFlowType() {
 			return FlowTypeV8.SRC_PREFIX;
 		}
+
+		@Override
+		public FlowV8View_RouterSrcPrefix createView() {
+			return new FlowV8View_RouterSrcPrefix();
+		}
 	},
 
 	/**
@@ -95,6 +110,11 @@ public enum AggregationScheme {
 		public FlowTypeV8 getFlowType() {
 			return FlowTypeV8.DST_PREFIX;
 		}
+
+		@Override
+		public FlowV8View_RouterDstPrefix createView() {
+			return new FlowV8View_RouterDstPrefix();
+		}
 	},
 
 	/**
@@ -102,8 +122,8 @@ public enum AggregationScheme {
      */
 	PREFIX(5, FlowV8_RouterPrefix.class) {
 		@Override
-		public FlowV8_RouterSrcPrefix createFlow() {
-			return new FlowV8_RouterSrcPrefix();
+		public FlowV8_RouterPrefix createFlow() {
+			return new FlowV8_RouterPrefix();
 		}
 
 		@Override
@@ -116,6 +136,11 @@ public enum AggregationScheme {
 		public FlowTypeV8 getFlowType() {
 			return FlowTypeV8.PREFIX;
 		}
+
+		@Override
+		public FlowV8View_RouterPrefix createView() {
+			return new FlowV8View_RouterPrefix();
+		}
 	};
 
 	/** Aggregation code */
@@ -200,4 +225,11 @@ public enum AggregationScheme {
      * @return flow type for this aggregation scheme
      */
 	public abstract FlowTypeV8 getFlowType();
+
+	/**
+     * Create view
+     *
+     * @return new flyweight view of packets with this aggregation scheme
+     */
+	public abstract FlowV8View createView();
 }
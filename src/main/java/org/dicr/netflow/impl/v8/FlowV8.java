@@ -86,11 +86,8 @@ public abstract class FlowV8 extends Flow {
 		if (flow == null) throw new IllegalArgumentException("null flow");
 		if (!(flow instanceof FlowV8)) return false;
 		final FlowV8 flow8 = (FlowV8) flow;
-		boolean aggregated = false;
-		synchronized (this) {
-			aggregated = super.merge(flow8);
-			if (aggregated) this.flowsAggregated++;
-		}
+		final boolean aggregated = super.merge(flow8);
+		if (aggregated) this.flowsAggregated++;
 		return aggregated;
 	}
 
@@ -0,0 +1,193 @@
+/**
+ * FlowV8View.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v8;
+
+import java.nio.*;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+
+/**
+ * Flyweight view of NetFlow V8 packet.
+ * <P>
+ * Base class of views of V8 packets with specific {@link AggregationScheme aggregation scheme}. View read header
+ * fields and fields of records, which are common for all aggregation schemes. Specific fields are provided by views of
+ * aggregation schemes. View for aggregation scheme is {@link AggregationScheme#createView() created} by scheme.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public abstract class FlowV8View extends AbstractFlowView {
+	/** Size of packet header */
+	public static final int HEADER_SIZE = 28;
+
+	/** Aggregation scheme */
+	private final AggregationScheme scheme;
+
+	/**
+	 * Constructor
+	 *
+	 * @param aScheme aggregation scheme of packets
+	 * @param recordSize size of flow record of aggregation scheme
+	 */
+	protected FlowV8View(final AggregationScheme aScheme, final int recordSize) {
+		super(FlowTypeV8.VERSION, FlowV8View.HEADER_SIZE, recordSize, FlowTypeV8.MAX_FLOWS_COUNT);
+		if (aScheme == null) throw new IllegalArgumentException("null scheme");
+		this.scheme = aScheme;
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.AbstractFlowView#wrap(java.nio.ByteBuffer)
+	 */
+	@Override
+	public FlowV8View wrap(final ByteBuffer buffer) throws CodecException {
+		super.wrap(buffer);
+		return this;
+	}
+
+	/**
+	 * Check aggregation scheme of packet.
+	 *
+	 * @see org.dicr.netflow.codec.AbstractFlowView#checkHeader()
+	 */
+	@Override
+	protected void checkHeader() throws CodecException {
+		final int aggCode = ByteUtils.unsigned(this.getBuffer().get(this.getPacketOffset() + 22));
+		if (aggCode != this.scheme.getAggregationCode()) throw new CodecException("aggregation code " + aggCode
+		        + " does not match required scheme: " + this.scheme);
+	}
+
+	/**
+	 * Return aggregation code of packet in buffer.
+	 *
+	 * @param buffer buffer with packet at current position
+	 * @return aggregation code
+	 * @throws CodecException if buffer is too short
+	 */
+	public static int getAggregationCode(final ByteBuffer buffer) throws CodecException {
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		if (buffer.remaining() < FlowV8View.HEADER_SIZE) throw new CodecException("short data buffer");
+		return ByteUtils.unsigned(buffer.get(buffer.position() + 22));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getFlowType()
+	 */
+	public FlowTypeV8 getFlowType() {
+		return this.scheme.getFlowType();
+	}
+
+	/**
+	 * Return aggregation scheme
+	 *
+	 * @return aggregation scheme of view
+	 */
+	public AggregationScheme getAggregationScheme() {
+		return this.scheme;
+	}
+
+	/**
+	 * Return EngineType of packet
+	 *
+	 * @return type of flow-switching engine
+	 */
+	public int getEngineType() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getPacketOffset() + 20));
+	}
+
+	/**
+	 * Return EngineId of packet
+	 *
+	 * @return slot number of the flow-switching engine
+	 */
+	public int getEngineId() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getPacketOffset() + 21));
+	}
+
+	/**
+	 * Return AggVersion of packet
+	 *
+	 * @return version of the aggregation export
+	 */
+	public int getAggregationVersion() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getPacketOffset() + 23));
+	}
+
+	/**
+	 * Return count of aggregated flows
+	 *
+	 * @return number of flows, aggregated in record
+	 */
+	public long getFlowsAggregated() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset()));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getPacketsCount()
+	 */
+	public long getPacketsCount() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 4));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getBytesCount()
+	 */
+	public long getBytesCount() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 8));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getFirst()
+	 */
+	public long getFirst() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 12));
+	}
+
+	/**
+	 * @see org.dicr.netflow.codec.FlowView#getLast()
+	 */
+	public long getLast() {
+		return ByteUtils.unsigned(this.getBuffer().getInt(this.getRecordOffset() + 16));
+	}
+
+	/**
+	 * Create flow object from current record.
+	 *
+	 * @see org.dicr.netflow.codec.FlowView#toFlow()
+	 */
+	public FlowV8 toFlow() throws CodecException {
+		this.checkRecord();
+		final FlowV8 flow = this.scheme.createFlow();
+		try {
+			flow.setFlowsAggregated(this.getFlowsAggregated());
+			flow.setPacketsCount(this.getPacketsCount());
+			flow.setBytesCount(this.getBytesCount());
+			flow.setFirst(this.getFirst());
+			flow.setLast(this.getLast());
+			this.initFlow(flow);
+		} catch (final IllegalArgumentException ex) {
+			throw new CodecException("incorrect data in buffer", ex);
+		}
+		return flow;
+	}
+
+	/**
+	 * Copy count of aggregated flows.
+	 * 
+	 * @see org.dicr.netflow.codec.AbstractFlowView#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		batch.getFlowsAggregated()[row] = this.getFlowsAggregated();
+	}
+
+	/**
+	 * Initialize specific fields of flow from current record.
+	 *
+	 * @param flow flow of aggregation scheme, created by {@link #toFlow()}
+	 */
+	protected abstract void initFlow(FlowV8 flow);
+}
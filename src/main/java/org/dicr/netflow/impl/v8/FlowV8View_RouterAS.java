@@ -0,0 +1,87 @@
+/**
+ * FlowV8View_RouterAS.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v8;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+
+/**
+ * Flyweight view of NetFlow V8 packet with AS aggregation scheme.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see FlowV8_RouterAS
+ */
+public class FlowV8View_RouterAS extends FlowV8View {
+	/** Size of flow record */
+	public static final int RECORD_SIZE = 28;
+
+	/**
+	 * Constructor
+	 */
+	public FlowV8View_RouterAS() {
+		super(AggregationScheme.AS, FlowV8View_RouterAS.RECORD_SIZE);
+	}
+
+	/**
+	 * Return source AS
+	 *
+	 * @return autonomous system number of the source
+	 */
+	public int getSrcAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 20));
+	}
+
+	/**
+	 * Return destination AS
+	 *
+	 * @return autonomous system number of the destination
+	 */
+	public int getDstAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 22));
+	}
+
+	/**
+	 * Return input interface
+	 *
+	 * @return SNMP index of input interface
+	 */
+	public int getInputInterface() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 24));
+	}
+
+	/**
+	 * Return output interface
+	 *
+	 * @return SNMP index of output interface
+	 */
+	public int getOutputInterface() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 26));
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#initFlow(org.dicr.netflow.impl.v8.FlowV8)
+	 */
+	@Override
+	protected void initFlow(final FlowV8 flow) {
+		final FlowV8_RouterAS flow8 = (FlowV8_RouterAS) flow;
+		flow8.setSrcAs(this.getSrcAs());
+		flow8.setDstAs(this.getDstAs());
+		flow8.setInputInterface(this.getInputInterface());
+		flow8.setOutputInterface(this.getOutputInterface());
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		super.copyRecord(batch, row);
+		batch.getSrcAs()[row] = this.getSrcAs();
+		batch.getDstAs()[row] = this.getDstAs();
+		batch.getInInterface()[row] = this.getInputInterface();
+		batch.getOutInterface()[row] = this.getOutputInterface();
+	}
+}
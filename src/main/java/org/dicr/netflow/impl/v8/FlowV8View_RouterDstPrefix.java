@@ -0,0 +1,88 @@
+/**
+ * FlowV8View_RouterDstPrefix.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v8;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+import org.dicr.util.net.*;
+
+/**
+ * Flyweight view of NetFlow V8 packet with DST_PREFIX aggregation scheme.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see FlowV8_RouterDstPrefix
+ */
+public class FlowV8View_RouterDstPrefix extends FlowV8View {
+	/** Size of flow record */
+	public static final int RECORD_SIZE = 32;
+
+	/**
+	 * Constructor
+	 */
+	public FlowV8View_RouterDstPrefix() {
+		super(AggregationScheme.DST_PREFIX, FlowV8View_RouterDstPrefix.RECORD_SIZE);
+	}
+
+	/**
+	 * Return destination prefix
+	 *
+	 * @return destination IP address prefix
+	 */
+	public int getDstPrefix() {
+		return this.getBuffer().getInt(this.getRecordOffset() + 20);
+	}
+
+	/**
+	 * Return destination mask
+	 *
+	 * @return destination address prefix mask
+	 */
+	public int getDstMask() {
+		return Mask.bits2mask(this.getBuffer().get(this.getRecordOffset() + 24));
+	}
+
+	/**
+	 * Return destination AS
+	 *
+	 * @return autonomous system number of the destination
+	 */
+	public int getDstAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 26));
+	}
+
+	/**
+	 * Return output interface
+	 *
+	 * @return SNMP index of output interface
+	 */
+	public int getIfOutput() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 28));
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#initFlow(org.dicr.netflow.impl.v8.FlowV8)
+	 */
+	@Override
+	protected void initFlow(final FlowV8 flow) {
+		final FlowV8_RouterDstPrefix flow8 = (FlowV8_RouterDstPrefix) flow;
+		flow8.setDstPrefix(this.getDstPrefix());
+		flow8.setDstMask(this.getDstMask());
+		flow8.setDstAs(this.getDstAs());
+		flow8.setIfOutput(this.getIfOutput());
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		super.copyRecord(batch, row);
+		batch.getDstAddress()[row] = this.getDstPrefix();
+		batch.getDstMask()[row] = this.getMaskBits(24);
+		batch.getDstAs()[row] = this.getDstAs();
+		batch.getOutInterface()[row] = this.getIfOutput();
+	}
+}
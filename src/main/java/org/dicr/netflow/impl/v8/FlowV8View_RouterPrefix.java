@@ -0,0 +1,132 @@
+/**
+ * FlowV8View_RouterPrefix.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v8;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+import org.dicr.util.net.*;
+
+/**
+ * Flyweight view of NetFlow V8 packet with PREFIX aggregation scheme.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see FlowV8_RouterPrefix
+ */
+public class FlowV8View_RouterPrefix extends FlowV8View {
+	/** Size of flow record */
+	public static final int RECORD_SIZE = 40;
+
+	/**
+	 * Constructor
+	 */
+	public FlowV8View_RouterPrefix() {
+		super(AggregationScheme.PREFIX, FlowV8View_RouterPrefix.RECORD_SIZE);
+	}
+
+	/**
+	 * Return source prefix
+	 *
+	 * @return source IP address prefix
+	 */
+	public int getSrcPrefix() {
+		return this.getBuffer().getInt(this.getRecordOffset() + 20);
+	}
+
+	/**
+	 * Return destination prefix
+	 *
+	 * @return destination IP address prefix
+	 */
+	public int getDstPrefix() {
+		return this.getBuffer().getInt(this.getRecordOffset() + 24);
+	}
+
+	/**
+	 * Return destination mask
+	 *
+	 * @return destination address prefix mask
+	 */
+	public int getDstMask() {
+		return Mask.bits2mask(this.getBuffer().get(this.getRecordOffset() + 28));
+	}
+
+	/**
+	 * Return source mask
+	 *
+	 * @return source address prefix mask
+	 */
+	public int getSrcMask() {
+		return Mask.bits2mask(this.getBuffer().get(this.getRecordOffset() + 29));
+	}
+
+	/**
+	 * Return source AS
+	 *
+	 * @return autonomous system number of the source
+	 */
+	public int getSrcAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 32));
+	}
+
+	/**
+	 * Return destination AS
+	 *
+	 * @return autonomous system number of the destination
+	 */
+	public int getDstAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 34));
+	}
+
+	/**
+	 * Return input interface
+	 *
+	 * @return SNMP index of input interface
+	 */
+	public int getIfInput() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 36));
+	}
+
+	/**
+	 * Return output interface
+	 *
+	 * @return SNMP index of output interface
+	 */
+	public int getIfOutput() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 38));
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#initFlow(org.dicr.netflow.impl.v8.FlowV8)
+	 */
+	@Override
+	protected void initFlow(final FlowV8 flow) {
+		final FlowV8_RouterPrefix flow8 = (FlowV8_RouterPrefix) flow;
+		flow8.setSrcPrefix(this.getSrcPrefix());
+		flow8.setDstPrefix(this.getDstPrefix());
+		flow8.setDstMask(this.getDstMask());
+		flow8.setSrcMask(this.getSrcMask());
+		flow8.setSrcAs(this.getSrcAs());
+		flow8.setDstAs(this.getDstAs());
+		flow8.setIfInput(this.getIfInput());
+		flow8.setIfOutput(this.getIfOutput());
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		super.copyRecord(batch, row);
+		batch.getSrcAddress()[row] = this.getSrcPrefix();
+		batch.getDstAddress()[row] = this.getDstPrefix();
+		batch.getDstMask()[row] = this.getMaskBits(28);
+		batch.getSrcMask()[row] = this.getMaskBits(29);
+		batch.getSrcAs()[row] = this.getSrcAs();
+		batch.getDstAs()[row] = this.getDstAs();
+		batch.getInInterface()[row] = this.getIfInput();
+		batch.getOutInterface()[row] = this.getIfOutput();
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * FlowV8View_RouterProtoPort.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v8;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+
+/**
+ * Flyweight view of NetFlow V8 packet with PROTO_PORT aggregation scheme.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see FlowV8_RouterProtoPort
+ */
+public class FlowV8View_RouterProtoPort extends FlowV8View {
+	/** Size of flow record */
+	public static final int RECORD_SIZE = 28;
+
+	/**
+	 * Constructor
+	 */
+	public FlowV8View_RouterProtoPort() {
+		super(AggregationScheme.PROTO_PORT, FlowV8View_RouterProtoPort.RECORD_SIZE);
+	}
+
+	/**
+	 * Return protocol
+	 *
+	 * @return IP protocol type
+	 */
+	public int getProto() {
+		return ByteUtils.unsigned(this.getBuffer().get(this.getRecordOffset() + 20));
+	}
+
+	/**
+	 * Return source port
+	 *
+	 * @return TCP/UDP source port number
+	 */
+	public int getSrcPort() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 24));
+	}
+
+	/**
+	 * Return destination port
+	 *
+	 * @return TCP/UDP destination port number
+	 */
+	public int getDstPort() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 26));
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#initFlow(org.dicr.netflow.impl.v8.FlowV8)
+	 */
+	@Override
+	protected void initFlow(final FlowV8 flow) {
+		final FlowV8_RouterProtoPort flow8 = (FlowV8_RouterProtoPort) flow;
+		flow8.setProto(this.getProto());
+		flow8.setSrcPort(this.getSrcPort());
+		flow8.setDstPort(this.getDstPort());
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		super.copyRecord(batch, row);
+		batch.getProto()[row] = this.getProto();
+		batch.getSrcPort()[row] = this.getSrcPort();
+		batch.getDstPort()[row] = this.getDstPort();
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * FlowV8View_RouterSrcPrefix.java 17.10.2026
+ */
+package org.dicr.netflow.impl.v8;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.util.data.*;
+import org.dicr.util.net.*;
+
+/**
+ * Flyweight view of NetFlow V8 packet with SRC_PREFIX aggregation scheme.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see FlowV8_RouterSrcPrefix
+ */
+public class FlowV8View_RouterSrcPrefix extends FlowV8View {
+	/** Size of flow record */
+	public static final int RECORD_SIZE = 32;
+
+	/**
+	 * Constructor
+	 */
+	public FlowV8View_RouterSrcPrefix() {
+		super(AggregationScheme.SRC_PREFIX, FlowV8View_RouterSrcPrefix.RECORD_SIZE);
+	}
+
+	/**
+	 * Return source prefix
+	 *
+	 * @return source IP address prefix
+	 */
+	public int getSrcPrefix() {
+		return this.getBuffer().getInt(this.getRecordOffset() + 20);
+	}
+
+	/**
+	 * Return source mask
+	 *
+	 * @return source address prefix mask
+	 */
+	public int getSrcMask() {
+		return Mask.bits2mask(this.getBuffer().get(this.getRecordOffset() + 24));
+	}
+
+	/**
+	 * Return source AS
+	 *
+	 * @return autonomous system number of the source
+	 */
+	public int getSrcAs() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 26));
+	}
+
+	/**
+	 * Return input interface
+	 *
+	 * @return SNMP index of input interface
+	 */
+	public int getIfInput() {
+		return ByteUtils.unsigned(this.getBuffer().getShort(this.getRecordOffset() + 28));
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#initFlow(org.dicr.netflow.impl.v8.FlowV8)
+	 */
+	@Override
+	protected void initFlow(final FlowV8 flow) {
+		final FlowV8_RouterSrcPrefix flow8 = (FlowV8_RouterSrcPrefix) flow;
+		flow8.setSrcPrefix(this.getSrcPrefix());
+		flow8.setSrcMask(this.getSrcMask());
+		flow8.setSrcAs(this.getSrcAs());
+		flow8.setIfInput(this.getIfInput());
+	}
+
+	/**
+	 * @see org.dicr.netflow.impl.v8.FlowV8View#copyRecord(org.dicr.netflow.packet.FlowBatch, int)
+	 */
+	@Override
+	protected void copyRecord(final FlowBatch batch, final int row) throws CodecException {
+		super.copyRecord(batch, row);
+		batch.getSrcAddress()[row] = this.getSrcPrefix();
+		batch.getSrcMask()[row] = this.getMaskBits(24);
+		batch.getSrcAs()[row] = this.getSrcAs();
+		batch.getInInterface()[row] = this.getIfInput();
+	}
+}
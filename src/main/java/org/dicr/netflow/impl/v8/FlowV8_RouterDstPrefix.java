@@ -155,20 +155,31 @@ public class FlowV8_RouterDstPrefix extends FlowV8 {
 	}
 
 	/**
-     * @see org.dicr.netflow.packet.Flow#merge(org.dicr.netflow.packet.Flow)
+     * @see org.dicr.netflow.packet.Flow#keyEquals(org.dicr.netflow.packet.Flow)
      */
 	@Override
-	public boolean merge(Flow flow) {
-		if (flow == null) throw new IllegalArgumentException("null flow");
-		if (!(flow instanceof FlowV8_RouterDstPrefix)) return false;
+	public boolean keyEquals(Flow flow) {
+		if (!super.keyEquals(flow)) return false;
 		FlowV8_RouterDstPrefix flow8 = (FlowV8_RouterDstPrefix) flow;
-		synchronized (this) {
-			if (this.dstAs != flow8.dstAs) return false;
-			if (this.dstMask != flow8.dstMask) return false;
-			if (this.dstPrefix != flow8.dstPrefix) return false;
-			if (this.ifOutput != flow8.ifOutput) return false;
-			return super.merge(flow8);
-		}
+		if (this.dstAs != flow8.dstAs) return false;
+		if (this.dstMask != flow8.dstMask) return false;
+		if (this.dstPrefix != flow8.dstPrefix) return false;
+		if (this.ifOutput != flow8.ifOutput) return false;
+		return true;
+	}
+
+	/**
+     * @see org.dicr.netflow.packet.Flow#keyHashCode()
+     */
+	@Override
+	public int keyHashCode() {
+		final int PRIME = 31;
+		int result = super.keyHashCode();
+		result = PRIME * result + this.dstAs;
+		result = PRIME * result + this.dstMask;
+		result = PRIME * result + this.dstPrefix;
+		result = PRIME * result + this.ifOutput;
+		return result;
 	}
 
 	/**
@@ -136,19 +136,29 @@ public class FlowV8_RouterProtoPort extends FlowV8 {
 	}
 
 	/**
-     * @see org.dicr.netflow.packet.Flow#merge(org.dicr.netflow.packet.Flow)
+     * @see org.dicr.netflow.packet.Flow#keyEquals(org.dicr.netflow.packet.Flow)
      */
 	@Override
-	public boolean merge(Flow flow) {
-		if (flow == null) throw new IllegalArgumentException("null flow");
-		if (!(flow instanceof FlowV8_RouterProtoPort)) return false;
+	public boolean keyEquals(Flow flow) {
+		if (!super.keyEquals(flow)) return false;
 		FlowV8_RouterProtoPort flow8 = (FlowV8_RouterProtoPort) flow;
-		synchronized (this) {
-			if (this.dstPort != flow8.dstPort) return false;
-			if (this.proto != flow8.proto) return false;
-			if (this.srcPort != flow8.srcPort) return false;
-			return super.merge(flow8);
-		}
+		if (this.dstPort != flow8.dstPort) return false;
+		if (this.proto != flow8.proto) return false;
+		if (this.srcPort != flow8.srcPort) return false;
+		return true;
+	}
+
+	/**
+     * @see org.dicr.netflow.packet.Flow#keyHashCode()
+     */
+	@Override
+	public int keyHashCode() {
+		final int PRIME = 31;
+		int result = super.keyHashCode();
+		result = PRIME * result + this.dstPort;
+		result = PRIME * result + this.proto;
+		result = PRIME * result + this.srcPort;
+		return result;
 	}
 
 	/**
@@ -22,6 +22,14 @@ public class NetFlowCodecV8 extends NetFlowCodec {
 	/** Singleton instance */
 	public static final NetFlowCodecV8 INSTANCE = new NetFlowCodecV8();
 
+	/** Views of decoding threads, indexed by ordinal of aggregation scheme */
+	private final ThreadLocal<FlowV8View[]> schemeViews = new ThreadLocal<FlowV8View[]>() {
+		@Override
+		protected FlowV8View[] initialValue() {
+			return new FlowV8View[AggregationScheme.values().length];
+		}
+	};
+
 	/** Hidden constructor */
 	private NetFlowCodecV8() {
 		super();
@@ -62,6 +70,20 @@ public class NetFlowCodecV8 extends NetFlowCodec {
 		}
 	}
 
+	/**
+	 * @see org.dicr.netflow.codec.NetFlowCodec#encodeFlow(org.dicr.netflow.packet.Flow, java.nio.ByteBuffer)
+	 */
+	@Override
+	public void encodeFlow(final Flow flow, final ByteBuffer buf) throws CodecException {
+		if (!(flow instanceof FlowV8)) throw new IllegalArgumentException("incorrect flow type: " + flow);
+		try {
+			final FlowV8 flow8 = (FlowV8) flow;
+			FlowV8Codec.byAggregationScheme(flow8.getAggregationScheme()).encodeFlow(flow8, buf);
+		} catch (final BufferOverflowException ex) {
+			throw new CodecException("data buffer overflow", ex);
+		}
+	}
+
 	/**
 	 * @see org.dicr.netflow.codec.NetFlowCodec#decodePacket(java.nio.ByteBuffer)
 	 */
@@ -105,6 +127,29 @@ public class NetFlowCodecV8 extends NetFlowCodec {
 		return packet;
 	}
 
+	/**
+	 * Return view by aggregation scheme of packet.
+	 * <P>
+	 * Record format of V8 packet depends on aggregation scheme, so view is selected by aggregation code of packet.
+	 * </P>
+	 * 
+	 * @see org.dicr.netflow.codec.NetFlowCodec#getView(java.nio.ByteBuffer)
+	 * @see AggregationScheme#createView()
+	 */
+	@Override
+	protected FlowV8View getView(final ByteBuffer buf) throws CodecException {
+		final int aggCode = FlowV8View.getAggregationCode(buf);
+		final AggregationScheme scheme = AggregationScheme.byAggregationCode(aggCode);
+		if (scheme == null) throw new CodecException("unknown aggregation scheme code: " + aggCode);
+		final FlowV8View[] views = this.schemeViews.get();
+		FlowV8View view = views[scheme.ordinal()];
+		if (view == null) {
+			view = scheme.createView();
+			views[scheme.ordinal()] = view;
+		}
+		return view;
+	}
+
 	/**
 	 * Flow codec
 	 */
@@ -0,0 +1,26 @@
+/**
+ * BatchListener.java 17.10.2026
+ */
+package org.dicr.netflow.packet;
+
+/**
+ * Flow batch listener.
+ * <P>
+ * Optional interface of {@link PacketListener}s, which process flows in {@link FlowBatch columns}. Packet sources fire
+ * batches instead of packets to such listeners, when packet version can be decoded to batch.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public interface BatchListener {
+	/**
+	 * Process batch of flows.
+	 * <P>
+	 * Batch is reused by source after call, so listener must not keep reference to it.
+	 * </P>
+	 * 
+	 * @param batch flows of received packet
+	 */
+	public void processBatch(FlowBatch batch);
+}
@@ -7,11 +7,17 @@ import org.dicr.traffic.source.*;
 
 /**
  * Abstract Flow.
+ * <P>
+ * Flows are not synchronized, so decoding and caching does not spend time in monitors of every flow. Flows of
+ * received packet are shared by all listeners of collector, which can run in different threads, so they must not be
+ * changed after decoding. Cache, which accumulate traffic, store {@link #copy() copy} of flow and
+ * {@link #merge(Flow) merge} other flows into it under the lock of cache.
+ * </P>
  *
  * @author Igor A Tarasov &lt;java@dicr.org&gt;
  * @version 060122
  */
-public abstract class Flow {
+public abstract class Flow implements Cloneable {
 	/**
      * Boot time of this flow router (in milliseconds)
      *
@@ -62,6 +68,19 @@ public abstract class Flow {
 		this.octets = element.getBytes();
 	}
 
+	/**
+     * Return copy of flow. All fields of flows are values, so copy is independent of this flow.
+     *
+     * @return new flow with the same fields
+     */
+	public Flow copy() {
+		try {
+			return (Flow) super.clone();
+		} catch (CloneNotSupportedException ex) {
+			throw new Error("BUG !!!", ex);
+		}
+	}
+
 	/**
      * Return flow type
      *
@@ -77,9 +96,7 @@ public abstract class Flow {
      */
 	public final void setPacketsCount(long count) {
 		if (count < 0 || count > MAX_PACKETS) throw new IllegalArgumentException("count: " + count);
-		synchronized (this) {
-			this.packets = count;
-		}
+		this.packets = count;
 	}
 
 	/**
@@ -88,9 +105,7 @@ public abstract class Flow {
      * @return Packets in the flow
      */
 	public final long getPacketsCount() {
-		synchronized (this) {
-			return this.packets;
-		}
+		return this.packets;
 	}
 
 	/**
@@ -101,9 +116,7 @@ public abstract class Flow {
      */
 	public void setBytesCount(long count) {
 		if (count < 0 || count > MAX_BYTES) { throw new IllegalArgumentException("count: " + count); }
-		synchronized (this) {
-			this.octets = count;
-		}
+		this.octets = count;
 	}
 
 	/**
@@ -112,9 +125,7 @@ public abstract class Flow {
      * @return octets count.
      */
 	public long getBytesCount() {
-		synchronized (this) {
-			return this.octets;
-		}
+		return this.octets;
 	}
 
 	/**
@@ -125,9 +136,7 @@ public abstract class Flow {
      */
 	public final void setFirst(long uptime) {
 		if (uptime < 0 || uptime > MAX_UPTIME) { throw new IllegalArgumentException("uptime: " + uptime); }
-		synchronized (this) {
-			this.first = uptime;
-		}
+		this.first = uptime;
 	}
 
 	/**
@@ -136,9 +145,7 @@ public abstract class Flow {
      * @return SysUptime at start of flow.
      */
 	public final long getFirst() {
-		synchronized (this) {
-			return this.first;
-		}
+		return this.first;
 	}
 
 	/**
@@ -149,9 +156,7 @@ public abstract class Flow {
      */
 	public final void setLast(long uptime) {
 		if (uptime < 0 || uptime > MAX_UPTIME) { throw new IllegalArgumentException("uptime: " + uptime); }
-		synchronized (this) {
-			this.last = uptime;
-		}
+		this.last = uptime;
 	}
 
 	/**
@@ -160,9 +165,7 @@ public abstract class Flow {
      * @return SysUptime at the time the last packet of the flow was received
      */
 	public final long getLast() {
-		synchronized (this) {
-			return this.last;
-		}
+		return this.last;
 	}
 
 	/**
@@ -181,23 +184,58 @@ public abstract class Flow {
 	}
 
 	/**
-     * Aggregate traffic of other flow if flow is equals. Implementations MUST override this method to test if can be
-     * merged
+     * Aggregate traffic of other flow if flow keys are {@link #keyEquals(Flow) equals}. Implementations MUST override
+     * {@link #keyEquals(Flow)} and {@link #keyHashCode()} to specify fields, identifying the flow.
      *
      * @param flow flow to aggregate
      * @return true if can aggregate (flows mutch) or false if can't
      */
 	public boolean merge(Flow flow) {
 		if (flow == null) throw new IllegalArgumentException("null flow");
-		if (this.getClass().equals(flow.getClass())) {
-			synchronized (this) {
-				this.packets += flow.getPacketsCount();
-				this.octets += flow.getBytesCount();
-				if (flow.getFirst() < this.first) this.first = flow.getFirst();
-				if (flow.getLast() > this.last) this.last = flow.getLast();
-			}
-			return true;
-		}
+		if (!this.keyEquals(flow)) return false;
+		this.packets += flow.getPacketsCount();
+		this.octets += flow.getBytesCount();
+		if (flow.getFirst() < this.first) this.first = flow.getFirst();
+		if (flow.getLast() > this.last) this.last = flow.getLast();
+		return true;
+	}
+
+	/**
+     * Check if flow key is equals to key of other flow.
+     * <P>
+     * Flow key is a set of fields, which identify the flow. Counters and timestamps is not a part of key. Flows with
+     * equal keys can be {@link #merge(Flow) merged} together.
+     * </P>
+     *
+     * @param flow flow to compare key with
+     * @return true if flows have the same key
+     * @see FlowKey
+     */
+	public boolean keyEquals(Flow flow) {
+		if (flow == null) return false;
+		return this.getClass().equals(flow.getClass());
+	}
+
+	/**
+     * Return hash code of flow key. Must be consistent with {@link #keyEquals(Flow)}.
+     *
+     * @return hash code of flow key fields
+     * @see FlowKey
+     */
+	public int keyHashCode() {
+		return this.getClass().hashCode();
+	}
+
+	/**
+     * Check if flow is finished.
+     * <P>
+     * Finished flow will not receive more traffic (for example TCP connection is closed), so cache can expire it
+     * immediately, without waiting for timeouts.
+     * </P>
+     *
+     * @return true if flow is finished
+     */
+	public boolean isFinished() {
 		return false;
 	}
 
@@ -0,0 +1,548 @@
+/**
+ * FlowBatch.java 17.10.2026
+ */
+package org.dicr.netflow.packet;
+
+import java.net.*;
+import java.util.*;
+
+/**
+ * Batch of flows in columns.
+ * <P>
+ * Batch store fields of flows in primitive arrays (columns), one element per flow (row), so consumers can process many
+ * flows in tight loops over arrays instead of calling methods of {@link Flow} objects. Codecs
+ * {@link org.dicr.netflow.codec.NetFlowCodec#decode(java.nio.ByteBuffer, FlowBatch) decode} packets directly to batch,
+ * and collectors fire batches to {@link BatchListener}s.
+ * </P>
+ * <P>
+ * All flows of batch are of the same {@link #getFlowType() flow type}. Columns, which are not present in flow type, are
+ * zero. Prefixes of version 8 flows are stored in address columns. Masks are stored as count of prefix bits (as in
+ * packet), not as netmask. Columns are returned without copy and can be longer than {@link #getFlowsCount() count of
+ * flows}: only first rows are valid. Columns are reallocated when batch grow, so get them after adding rows.
+ * </P>
+ * <P>
+ * Batch is not thread-safe and is reused by producers, so listeners must not keep reference to it.
+ * </P>
+ * <P>
+ * Collectors set {@link #getSourceAddress() address} of exporter and {@link #getReceiveTime() time} of receiving of
+ * packet, which flows are in batch.
+ * </P>
+ *
+ * <PRE>
+ * final long[] octets = batch.getBytesCount();
+ * for (int i = 0; i &lt; batch.getFlowsCount(); i++) {
+ * 	total += octets[i];
+ * }
+ * </PRE>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public final class FlowBatch {
+	/** Default capacity */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/** Type of flows */
+	private FlowType flowType = null;
+
+	/** Count of flows */
+	private int count = 0;
+
+	/** Capacity of columns */
+	private int capacity = 0;
+
+	/** Boot time of exporting router in milliseconds */
+	private long[] bootTime = null;
+
+	/** Count of aggregated flows */
+	private long[] flowsAggregated = null;
+
+	/** Packets in the flow */
+	private long[] packets = null;
+
+	/** Octets in the flow */
+	private long[] octets = null;
+
+	/** SysUptime at start of flow */
+	private long[] first = null;
+
+	/** SysUptime at the time the last packet of the flow was received */
+	private long[] last = null;
+
+	/** Source address or prefix */
+	private int[] srcAddress = null;
+
+	/** Destination address or prefix */
+	private int[] dstAddress = null;
+
+	/** Next hop address */
+	private int[] nextHop = null;
+
+	/** Input interface */
+	private int[] inInterface = null;
+
+	/** Output interface */
+	private int[] outInterface = null;
+
+	/** Source port */
+	private int[] srcPort = null;
+
+	/** Destination port */
+	private int[] dstPort = null;
+
+	/** IP protocol */
+	private int[] proto = null;
+
+	/** Source AS */
+	private int[] srcAs = null;
+
+	/** Destination AS */
+	private int[] dstAs = null;
+
+	/** Router shortcut address */
+	private int[] routerSc = null;
+
+	/** TCP flags */
+	private byte[] tcpFlags = null;
+
+	/** Type of service */
+	private byte[] tos = null;
+
+	/** Source mask bits */
+	private byte[] srcMask = null;
+
+	/** Destination mask bits */
+	private byte[] dstMask = null;
+
+	/** Flags1 of version 7 */
+	private byte[] flags1 = null;
+
+	/** Flags2 of version 7 */
+	private short[] flags2 = null;
+
+	/** Address of exporter of flows */
+	private SocketAddress sourceAddress = null;
+
+	/** Time of receiving of flows in nanoseconds of {@link System#nanoTime()} */
+	private long receiveTime = 0;
+
+	/**
+	 * Constructor
+	 */
+	public FlowBatch() {
+		this(FlowBatch.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param initialCapacity initial capacity of columns
+	 */
+	public FlowBatch(final int initialCapacity) {
+		super();
+		if (initialCapacity < 1) throw new IllegalArgumentException("capacity: " + initialCapacity);
+		this.resize(initialCapacity);
+	}
+
+	/**
+	 * Return flow type
+	 *
+	 * @return type of flows in batch or null if batch is empty
+	 */
+	public FlowType getFlowType() {
+		return this.flowType;
+	}
+
+	/**
+	 * Set source address
+	 *
+	 * @param address address of exporter of flows
+	 */
+	public void setSourceAddress(final SocketAddress address) {
+		this.sourceAddress = address;
+	}
+
+	/**
+	 * Return source address
+	 *
+	 * @return address of exporter of flows or null if unknown
+	 */
+	public SocketAddress getSourceAddress() {
+		return this.sourceAddress;
+	}
+
+	/**
+	 * Set receive time
+	 *
+	 * @param nanos time of receiving by {@link System#nanoTime()}
+	 */
+	public void setReceiveTime(final long nanos) {
+		this.receiveTime = nanos;
+	}
+
+	/**
+	 * Return receive time
+	 *
+	 * @return time of receiving by {@link System#nanoTime()} or 0 if unknown
+	 */
+	public long getReceiveTime() {
+		return this.receiveTime;
+	}
+
+	/**
+	 * Return count of flows
+	 *
+	 * @return count of rows in batch
+	 */
+	public int getFlowsCount() {
+		return this.count;
+	}
+
+	/**
+	 * Return capacity
+	 *
+	 * @return current length of columns
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Remove all flows. Columns are kept for reuse.
+	 */
+	public void clear() {
+		this.count = 0;
+		this.flowType = null;
+		this.sourceAddress = null;
+		this.receiveTime = 0;
+	}
+
+	/**
+	 * Remove last flows. Columns are kept for reuse.
+	 *
+	 * @param newCount count of flows to keep
+	 */
+	public void truncate(final int newCount) {
+		if (newCount < 0 || newCount > this.count) throw new IllegalArgumentException("count: " + newCount);
+		this.count = newCount;
+		if (newCount == 0) this.flowType = null;
+	}
+
+	/**
+	 * Ensure capacity of columns.
+	 *
+	 * @param minCapacity required capacity
+	 */
+	public void ensureCapacity(final int minCapacity) {
+		if (minCapacity <= this.capacity) return;
+		int newCapacity = this.capacity * 2;
+		if (newCapacity < minCapacity) newCapacity = minCapacity;
+		this.resize(newCapacity);
+	}
+
+	/**
+	 * Add row of flow. All columns of new row are zero.
+	 *
+	 * @param type type of adding flow, must be the same as type of flows in batch
+	 * @return index of added row
+	 */
+	public int add(final FlowType type) {
+		if (type == null) throw new IllegalArgumentException("null flow type");
+		if (this.count == 0) this.flowType = type;
+		else if (!this.flowType.equals(type)) throw new IllegalArgumentException("batch flow type '"
+		        + this.flowType + "' does not match adding flow type: " + type);
+		this.ensureCapacity(this.count + 1);
+		final int row = this.count++;
+		this.bootTime[row] = 0;
+		this.flowsAggregated[row] = 0;
+		this.packets[row] = 0;
+		this.octets[row] = 0;
+		this.first[row] = 0;
+		this.last[row] = 0;
+		this.srcAddress[row] = 0;
+		this.dstAddress[row] = 0;
+		this.nextHop[row] = 0;
+		this.inInterface[row] = 0;
+		this.outInterface[row] = 0;
+		this.srcPort[row] = 0;
+		this.dstPort[row] = 0;
+		this.proto[row] = 0;
+		this.srcAs[row] = 0;
+		this.dstAs[row] = 0;
+		this.routerSc[row] = 0;
+		this.tcpFlags[row] = 0;
+		this.tos[row] = 0;
+		this.srcMask[row] = 0;
+		this.dstMask[row] = 0;
+		this.flags1[row] = 0;
+		this.flags2[row] = 0;
+		return row;
+	}
+
+	/**
+	 * Return boot times
+	 *
+	 * @return column of router boot time in milliseconds since 0000 UTC 1970, to convert uptimes of flows
+	 */
+	public long[] getBootTime() {
+		return this.bootTime;
+	}
+
+	/**
+	 * Return counts of aggregated flows
+	 *
+	 * @return column of aggregated flows count (version 8)
+	 */
+	public long[] getFlowsAggregated() {
+		return this.flowsAggregated;
+	}
+
+	/**
+	 * Return packets counts
+	 *
+	 * @return column of packets count
+	 */
+	public long[] getPacketsCount() {
+		return this.packets;
+	}
+
+	/**
+	 * Return octets counts
+	 *
+	 * @return column of octets count
+	 */
+	public long[] getBytesCount() {
+		return this.octets;
+	}
+
+	/**
+	 * Return first packet uptimes
+	 *
+	 * @return column of SysUptime at start of flow
+	 */
+	public long[] getFirst() {
+		return this.first;
+	}
+
+	/**
+	 * Return last packet uptimes
+	 *
+	 * @return column of SysUptime at the time the last packet of the flow was received
+	 */
+	public long[] getLast() {
+		return this.last;
+	}
+
+	/**
+	 * Return source addresses
+	 *
+	 * @return column of source address or prefix
+	 */
+	public int[] getSrcAddress() {
+		return this.srcAddress;
+	}
+
+	/**
+	 * Return destination addresses
+	 *
+	 * @return column of destination address or prefix
+	 */
+	public int[] getDstAddress() {
+		return this.dstAddress;
+	}
+
+	/**
+	 * Return next hops
+	 *
+	 * @return column of next hop router address
+	 */
+	public int[] getNextHop() {
+		return this.nextHop;
+	}
+
+	/**
+	 * Return input interfaces
+	 *
+	 * @return column of SNMP index of input interface
+	 */
+	public int[] getInInterface() {
+		return this.inInterface;
+	}
+
+	/**
+	 * Return output interfaces
+	 *
+	 * @return column of SNMP index of output interface
+	 */
+	public int[] getOutInterface() {
+		return this.outInterface;
+	}
+
+	/**
+	 * Return source ports
+	 *
+	 * @return column of TCP/UDP source port
+	 */
+	public int[] getSrcPort() {
+		return this.srcPort;
+	}
+
+	/**
+	 * Return destination ports
+	 *
+	 * @return column of TCP/UDP destination port
+	 */
+	public int[] getDstPort() {
+		return this.dstPort;
+	}
+
+	/**
+	 * Return protocols
+	 *
+	 * @return column of IP protocol type
+	 */
+	public int[] getProto() {
+		return this.proto;
+	}
+
+	/**
+	 * Return source AS
+	 *
+	 * @return column of source autonomous system number
+	 */
+	public int[] getSrcAs() {
+		return this.srcAs;
+	}
+
+	/**
+	 * Return destination AS
+	 *
+	 * @return column of destination autonomous system number
+	 */
+	public int[] getDstAs() {
+		return this.dstAs;
+	}
+
+	/**
+	 * Return router shortcuts
+	 *
+	 * @return column of router shortcut address (version 7)
+	 */
+	public int[] getRouterSc() {
+		return this.routerSc;
+	}
+
+	/**
+	 * Return TCP flags
+	 *
+	 * @return column of cumulative OR of TCP flags
+	 */
+	public byte[] getTcpFlags() {
+		return this.tcpFlags;
+	}
+
+	/**
+	 * Return types of service
+	 *
+	 * @return column of IP type of service
+	 */
+	public byte[] getTos() {
+		return this.tos;
+	}
+
+	/**
+	 * Return source masks
+	 *
+	 * @return column of source prefix mask bits
+	 */
+	public byte[] getSrcMask() {
+		return this.srcMask;
+	}
+
+	/**
+	 * Return destination masks
+	 *
+	 * @return column of destination prefix mask bits
+	 */
+	public byte[] getDstMask() {
+		return this.dstMask;
+	}
+
+	/**
+	 * Return flags1
+	 *
+	 * @return column of flags1 (version 7)
+	 */
+	public byte[] getFlags1() {
+		return this.flags1;
+	}
+
+	/**
+	 * Return flags2
+	 *
+	 * @return column of flags2 (version 7)
+	 */
+	public short[] getFlags2() {
+		return this.flags2;
+	}
+
+	/**
+	 * Reallocate columns
+	 *
+	 * @param newCapacity new capacity
+	 */
+	private void resize(final int newCapacity) {
+		this.bootTime = FlowBatch.copy(this.bootTime, newCapacity);
+		this.flowsAggregated = FlowBatch.copy(this.flowsAggregated, newCapacity);
+		this.packets = FlowBatch.copy(this.packets, newCapacity);
+		this.octets = FlowBatch.copy(this.octets, newCapacity);
+		this.first = FlowBatch.copy(this.first, newCapacity);
+		this.last = FlowBatch.copy(this.last, newCapacity);
+		this.srcAddress = FlowBatch.copy(this.srcAddress, newCapacity);
+		this.dstAddress = FlowBatch.copy(this.dstAddress, newCapacity);
+		this.nextHop = FlowBatch.copy(this.nextHop, newCapacity);
+		this.inInterface = FlowBatch.copy(this.inInterface, newCapacity);
+		this.outInterface = FlowBatch.copy(this.outInterface, newCapacity);
+		this.srcPort = FlowBatch.copy(this.srcPort, newCapacity);
+		this.dstPort = FlowBatch.copy(this.dstPort, newCapacity);
+		this.proto = FlowBatch.copy(this.proto, newCapacity);
+		this.srcAs = FlowBatch.copy(this.srcAs, newCapacity);
+		this.dstAs = FlowBatch.copy(this.dstAs, newCapacity);
+		this.routerSc = FlowBatch.copy(this.routerSc, newCapacity);
+		this.tcpFlags = FlowBatch.copy(this.tcpFlags, newCapacity);
+		this.tos = FlowBatch.copy(this.tos, newCapacity);
+		this.srcMask = FlowBatch.copy(this.srcMask, newCapacity);
+		this.dstMask = FlowBatch.copy(this.dstMask, newCapacity);
+		this.flags1 = FlowBatch.copy(this.flags1, newCapacity);
+		this.flags2 = FlowBatch.copy(this.flags2, newCapacity);
+		this.capacity = newCapacity;
+	}
+
+	/** Copy column */
+	private static long[] copy(final long[] column, final int length) {
+		return column != null ? Arrays.copyOf(column, length) : new long[length];
+	}
+
+	/** Copy column */
+	private static int[] copy(final int[] column, final int length) {
+		return column != null ? Arrays.copyOf(column, length) : new int[length];
+	}
+
+	/** Copy column */
+	private static short[] copy(final short[] column, final int length) {
+		return column != null ? Arrays.copyOf(column, length) : new short[length];
+	}
+
+	/** Copy column */
+	private static byte[] copy(final byte[] column, final int length) {
+		return column != null ? Arrays.copyOf(column, length) : new byte[length];
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName() + "{type=" + this.flowType + ", flows=" + this.count + "}";
+	}
+}
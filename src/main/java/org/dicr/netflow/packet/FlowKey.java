@@ -0,0 +1,75 @@
+/**
+ * FlowKey.java 17.10.2026
+ */
+package org.dicr.netflow.packet;
+
+/**
+ * Flow Key.
+ * <P>
+ * Identify flow by its {@link Flow#keyEquals(Flow) key fields}, excluding counters and timestamps. Flows with equal
+ * keys can be {@link Flow#merge(Flow) merged} together, so key can be used to index flows in hash tables.
+ * </P>
+ * <P>
+ * Key hash code is calculated once on key creation, so key fields of flow must not be changed while key is in use.
+ * </P>
+ * 
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ * @see FlowType#getFlowKey(Flow)
+ */
+public final class FlowKey {
+	/** Flow */
+	private final Flow flow;
+
+	/** Hash code of flow key */
+	private final int hash;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param keyFlow flow, which key fields used
+	 */
+	public FlowKey(final Flow keyFlow) {
+		super();
+		if (keyFlow == null) throw new IllegalArgumentException("null flow");
+		this.flow = keyFlow;
+		this.hash = keyFlow.keyHashCode();
+	}
+
+	/**
+	 * Return flow
+	 * 
+	 * @return flow, which key fields used
+	 */
+	public Flow getFlow() {
+		return this.flow;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof FlowKey)) return false;
+		final FlowKey other = (FlowKey) obj;
+		if (this.hash != other.hash) return false;
+		return this.flow.keyEquals(other.flow);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return this.getClass().getSimpleName() + "{hash=" + this.hash + ", flow=" + this.flow + "}";
+	}
+}
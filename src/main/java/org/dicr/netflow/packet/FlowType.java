@@ -117,6 +117,21 @@ public abstract class FlowType {
 	 */
 	public abstract Flow createFlow(TrafficElement traffic);
 
+	/**
+	 * Return flow key.
+	 * <P>
+	 * Key identify flow by fields, which are compared on {@link Flow#merge(Flow) merge}, and exclude counters and
+	 * timestamps. Flows with equal keys can be merged together, so caches use keys to find flow in O(1).
+	 * </P>
+	 * 
+	 * @param flow flow of this type
+	 * @return key of flow
+	 */
+	public FlowKey getFlowKey(Flow flow) {
+		if (flow == null) throw new IllegalArgumentException("null flow");
+		return new FlowKey(flow);
+	}
+
 	/**
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
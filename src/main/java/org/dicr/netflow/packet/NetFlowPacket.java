@@ -1,5 +1,6 @@
 package org.dicr.netflow.packet;
 
+import java.net.*;
 import java.util.*;
 
 import org.dicr.netflow.exc.*;
@@ -7,6 +8,10 @@ import org.dicr.traffic.source.*;
 
 /**
  * Abstract NetFlow Packet.
+ * <P>
+ * Besides header and flows, received packet carry {@link #getSourceAddress() address} of exporter,
+ * {@link #getReceiveTime() time} of receiving and {@link #getClock() clock} of router, which are set by collector.
+ * </P>
  * 
  * @author Igor A Tarasov &lt;java@dicr.org&gt;
  * @version 060123
@@ -27,6 +32,15 @@ public abstract class NetFlowPacket {
 	/** Flows */
 	private final Collection<Flow> flows = new ArrayList<Flow>();
 
+	/** Address of exporter, which sent received packet */
+	private SocketAddress sourceAddress = null;
+
+	/** Time of receiving in nanoseconds of {@link System#nanoTime()} */
+	private long receiveTime = 0;
+
+	/** Clock of router, which sent packet */
+	private RouterClock clock = null;
+
 	/**
 	 * Constructor
 	 */
@@ -82,6 +96,70 @@ public abstract class NetFlowPacket {
 		return this.unixSecs;
 	}
 
+	/**
+	 * Set source address.
+	 * 
+	 * @param address address of exporter, which sent packet
+	 */
+	public void setSourceAddress(final SocketAddress address) {
+		this.sourceAddress = address;
+	}
+
+	/**
+	 * Return source address.
+	 * 
+	 * @return address of exporter, which sent packet, or null if packet was not received
+	 */
+	public SocketAddress getSourceAddress() {
+		return this.sourceAddress;
+	}
+
+	/**
+	 * Set receive time.
+	 * 
+	 * @param nanos time of receiving by {@link System#nanoTime()}
+	 */
+	public void setReceiveTime(final long nanos) {
+		this.receiveTime = nanos;
+	}
+
+	/**
+	 * Return receive time. Time is monotonic, so it can be compared only with {@link System#nanoTime()} of the same
+	 * JVM, for example to measure latency of processing.
+	 * 
+	 * @return time of receiving by {@link System#nanoTime()}, 0 if packet was not received
+	 */
+	public long getReceiveTime() {
+		return this.receiveTime;
+	}
+
+	/**
+	 * Set clock.
+	 * 
+	 * @param routerClock clock of router, which sent packet, updated by this packet
+	 */
+	public void setClock(final RouterClock routerClock) {
+		this.clock = routerClock;
+	}
+
+	/**
+	 * Return clock.
+	 * 
+	 * @return clock of router, which sent packet, or null if not known
+	 */
+	public RouterClock getClock() {
+		return this.clock;
+	}
+
+	/**
+	 * Return UnixNSecs.
+	 * 
+	 * @return residual nanoseconds since 0000 UTC 1970 or 0 if not supported by version
+	 */
+	public long getUnixNSecs() {
+		return 0;
+	}
+
 	/**
 	 * Return flows count.
 	 * 
@@ -123,15 +201,23 @@ public abstract class NetFlowPacket {
 	}
 
 	/**
-	 * Convert to traffic
+	 * Convert to traffic.
+	 * <P>
+	 * Uptimes of flows are converted by {@link #getClock() clock} of router or, if packet has no clock, by header of
+	 * this packet.
+	 * </P>
 	 * 
 	 * @return collection of traffic elements from this packet
 	 */
 	public Collection<TrafficElement> toTraffic() {
-		final Collection<TrafficElement> traffic = new ArrayList<TrafficElement>();
-		final long bootTime = this.unixSecs * 1000 - this.sysUptime;
+		RouterClock routerClock = this.clock;
+		if (routerClock == null) {
+			routerClock = new RouterClock();
+			routerClock.update(this.sysUptime, this.unixSecs, this.getUnixNSecs());
+		}
+		final Collection<TrafficElement> traffic = new ArrayList<TrafficElement>(this.flows.size());
 		for (final Flow flow : this.flows) {
-			traffic.add(flow.toTrafficElement(bootTime));
+			traffic.add(flow.toTrafficElement(routerClock.toTime(flow.getLast()) - flow.getLast()));
 		}
 		return traffic;
 	}
@@ -0,0 +1,172 @@
+/**
+ * RouterClock.java 17.10.2026
+ */
+package org.dicr.netflow.packet;
+
+/**
+ * Clock model of router.
+ * <P>
+ * Times of flows are uptimes of router: 32-bit counters of milliseconds since boot, which wrap every ~49.7 days. Clock
+ * is {@link #update(long, long, long) updated} by headers of packets of router (SysUptime, UnixSecs and UnixNSecs) and
+ * track time of router boot, so uptimes of flows can be {@link #toTime(long) converted} to time since 0000 UTC 1970 by
+ * addition.
+ * </P>
+ * <P>
+ * Uptime is unwrapped by signed 32-bit distance from uptime of last packet, so wrap of uptime between packets or
+ * between flow and header of packet does not break conversion, and packets reordered in network does not move clock
+ * back. Boot time is smoothed by exponential moving average, because UnixSecs and SysUptime of router are sampled with
+ * jitter. When boot time of packet differ from estimation more than {@link #RESET_TOLERANCE}, clock is reset: router
+ * was rebooted, its clock was stepped, or packets was not received so long, that distance of uptime is ambiguous.
+ * </P>
+ * <P>
+ * Clock is thread-safe. Bulk {@link #toBootTimes(long[], long[], int) conversion} lock clock once for all flows.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class RouterClock {
+	/** Difference of boot time in milliseconds, after which clock is reset */
+	public static final long RESET_TOLERANCE = 5000;
+
+	/** Weight of new sample of boot time as power of 2: estimation move by 1/8 of difference */
+	private static final int SMOOTHING_SHIFT = 3;
+
+	/** Count of updates */
+	private long updatesCount = 0;
+
+	/** Uptime of reference packet as received (32-bit) */
+	private long refUptime = 0;
+
+	/** Unwrapped uptime of reference packet in milliseconds */
+	private long refAbsUptime = 0;
+
+	/** Estimation of boot time in microseconds since 0000 UTC 1970 */
+	private long bootMicros = 0;
+
+	/** Count of uptime wraps since last reset */
+	private long wrapsCount = 0;
+
+	/** Count of resets */
+	private long resetsCount = 0;
+
+	/**
+	 * Constructor
+	 */
+	public RouterClock() {
+		super();
+	}
+
+	/**
+	 * Update clock by header of packet.
+	 *
+	 * @param sysUptime SysUptime of packet in milliseconds since boot of router
+	 * @param unixSecs UnixSecs of packet
+	 * @param unixNSecs UnixNSecs of packet, residual nanoseconds or 0 if not supported by version
+	 */
+	public synchronized void update(final long sysUptime, final long unixSecs, final long unixNSecs) {
+		final long uptime = sysUptime & NetFlowPacket.UPTIME_VALUE_MAX;
+		final long unixMicros = unixSecs * 1000000 + (unixNSecs >= 0 && unixNSecs < 1000000000 ? unixNSecs / 1000 : 0);
+		final int delta = (int) (uptime - this.refUptime);
+		final long absUptime = this.refAbsUptime + delta;
+		final long sample = unixMicros - absUptime * 1000;
+		if (this.updatesCount == 0 || absUptime < 0
+		        || Math.abs(sample - this.bootMicros) > RouterClock.RESET_TOLERANCE * 1000) {
+			// first packet, reboot, step of clock or long silence
+			if (this.updatesCount > 0) this.resetsCount++;
+			this.refUptime = uptime;
+			this.refAbsUptime = uptime;
+			this.bootMicros = unixMicros - uptime * 1000;
+			this.wrapsCount = 0;
+		} else {
+			this.bootMicros += sample - this.bootMicros >> RouterClock.SMOOTHING_SHIFT;
+			// reordered packet does not move reference back
+			if (delta > 0) {
+				if (uptime < this.refUptime) this.wrapsCount++;
+				this.refUptime = uptime;
+				this.refAbsUptime = absUptime;
+			}
+		}
+		this.updatesCount++;
+	}
+
+	/**
+	 * Convert uptime of router to time.
+	 *
+	 * @param uptime 32-bit uptime of router, close to uptime of last packets
+	 * @return time in milliseconds since 0000 UTC 1970
+	 */
+	public synchronized long toTime(final long uptime) {
+		return this.bootMicros / 1000 + this.refAbsUptime + (int) (uptime - this.refUptime);
+	}
+
+	/**
+	 * Convert uptimes to boot times. Boot time of each uptime is time of router boot, adjusted by uptime wraps, so
+	 * <CODE>bootTimes[i] + uptimes[i]</CODE> is time of uptime since 0000 UTC 1970, as in
+	 * {@link FlowBatch#getBootTime() batch}.
+	 *
+	 * @param uptimes 32-bit uptimes of router
+	 * @param bootTimes array to store boot times, can be the same as uptimes
+	 * @param count count of uptimes to convert
+	 */
+	public void toBootTimes(final long[] uptimes, final long[] bootTimes, final int count) {
+		if (uptimes == null || bootTimes == null) throw new IllegalArgumentException("null array");
+		if (count < 0 || count > uptimes.length || count > bootTimes.length) throw new IllegalArgumentException(
+		        "count: " + count);
+		final long base;
+		final long ref;
+		synchronized (this) {
+			base = this.bootMicros / 1000 + this.refAbsUptime;
+			ref = this.refUptime;
+		}
+		for (int i = 0; i < count; i++) {
+			final long uptime = uptimes[i];
+			bootTimes[i] = base + (int) (uptime - ref) - uptime;
+		}
+	}
+
+	/**
+	 * Return boot time
+	 *
+	 * @return estimated time of router boot in milliseconds since 0000 UTC 1970, adjusted by uptime wraps
+	 */
+	public synchronized long getBootTime() {
+		return this.bootMicros / 1000 + this.refAbsUptime - this.refUptime;
+	}
+
+	/**
+	 * Return count of updates
+	 *
+	 * @return count of packets, which updated clock
+	 */
+	public synchronized long getUpdatesCount() {
+		return this.updatesCount;
+	}
+
+	/**
+	 * Return count of wraps
+	 *
+	 * @return count of 32-bit uptime wraps since last reset
+	 */
+	public synchronized long getWrapsCount() {
+		return this.wrapsCount;
+	}
+
+	/**
+	 * Return count of resets
+	 *
+	 * @return count of reboots, steps of router clock and long silences
+	 */
+	public synchronized long getResetsCount() {
+		return this.resetsCount;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "boot=" + this.getBootTime() + ", uptime=" + this.refAbsUptime + ", updates=" + this.updatesCount
+		        + ", wraps=" + this.wrapsCount + ", resets=" + this.resetsCount;
+	}
+}
@@ -0,0 +1,192 @@
+/**
+ * PackedFlowCacheTest.java 17.10.2026
+ */
+package org.dicr.netflow.cache.impl;
+
+import java.util.*;
+
+import org.dicr.netflow.impl.v1.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.netflow.test.*;
+
+/**
+ * Packed flow cache table test.
+ * <P>
+ * Check open addressing table of {@link PackedFlowCache} with minimal capacity of 16 records: insert of flows with the
+ * same home index, which cluster wrap from the last index of table to the first, merge of flow in the cluster, and
+ * delete of flows from head and middle of cluster, after which following records must be shifted back and still be
+ * found by their keys. Flows are deleted by merge of FIN record and expiration at uptime of {@link CacheFixture
+ * fixture}.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class PackedFlowCacheTest {
+	/** Capacity of table */
+	private static final int CAPACITY = 16;
+
+	/** Constructor */
+	public PackedFlowCacheTest() {
+		super();
+	}
+
+	/** Fixture, which uptime drive expiration */
+	private final CacheFixture fixture = new CacheFixture();
+
+	/** Table under test */
+	private final PackedFlowCache cache = new PackedFlowCache(FlowTypeV5.INSTANCE);
+
+	/**
+	 * Create TCP flow with one packet at uptime of fixture
+	 *
+	 * @param port source port, which identify flow
+	 * @param flags TCP flags
+	 * @return flow
+	 */
+	private FlowV5 createFlow(final int port, final byte flags) {
+		final long uptime = this.fixture.getUptime();
+		return CacheFixture.createFlow(port, flags, 1, uptime, uptime);
+	}
+
+	/**
+	 * Find source port of flow with home index of record
+	 *
+	 * @param probe empty cache to probe home indexes
+	 * @param home home index of flow
+	 * @param skip ports to skip
+	 * @return source port
+	 */
+	private int findPort(final PackedFlowCache probe, final int home, final Collection<Integer> skip) {
+		for (int port = 1; port < 0x10000; port++) {
+			if (skip.contains(Integer.valueOf(port))) continue;
+			final FlowV5 flow = this.createFlow(port, (byte) 0);
+			probe.accumulate(flow);
+			final int index = probe.indexOf(flow);
+			probe.clear();
+			if (index == home) {
+				skip.add(Integer.valueOf(port));
+				return port;
+			}
+		}
+		throw new AssertionError("no port with home index " + home);
+	}
+
+	/**
+	 * Accumulate flow with one packet
+	 *
+	 * @param port source port of flow
+	 */
+	private void accumulate(final int port) {
+		this.cache.accumulate(this.createFlow(port, (byte) 0));
+	}
+
+	/**
+	 * Check index of flow record
+	 *
+	 * @param name name of flow
+	 * @param port source port of flow
+	 * @param index expected index
+	 */
+	private void checkIndex(final String name, final int port, final int index) {
+		final int actual = this.cache.indexOf(this.createFlow(port, (byte) 0));
+		if (actual != index) throw new AssertionError("flow " + name + " at index " + actual + ", expected " + index);
+	}
+
+	/**
+	 * Check packets count of flows in cache
+	 *
+	 * @param expected packets count by source port
+	 */
+	private void checkContent(final Map<Integer, Long> expected) {
+		final Map<Integer, Long> actual = new HashMap<Integer, Long>();
+		for (final Flow flow : this.cache.getContent()) {
+			actual.put(Integer.valueOf(((FlowV5) flow).getSrcPort()), Long.valueOf(flow.getPacketsCount()));
+		}
+		if (!actual.equals(expected)) throw new AssertionError("content " + actual + ", expected " + expected);
+		if (this.cache.getFlowsCount() != expected.size()) throw new AssertionError("flows count "
+		        + this.cache.getFlowsCount() + ", expected " + expected.size());
+	}
+
+	/**
+	 * Finish flow and expire it
+	 *
+	 * @param port source port of flow
+	 */
+	private void delete(final int port) {
+		this.cache.accumulate(this.createFlow(port, FlowV1.TCP_FLAG_FIN));
+		this.fixture.advance(CacheFixture.EXPIRE_DELAY);
+		final Collection<Flow> expired = this.fixture.expire(this.cache);
+		if (expired.size() != 1 || ((FlowV5) expired.iterator().next()).getSrcPort() != port) throw new AssertionError(
+		        "expired " + expired + ", expected flow with port " + port);
+	}
+
+	/**
+	 * Run test
+	 */
+	private void run() {
+		final int last = PackedFlowCacheTest.CAPACITY - 1;
+		final PackedFlowCache probe = new PackedFlowCache(FlowTypeV5.INSTANCE);
+		final Collection<Integer> ports = new HashSet<Integer>();
+		final int a = this.findPort(probe, last, ports);
+		final int b = this.findPort(probe, last, ports);
+		final int c = this.findPort(probe, last, ports);
+		final int d = this.findPort(probe, 0, ports);
+
+		// insert: cluster of A, B, C wrap to the start of table, D is displaced by it
+		final Map<Integer, Long> expected = new HashMap<Integer, Long>();
+		for (final int port : new int[] { a, b, c, d }) {
+			this.accumulate(port);
+			expected.put(Integer.valueOf(port), Long.valueOf(1));
+		}
+		if (this.cache.getCapacity() != PackedFlowCacheTest.CAPACITY) throw new AssertionError("capacity "
+		        + this.cache.getCapacity());
+		this.checkIndex("A", a, last);
+		this.checkIndex("B", b, 0);
+		this.checkIndex("C", c, 1);
+		this.checkIndex("D", d, 2);
+		this.checkContent(expected);
+		System.out.println("insert: OK");
+
+		// merge in wrapped cluster
+		this.accumulate(b);
+		this.accumulate(d);
+		expected.put(Integer.valueOf(b), Long.valueOf(2));
+		expected.put(Integer.valueOf(d), Long.valueOf(2));
+		this.checkIndex("B", b, 0);
+		this.checkIndex("D", d, 2);
+		this.checkContent(expected);
+		System.out.println("merge: OK");
+
+		// delete head of cluster: B and C shift back over the end of table, D shift to it's home
+		this.delete(a);
+		expected.remove(Integer.valueOf(a));
+		this.checkIndex("B", b, last);
+		this.checkIndex("C", c, 0);
+		this.checkIndex("D", d, 1);
+		this.checkContent(expected);
+
+		// delete in the middle of cluster: D shift back, B stay
+		this.delete(c);
+		expected.remove(Integer.valueOf(c));
+		this.checkIndex("B", b, last);
+		this.checkIndex("D", d, 0);
+		this.accumulate(b);
+		this.accumulate(d);
+		expected.put(Integer.valueOf(b), Long.valueOf(3));
+		expected.put(Integer.valueOf(d), Long.valueOf(3));
+		this.checkContent(expected);
+		System.out.println("delete: OK");
+	}
+
+	/**
+	 * Test's main
+	 *
+	 * @param args unused
+	 */
+	public static void main(final String[] args) {
+		new PackedFlowCacheTest().run();
+		System.out.println("OK");
+	}
+}
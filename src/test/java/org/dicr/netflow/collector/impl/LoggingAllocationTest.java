@@ -0,0 +1,173 @@
+/**
+ * LoggingAllocationTest.java 17.10.2026
+ */
+package org.dicr.netflow.collector.impl;
+
+import java.lang.management.*;
+import java.net.*;
+import java.nio.*;
+
+import org.apache.log4j.*;
+import org.dicr.netflow.cache.impl.*;
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+
+/**
+ * Logging allocation regression test.
+ * <P>
+ * Measure memory, allocated by collector per received packet, when logging level is INFO. Disabled logging must not
+ * produce garbage: collector with {@link BatchListener batch} listener must not allocate at all, and collector with
+ * packet listener must not allocate more, than decoding of packet itself.
+ * </P>
+ * <P>
+ * Use allocation counters of HotSpot {@link com.sun.management.ThreadMXBean}. Test is in the package of collector,
+ * so it pass datagrams to {@link UDPNetFlowCollector#decode(ByteBuffer, SocketAddress) decoding} directly, without
+ * socket.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class LoggingAllocationTest {
+	/** Count of packets to warm up JIT */
+	private static final int WARMUP = 50000;
+
+	/** Count of measured packets */
+	private static final int COUNT = 200000;
+
+	/** Allowed allocation per packet, caused by collector, in bytes */
+	private static final long TOLERANCE = 16;
+
+	/** Source address of packets */
+	private static final SocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 7654);
+
+	/** Counters of thread allocations */
+	private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+	        .getThreadMXBean();
+
+	/** Constructor */
+	public LoggingAllocationTest() {
+		super();
+	}
+
+	/**
+	 * Decode datagram as received
+	 *
+	 * @param collector collector to receive datagram
+	 * @param buf buffer with datagram
+	 * @throws CodecException error decoding datagram
+	 */
+	private static void receive(final UDPNetFlowCollector collector, final ByteBuffer buf) throws CodecException {
+		buf.rewind();
+		collector.decode(buf, LoggingAllocationTest.ADDRESS);
+	}
+
+	/**
+	 * Return bytes, allocated by current thread
+	 *
+	 * @return allocated bytes
+	 */
+	private static long allocated() {
+		return LoggingAllocationTest.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Measure bytes, allocated by collector per packet.
+	 *
+	 * @param collector collector to receive packets
+	 * @param buf buffer with packet
+	 * @return average count of bytes, allocated per packet
+	 * @throws CodecException error decoding packet
+	 */
+	private static long measureCollector(final UDPNetFlowCollector collector, final ByteBuffer buf)
+	        throws CodecException {
+		for (int i = 0; i < LoggingAllocationTest.WARMUP; i++) {
+			LoggingAllocationTest.receive(collector, buf);
+		}
+		final long start = LoggingAllocationTest.allocated();
+		for (int i = 0; i < LoggingAllocationTest.COUNT; i++) {
+			LoggingAllocationTest.receive(collector, buf);
+		}
+		return (LoggingAllocationTest.allocated() - start) / LoggingAllocationTest.COUNT;
+	}
+
+	/**
+	 * Measure bytes, allocated by decoding of packet and listener.
+	 *
+	 * @param listener listener of packets
+	 * @param buf buffer with packet
+	 * @return average count of bytes, allocated per packet
+	 * @throws CodecException error decoding packet
+	 */
+	private static long measureDecode(final PacketListener listener, final ByteBuffer buf) throws CodecException {
+		for (int i = 0; i < LoggingAllocationTest.WARMUP; i++) {
+			buf.rewind();
+			listener.processPacket(NetFlowCodec.decode(buf));
+		}
+		final long start = LoggingAllocationTest.allocated();
+		for (int i = 0; i < LoggingAllocationTest.COUNT; i++) {
+			buf.rewind();
+			listener.processPacket(NetFlowCodec.decode(buf));
+		}
+		return (LoggingAllocationTest.allocated() - start) / LoggingAllocationTest.COUNT;
+	}
+
+	/**
+	 * Test's main
+	 *
+	 * @param args unused
+	 * @throws Exception test failed
+	 */
+	public static void main(final String[] args) throws Exception {
+		Logger.getRootLogger().setLevel(Level.INFO);
+		if (!LoggingAllocationTest.threads.isThreadAllocatedMemorySupported()) throw new UnsupportedOperationException(
+		        "thread allocated memory is not supported by JVM");
+		LoggingAllocationTest.threads.setThreadAllocatedMemoryEnabled(true);
+
+		// encode packet
+		final NetFlowPacketV5 packet = new NetFlowPacketV5();
+		for (int i = 0; i < FlowTypeV5.MAX_FLOWS_COUNT; i++) {
+			final FlowV5 flow = new FlowV5();
+			flow.setSrcAddress(0x0A000000 + i);
+			flow.setDstAddress(0x0A010000 + i);
+			flow.setSrcPort(1024 + i);
+			flow.setDstPort(80);
+			flow.setProtocol(6);
+			flow.setPacketsCount(10);
+			flow.setBytesCount(1500);
+			packet.addFlow(flow);
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(65535);
+		NetFlowCodec.encode(packet, buf);
+		buf.flip();
+
+		// batch listener
+		final PackedFlowCache cache = new PackedFlowCache(FlowTypeV5.INSTANCE);
+		final UDPNetFlowCollector batchCollector = new UDPNetFlowCollector();
+		batchCollector.addListener(cache);
+		final long batchBytes = LoggingAllocationTest.measureCollector(batchCollector, buf);
+		System.out.println("batch listener: " + batchBytes + " bytes per packet");
+
+		// packet listener
+		final PacketListener listener = new PacketListener() {
+			private long flows = 0;
+
+			public void processPacket(final NetFlowPacket p) {
+				this.flows += p.getFlowsCount();
+			}
+		};
+		final UDPNetFlowCollector packetCollector = new UDPNetFlowCollector();
+		packetCollector.addListener(listener);
+		final long decodeBytes = LoggingAllocationTest.measureDecode(listener, buf);
+		final long packetBytes = LoggingAllocationTest.measureCollector(packetCollector, buf);
+		System.out.println("packet listener: " + packetBytes + " bytes per packet, decoding: " + decodeBytes
+		        + " bytes per packet");
+
+		if (batchBytes > 0) throw new AssertionError("collector allocate " + batchBytes
+		        + " bytes per packet for batch listener");
+		if (packetBytes > decodeBytes + LoggingAllocationTest.TOLERANCE) throw new AssertionError(
+		        "collector allocate " + (packetBytes - decodeBytes) + " bytes per packet above decoding");
+		System.out.println("OK");
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * CacheFixture.java 17.10.2026
+ */
+package org.dicr.netflow.test;
+
+import java.util.*;
+
+import org.dicr.netflow.cache.impl.*;
+import org.dicr.netflow.impl.v1.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+
+/**
+ * Fixture of flow cache tests.
+ * <P>
+ * Create TCP flows and drive {@link AbstractFlowCache#expire(long) expiration} of caches by own uptime, which is
+ * advanced by test instead of waiting, so tests does not depend on timing of system.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public final class CacheFixture {
+	/** Advance of uptime to pass expiration time, longer than tick of cache timing wheels, milliseconds */
+	public static final long EXPIRE_DELAY = 2000;
+
+	/** Uptime of test, started at current uptime, when timing wheels of created caches start */
+	private long uptime = System.currentTimeMillis() - Flow.bootTime;
+
+	/**
+	 * Constructor
+	 */
+	public CacheFixture() {
+		super();
+	}
+
+	/**
+	 * Create TCP flow
+	 *
+	 * @param port source port, which identify flow
+	 * @param flags TCP flags
+	 * @param packets count of packets, each of 150 bytes
+	 * @param first uptime of first packet
+	 * @param last uptime of last packet
+	 * @return flow
+	 */
+	public static FlowV5 createFlow(final int port, final byte flags, final long packets, final long first,
+	        final long last) {
+		final FlowV5 flow = new FlowV5();
+		flow.setSrcAddress(0x0A000001);
+		flow.setDstAddress(0x0A010001);
+		flow.setSrcPort(port);
+		flow.setDstPort(80);
+		flow.setProtocol(FlowV1.PROTO_TCP);
+		flow.setTcpFlags(flags);
+		flow.setPacketsCount(packets);
+		flow.setBytesCount(packets * 150);
+		flow.setFirst(first);
+		flow.setLast(last);
+		return flow;
+	}
+
+	/**
+	 * Return uptime of test
+	 *
+	 * @return current uptime of test in milliseconds
+	 */
+	public long getUptime() {
+		return this.uptime;
+	}
+
+	/**
+	 * Advance uptime of test
+	 *
+	 * @param millis milliseconds to advance
+	 * @return new uptime
+	 */
+	public long advance(final long millis) {
+		if (millis < 0) throw new IllegalArgumentException("millis: " + millis);
+		this.uptime += millis;
+		return this.uptime;
+	}
+
+	/**
+	 * Expire cache at uptime of test
+	 *
+	 * @param cache cache to expire
+	 * @return expired flows
+	 */
+	public Collection<Flow> expire(final AbstractFlowCache cache) {
+		if (cache == null) throw new IllegalArgumentException("null cache");
+		return cache.expire(this.uptime);
+	}
+}
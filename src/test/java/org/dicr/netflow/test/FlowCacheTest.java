@@ -0,0 +1,80 @@
+/**
+ * FlowCacheTest.java 17.10.2026
+ */
+package org.dicr.netflow.test;
+
+import java.util.*;
+
+import org.dicr.netflow.cache.impl.*;
+import org.dicr.netflow.impl.v1.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+
+/**
+ * Flow cache test.
+ * <P>
+ * Accumulate TCP flow and then it's FIN record into each cache implementation. FIN record must be merged into existing
+ * flow, flags of both records must be accumulated, and finished flow must expire at it's last packet, without waiting
+ * for inactive time. Flows, passed to cache, must not be changed by merge. Expiration is driven by uptime of
+ * {@link CacheFixture fixture}.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class FlowCacheTest {
+	/** TCP flags SYN and ACK */
+	private static final byte TCP_FLAGS_SYN_ACK = 0x12;
+
+	/** Constructor */
+	public FlowCacheTest() {
+		super();
+	}
+
+	/**
+	 * Test merge and expiration of FIN record.
+	 *
+	 * @param cache cache to test
+	 */
+	private static void testFinish(final AbstractFlowCache cache) {
+		final String name = cache.getClass().getSimpleName();
+		final CacheFixture fixture = new CacheFixture();
+		// inactive time is long, so only finish can expire flow
+		cache.setExpireTime(600);
+		final long uptime = fixture.getUptime();
+		final FlowV5 open = CacheFixture.createFlow(1024, FlowCacheTest.TCP_FLAGS_SYN_ACK, 10, uptime, uptime + 500);
+		cache.accumulate(open);
+		fixture.advance(CacheFixture.EXPIRE_DELAY);
+		if (!fixture.expire(cache).isEmpty()) throw new AssertionError(name + ": active flow expired");
+		cache.accumulate(CacheFixture.createFlow(1024, FlowV1.TCP_FLAG_FIN, 10, uptime + 1000, uptime + 1000));
+		final Collection<Flow> content = cache.getContent();
+		if (content.size() != 1) throw new AssertionError(name + ": FIN record not merged, flows: " + content);
+		final FlowV5 merged = (FlowV5) content.iterator().next();
+		if (merged.getTcpFlags() != (FlowCacheTest.TCP_FLAGS_SYN_ACK | FlowV1.TCP_FLAG_FIN)) throw new AssertionError(
+		        name + ": TCP flags not accumulated: " + merged);
+		if (!merged.isFinished()) throw new AssertionError(name + ": merged flow is not finished: " + merged);
+		// accumulated flow can be shared with other listeners
+		if (open.getPacketsCount() != 10 || open.isFinished()) throw new AssertionError(name
+		        + ": accumulated flow changed by merge: " + open);
+		fixture.advance(CacheFixture.EXPIRE_DELAY);
+		final Collection<Flow> expired = fixture.expire(cache);
+		if (expired.size() != 1) throw new AssertionError(name + ": finished flow not expired, expired: " + expired);
+		final Flow flow = expired.iterator().next();
+		if (flow.getPacketsCount() != 20 || flow.getFirst() != uptime || flow.getLast() != uptime + 1000) throw new AssertionError(
+		        name + ": wrong counters of expired flow: " + flow);
+		if (!cache.getContent().isEmpty()) throw new AssertionError(name + ": expired flow still in cache");
+		System.out.println(name + ": OK");
+	}
+
+	/**
+	 * Test's main
+	 *
+	 * @param args unused
+	 */
+	public static void main(final String[] args) {
+		FlowCacheTest.testFinish(new DefaultFlowCache(FlowTypeV5.INSTANCE));
+		FlowCacheTest.testFinish(new ShardedFlowCache(FlowTypeV5.INSTANCE, 4));
+		FlowCacheTest.testFinish(new PackedFlowCache(FlowTypeV5.INSTANCE));
+		System.out.println("OK");
+	}
+}
@@ -3,69 +3,663 @@
  */
 package org.dicr.netflow.test;
 
+import java.lang.management.*;
 import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
+import org.apache.log4j.*;
 import org.dicr.netflow.cache.impl.*;
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.collector.impl.*;
 import org.dicr.netflow.exporter.impl.*;
+import org.dicr.netflow.impl.v1.*;
+import org.dicr.netflow.impl.v5.*;
 import org.dicr.netflow.impl.v7.*;
+import org.dicr.netflow.impl.v8.*;
 import org.dicr.netflow.packet.*;
-import org.dicr.traffic.source.*;
-import org.dicr.util.net.*;
 
 /**
- * NetFlow Cache & Exporter test
- * 
+ * NetFlow Collector, Cache & Exporter load test.
+ * <P>
+ * Generate stream of NetFlow packets at target rate over UDP and measure pipeline {@link UDPNetFlowCollector collector}
+ * &rarr; {@link DefaultFlowCache cache} &rarr; {@link UDPExporter exporter} &rarr; sink. Test report every second and at
+ * the end: sent and received packets, loss, latency percentiles and CPU usage.
+ * </P>
+ * <P>
+ * Modes:
+ * <UL>
+ * <LI><B>run</B> - generator and pipeline in one process (default);</LI>
+ * <LI><B>generate</B> - only generator, which send packets to pipeline in other JVM or host;</LI>
+ * <LI><B>serve</B> - only pipeline, which receive packets of generator in other JVM.</LI>
+ * </UL>
+ * </P>
+ * <P>
+ * Options (<CODE>-name value</CODE>):
+ * <UL>
+ * <LI><B>mode</B> - run, generate or serve;</LI>
+ * <LI><B>version</B> - NetFlow version of packets: 5, 7 or 8 (AS aggregation), default 5;</LI>
+ * <LI><B>rate</B> - packets per second, default 10000;</LI>
+ * <LI><B>duration</B> - seconds of generation, default 10;</LI>
+ * <LI><B>keys</B> - count of distinct flow keys, default 10000;</LI>
+ * <LI><B>skew</B> - Zipf exponent of keys popularity, 0 for uniform distribution, default 1;</LI>
+ * <LI><B>host</B>, <B>port</B> - address of collector, default 127.0.0.1:9995;</LI>
+ * <LI><B>sink</B> - UDP port, to which pipeline export flows, default 9996;</LI>
+ * <LI><B>inactive</B> - inactive time of cache in seconds, default 1.</LI>
+ * </UL>
+ * </P>
+ * <P>
+ * Collector latency is measured from time in header of packet to receiving of packet by listener of collector, so
+ * clocks of generator and pipeline must be synchronized (same host). End-to-end latency is measured from time of last
+ * packet of flow to receiving of exported flow by sink, and include inactive time of cache. It is correct only in
+ * <B>run</B> mode, where generator and pipeline have the same {@link Flow#bootTime}. Because cache aggregate flows,
+ * loss of pipeline is calculated by sum of packets counters of flows.
+ * </P>
+ *
+ * <PRE>
+ * java NetFlowExporterTest -mode serve -version 7
+ * java NetFlowExporterTest -mode generate -version 7 -rate 50000 -keys 100000 -skew 1.2
+ * </PRE>
+ *
  * @author <A href='http://dicr.org'>Igor A Tarasov</A>
- * @version 070102
+ * @version 261017
  */
 public class NetFlowExporterTest {
+	/** Count of flows in packet */
+	private static final int FLOWS_PER_PACKET = 30;
+
+	/** Options with default values */
+	private final Map<String, String> options = new HashMap<String, String>();
+
+	/** Generator */
+	private Generator generator = null;
+
+	/** Listener of collector */
+	private ReceiveListener listener = null;
+
+	/** Sink of exported flows */
+	private Sink sink = null;
+
+	/** Collector */
+	private UDPNetFlowCollector collector = null;
+
+	/** Cache */
+	private DefaultFlowCache cache = null;
+
+	/** Exporter */
+	private UDPExporter exporter = null;
+
+	/**
+	 * Constructor
+	 *
+	 * @param args command line options
+	 */
+	public NetFlowExporterTest(final String[] args) {
+		super();
+		this.options.put("mode", "run");
+		this.options.put("version", "5");
+		this.options.put("rate", "10000");
+		this.options.put("duration", "10");
+		this.options.put("keys", "10000");
+		this.options.put("skew", "1");
+		this.options.put("host", "127.0.0.1");
+		this.options.put("port", "9995");
+		this.options.put("sink", "9996");
+		this.options.put("inactive", "1");
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("-") || i + 1 >= args.length || !this.options.containsKey(args[i].substring(1))) throw new IllegalArgumentException(
+			        "incorrect option: " + args[i]);
+			this.options.put(args[i].substring(1), args[++i]);
+		}
+	}
+
+	/**
+	 * Return integer option
+	 *
+	 * @param name name of option
+	 * @return value of option
+	 */
+	private int getInt(final String name) {
+		return Integer.parseInt(this.options.get(name));
+	}
+
+	/**
+	 * Return flow type of generated packets
+	 *
+	 * @return flow type by version option
+	 */
+	private FlowType getFlowType() {
+		switch (this.getInt("version")) {
+			case FlowTypeV5.VERSION:
+				return FlowTypeV5.INSTANCE;
+			case FlowTypeV7.VERSION:
+				return FlowTypeV7.INSTANCE;
+			case FlowTypeV8.VERSION:
+				return FlowTypeV8.AS;
+			default:
+				throw new IllegalArgumentException("unsupported version: " + this.options.get("version"));
+		}
+	}
+
+	/**
+	 * Start pipeline: collector, cache, exporter and sink
+	 *
+	 * @throws Exception error starting pipeline
+	 */
+	private void startPipeline() throws Exception {
+		final FlowType type = this.getFlowType();
+		final int keys = this.getInt("keys");
+
+		this.sink = new Sink(this.getInt("sink"));
+		this.sink.start();
+
+		this.exporter = new UDPExporter();
+		this.exporter.addAddress(new InetSocketAddress("127.0.0.1", this.getInt("sink")));
+		this.exporter.setQueueSize(Math.max(10000, keys));
+
+		this.cache = new DefaultFlowCache(type);
+		this.cache.setBufferSize(Math.max(1000, keys * 2));
+		this.cache.setInactiveTime(this.getInt("inactive"));
+		this.cache.addListener(this.exporter);
+		this.cache.start();
+
+		this.listener = new ReceiveListener();
+		this.collector = new UDPNetFlowCollector(this.getInt("port"));
+		this.collector.setReceiveBufferSize(4 * 1024 * 1024);
+		this.collector.addListener(this.listener);
+		this.collector.addListener(this.cache);
+		this.collector.start();
+	}
+
+	/**
+	 * Stop pipeline
+	 */
+	private void stopPipeline() {
+		this.collector.stop();
+		this.cache.stop();
+		this.exporter.close();
+		this.sink.interrupt();
+	}
+
+	/**
+	 * Print statistics
+	 *
+	 * @param cpu CPU meter
+	 * @param seconds seconds since start
+	 */
+	private void printProgress(final CpuMeter cpu, final int seconds) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%4d s:", Integer.valueOf(seconds)));
+		if (this.generator != null) sb.append(String.format(" sent %8d", Long.valueOf(this.generator.packets.get())));
+		if (this.listener != null) {
+			sb.append(String.format(" received %8d, dropped %6d, exported flows %8d", Long.valueOf(this.listener.packets
+			        .get()), Long.valueOf(this.collector.getDroppedCount()), Long.valueOf(this.sink.flows.get())));
+		}
+		sb.append(String.format(", CPU %.2f cores", Double.valueOf(cpu.next())));
+		System.out.println(sb);
+	}
+
+	/**
+	 * Print final report
+	 *
+	 * @param cpu CPU meter
+	 */
+	private void printReport(final CpuMeter cpu) {
+		System.out.println("-------- report --------");
+		if (this.generator != null) System.out.println("sent: " + this.generator.packets.get() + " packets, "
+		        + this.generator.flows.get() + " flows, " + this.generator.counters.get() + " counted packets");
+		if (this.listener != null) {
+			final long sent = this.generator != null ? this.generator.packets.get() : this.listener.expected();
+			final long received = this.listener.packets.get();
+			System.out.println("received by collector: " + received + " packets, " + this.listener.flows.get()
+			        + " flows, loss " + NetFlowExporterTest.percent(sent - received, sent) + " (sequence gaps: "
+			        + this.listener.lost.get() + ", lost flows by collector: " + this.collector.getLostFlowsCount()
+			        + ", dropped by collector: " + this.collector.getDroppedCount() + ")");
+			final long counted = this.listener.counters.get();
+			final long exported = this.sink.counters.get();
+			System.out.println("exported: " + this.sink.flows.get() + " flows, " + exported
+			        + " counted packets, loss " + NetFlowExporterTest.percent(counted - exported, counted)
+			        + " (dropped by exporter: " + this.exporter.getDroppedCount() + ")");
+			System.out.println("collector metrics: " + this.collector.getMetrics() + ", listener errors: "
+			        + this.collector.getListenerErrorsCount());
+			System.out.println("collector processing latency: " + this.collector.getLatencyStatistics());
+			System.out.println("collector latency, ms: " + this.listener.latency);
+			if (this.generator != null) System.out.println("end-to-end latency, ms: " + this.sink.latency);
+		}
+		System.out.println(String.format("CPU: %.1f s, %.2f cores", Double.valueOf(cpu.getTotalTime()), Double
+		        .valueOf(cpu.getTotalLoad())));
+	}
+
+	/**
+	 * Format ratio as percents
+	 *
+	 * @param part part
+	 * @param total total
+	 * @return percents
+	 */
+	private static String percent(final long part, final long total) {
+		return String.format("%.3f%%", Double.valueOf(total > 0 ? part * 100.0 / total : 0));
+	}
+
+	/**
+	 * Run test
+	 *
+	 * @throws Exception error running test
+	 */
+	public void run() throws Exception {
+		final String mode = this.options.get("mode");
+		final boolean pipeline = "run".equals(mode) || "serve".equals(mode);
+		final boolean generate = "run".equals(mode) || "generate".equals(mode);
+		if (!pipeline && !generate) throw new IllegalArgumentException("mode: " + mode);
+		System.out.println("options: " + this.options);
+
+		final CpuMeter cpu = new CpuMeter();
+		if (pipeline) this.startPipeline();
+		if (generate) {
+			this.generator = new Generator(this.getFlowType(), new InetSocketAddress(this.options.get("host"), this
+			        .getInt("port")), this.getInt("rate"), this.getInt("keys"), Double.parseDouble(this.options
+			        .get("skew")));
+			this.generator.start();
+		}
+
+		// generation and drain of cache
+		final int duration = this.getInt("duration");
+		final int total = duration + (pipeline ? this.getInt("inactive") + 3 : 0);
+		for (int i = 1; i <= total; i++) {
+			Thread.sleep(1000);
+			if (i == duration && this.generator != null) this.generator.interrupt();
+			this.printProgress(cpu, i);
+		}
+		if (this.generator != null) this.generator.join();
+		this.printReport(cpu);
+		if (pipeline) this.stopPipeline();
+	}
 
 	/**
 	 * Test's main
-	 * 
-	 * @param args unused
-	 * @throws Throwable
+	 *
+	 * @param args options
+	 * @throws Throwable error running test
+	 */
+	public static void main(final String[] args) throws Throwable {
+		Logger.getRootLogger().setLevel(Level.WARN);
+		new NetFlowExporterTest(args).run();
+	}
+
+	/**
+	 * Generator of packets.
+	 * <P>
+	 * Flows are encoded to packets by {@link PacketWriter} from one mutable flow object, packets are paced by
+	 * {@link TokenBucket}. Keys of flows are selected by Zipf distribution.
+	 * </P>
+	 */
+	private static final class Generator extends Thread {
+		/** Flow type */
+		private final FlowType type;
+
+		/** Collector address */
+		private final SocketAddress target;
+
+		/** Packets rate */
+		private final int rate;
+
+		/** Cumulative distribution of keys or null for uniform */
+		private final double[] distribution;
+
+		/** Count of keys */
+		private final int keys;
+
+		/** Sent packets */
+		final AtomicLong packets = new AtomicLong();
+
+		/** Sent flows */
+		final AtomicLong flows = new AtomicLong();
+
+		/** Sum of packets counters of sent flows */
+		final AtomicLong counters = new AtomicLong();
+
+		/**
+		 * Constructor
+		 *
+		 * @param aType flow type
+		 * @param aTarget address of collector
+		 * @param aRate packets per second
+		 * @param aKeys count of distinct keys
+		 * @param skew Zipf exponent
+		 */
+		Generator(final FlowType aType, final SocketAddress aTarget, final int aRate, final int aKeys, final double skew) {
+			super("NetFlow generator");
+			this.type = aType;
+			this.target = aTarget;
+			this.rate = aRate;
+			this.keys = aKeys;
+			if (skew > 0) {
+				this.distribution = new double[aKeys];
+				double sum = 0;
+				for (int i = 0; i < aKeys; i++) {
+					sum += 1 / Math.pow(i + 1, skew);
+					this.distribution[i] = sum;
+				}
+				for (int i = 0; i < aKeys; i++) {
+					this.distribution[i] /= sum;
+				}
+			} else this.distribution = null;
+		}
+
+		/**
+		 * Select key
+		 *
+		 * @param r random
+		 * @return number of key
+		 */
+		private int nextKey(final Random r) {
+			if (this.distribution == null) return r.nextInt(this.keys);
+			final int i = Arrays.binarySearch(this.distribution, r.nextDouble());
+			return Math.min(i >= 0 ? i : -i - 1, this.keys - 1);
+		}
+
+		/**
+		 * Set fields of flow by key
+		 *
+		 * @param flow flow to set
+		 * @param key number of key
+		 * @param r random for counters
+		 * @param uptime current uptime
+		 */
+		private static void fill(final Flow flow, final int key, final Random r, final long uptime) {
+			final long packetsCount = 1 + r.nextInt(100);
+			flow.setPacketsCount(packetsCount);
+			flow.setBytesCount(packetsCount * (40 + r.nextInt(1460)));
+			flow.setFirst(uptime);
+			flow.setLast(uptime);
+			if (flow instanceof FlowV5) {
+				final FlowV5 flow5 = (FlowV5) flow;
+				flow5.setSrcAddress(0x0A000000 + key);
+				flow5.setDstAddress(0xC0A80001);
+				flow5.setSrcPort(1024 + key % 60000);
+				flow5.setDstPort(80);
+				flow5.setProtocol(6);
+				flow5.setInInterface(1);
+				flow5.setOutInterface(2);
+			} else if (flow instanceof FlowV8_RouterAS) {
+				final FlowV8_RouterAS flow8 = (FlowV8_RouterAS) flow;
+				flow8.setFlowsAggregated(1);
+				flow8.setSrcAs(key & 0xFFFF);
+				flow8.setDstAs(key >>> 16 & 0xFFFF);
+				flow8.setInputInterface(1);
+				flow8.setOutputInterface(2);
+			}
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			final Random r = new Random();
+			final PacketWriter writer = new PacketWriter(ByteBuffer.allocateDirect(65535));
+			final Flow flow = this.type.createFlow();
+			final TokenBucket bucket = new TokenBucket(this.rate, Math.max(1, this.rate / 100));
+			final int perPacket = Math.min(NetFlowExporterTest.FLOWS_PER_PACKET, this.type.getMaxFlowsCount());
+			long sequence = 0;
+			try {
+				final DatagramChannel channel = DatagramChannel.open();
+				while (!this.isInterrupted()) {
+					bucket.acquire(1);
+					final long now = System.currentTimeMillis();
+					final long uptime = now - Flow.bootTime;
+					long counted = 0;
+					for (int i = 0; i < perPacket; i++) {
+						Generator.fill(flow, this.nextKey(r), r, uptime);
+						counted += flow.getPacketsCount();
+						writer.write(flow);
+					}
+					final NetFlowPacketV1 header = (NetFlowPacketV1) this.type.createPacket();
+					header.setSysUptime(uptime);
+					header.setUnixSecs(now / 1000);
+					header.setUnixNSecs(now % 1000 * 1000000);
+					if (header instanceof SequencedPacket) ((SequencedPacket) header).setFlowSequence(sequence);
+					sequence += perPacket;
+					channel.send(writer.finish(header), this.target);
+					this.packets.incrementAndGet();
+					this.flows.addAndGet(perPacket);
+					this.counters.addAndGet(counted);
+				}
+				channel.close();
+			} catch (final InterruptedException ex) {
+				// stopped
+			} catch (final ClosedByInterruptException ex) {
+				// stopped
+			} catch (final Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Listener of collector. Count received packets and measure latency by time in header.
+	 */
+	private static final class ReceiveListener implements PacketListener {
+		/** Received packets */
+		final AtomicLong packets = new AtomicLong();
+
+		/** Received flows */
+		final AtomicLong flows = new AtomicLong();
+
+		/** Sum of packets counters of received flows */
+		final AtomicLong counters = new AtomicLong();
+
+		/** Flows, lost by sequence of packets */
+		final AtomicLong lost = new AtomicLong();
+
+		/** Latency of receiving */
+		final Latencies latency = new Latencies();
+
+		/** Next expected flows sequence */
+		private long sequence = -1;
+
+		/**
+		 * Constructor
+		 */
+		ReceiveListener() {
+			super();
+		}
+
+		/**
+		 * Return expected count of packets by sequence
+		 *
+		 * @return count of received and lost packets
+		 */
+		long expected() {
+			final long received = this.packets.get();
+			final long perPacket = received > 0 ? this.flows.get() / received : 1;
+			return received + this.lost.get() / Math.max(1, perPacket);
+		}
+
+		/**
+		 * @see org.dicr.netflow.packet.PacketListener#processPacket(org.dicr.netflow.packet.NetFlowPacket)
+		 */
+		public void processPacket(final NetFlowPacket packet) {
+			final long now = System.currentTimeMillis();
+			final NetFlowPacketV1 header = (NetFlowPacketV1) packet;
+			this.latency.record(now - (header.getUnixSecs() * 1000 + header.getUnixNSecs() / 1000000));
+			this.packets.incrementAndGet();
+			this.flows.addAndGet(packet.getFlowsCount());
+			long counted = 0;
+			for (final Flow flow : packet.getFlows()) {
+				counted += flow.getPacketsCount();
+			}
+			this.counters.addAndGet(counted);
+			if (packet instanceof SequencedPacket) {
+				synchronized (this) {
+					final long seq = ((SequencedPacket) packet).getFlowSequence();
+					if (this.sequence >= 0 && seq > this.sequence) this.lost.addAndGet(seq - this.sequence);
+					this.sequence = seq + packet.getFlowsCount();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sink of exported flows
 	 */
-	@SuppressWarnings("boxing") public static void main(final String[] args) throws Throwable {
-		// exporter
-		final UDPExporter exporter = new UDPExporter();
-		exporter.addAddress(new InetSocketAddress("127.0.0.1", 7654));
-
-		// type
-		final FlowType type = FlowTypeV7.INSTANCE;
-
-		// cache
-		final DefaultFlowCache cache = new DefaultFlowCache();
-		cache.setFlowType(type);
-		cache.addListener(exporter);
-		cache.start();
-
-		// generate traffic
-		final Random r = new Random();
-		while (true) {
-			final TrafficElement el = new TrafficElement();
-			el.setBytes(r.nextInt(1000));
-			el.setDst(new IP(r.nextInt(3)));
-			el.setDstAs(r.nextInt(3));
-			el.setDstIf(r.nextInt(3));
-			el.setDstMask(Mask.SINGLE);
-			el.setDstPort(r.nextInt(3));
-			el.setHop(new IP(r.nextInt(3)));
-			el.setPackets((long) r.nextInt(1000));
-			el.setProto(r.nextInt(3));
-			el.setRouter(new IP(r.nextInt(3)));
-			el.setSrc(new IP(r.nextInt(3)));
-			el.setSrcAs(r.nextInt(3));
-			el.setSrcIf(r.nextInt(3));
-			el.setSrcMask(Mask.SINGLE);
-			el.setSrcPort(r.nextInt(3));
-			el.setTcpFlags((byte) r.nextInt(3));
-			el.setTime(System.currentTimeMillis());
-			el.setTos(Byte.valueOf((byte) r.nextInt(3)));
-			final Flow flow = type.createFlow(el);
-			cache.accumulate(flow);
-			Thread.sleep(10);
+	private static final class Sink extends Thread {
+		/** Port to receive */
+		private final int port;
+
+		/** Received flows */
+		final AtomicLong flows = new AtomicLong();
+
+		/** Sum of packets counters of received flows */
+		final AtomicLong counters = new AtomicLong();
+
+		/** End-to-end latency */
+		final Latencies latency = new Latencies();
+
+		/**
+		 * Constructor
+		 *
+		 * @param aPort port to receive
+		 */
+		Sink(final int aPort) {
+			super("NetFlow sink");
+			this.port = aPort;
+			this.setDaemon(true);
+		}
+
+		/**
+		 * @see java.lang.Thread#run()
+		 */
+		@Override
+		public void run() {
+			final ByteBuffer buf = ByteBuffer.allocate(65535);
+			try {
+				final DatagramChannel channel = DatagramChannel.open();
+				channel.socket().setReceiveBufferSize(4 * 1024 * 1024);
+				channel.socket().bind(new InetSocketAddress("127.0.0.1", this.port));
+				while (!this.isInterrupted()) {
+					buf.clear();
+					channel.receive(buf);
+					buf.flip();
+					final long uptime = System.currentTimeMillis() - Flow.bootTime;
+					final NetFlowPacket packet = NetFlowCodec.decode(buf);
+					long counted = 0;
+					for (final Flow flow : packet.getFlows()) {
+						counted += flow.getPacketsCount();
+						this.latency.record(uptime - flow.getLast());
+					}
+					this.flows.addAndGet(packet.getFlowsCount());
+					this.counters.addAndGet(counted);
+				}
+			} catch (final ClosedByInterruptException ex) {
+				// stopped
+			} catch (final Exception ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Samples of latency. Keep last 1M samples, which are recorded by one thread.
+	 */
+	private static final class Latencies {
+		/** Samples */
+		private final long[] samples = new long[1 << 20];
+
+		/** Count of recorded samples */
+		private volatile long count = 0;
+
+		/**
+		 * Constructor
+		 */
+		Latencies() {
+			super();
+		}
+
+		/**
+		 * Record sample
+		 *
+		 * @param value latency
+		 */
+		void record(final long value) {
+			this.samples[(int) (this.count & this.samples.length - 1)] = value;
+			this.count++;
+		}
+
+		/**
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			final int size = (int) Math.min(this.count, this.samples.length);
+			if (size == 0) return "no samples";
+			final long[] sorted = Arrays.copyOf(this.samples, size);
+			Arrays.sort(sorted);
+			return "p50=" + sorted[size / 2] + ", p90=" + sorted[(int) (size * 0.9)] + ", p99="
+			        + sorted[(int) (size * 0.99)] + ", p99.9=" + sorted[(int) (size * 0.999)] + ", max="
+			        + sorted[size - 1];
+		}
+	}
+
+	/**
+	 * Meter of process CPU usage
+	 */
+	private static final class CpuMeter {
+		/** Operating system bean */
+		private final com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory
+		        .getOperatingSystemMXBean();
+
+		/** CPU time at start, nanoseconds */
+		private final long startCpu = this.os.getProcessCpuTime();
+
+		/** Time of start, nanoseconds */
+		private final long startTime = System.nanoTime();
+
+		/** CPU time of last measurement */
+		private long lastCpu = this.startCpu;
+
+		/** Time of last measurement */
+		private long lastTime = this.startTime;
+
+		/**
+		 * Constructor
+		 */
+		CpuMeter() {
+			super();
+		}
+
+		/**
+		 * Measure load since last measurement
+		 *
+		 * @return used cores
+		 */
+		double next() {
+			final long cpu = this.os.getProcessCpuTime();
+			final long time = System.nanoTime();
+			final double load = (double) (cpu - this.lastCpu) / (time - this.lastTime);
+			this.lastCpu = cpu;
+			this.lastTime = time;
+			return load;
+		}
+
+		/**
+		 * Return CPU time since start
+		 *
+		 * @return seconds
+		 */
+		double getTotalTime() {
+			return (this.os.getProcessCpuTime() - this.startCpu) / 1e9;
+		}
+
+		/**
+		 * Return load since start
+		 *
+		 * @return used cores
+		 */
+		double getTotalLoad() {
+			return (double) (this.os.getProcessCpuTime() - this.startCpu) / (System.nanoTime() - this.startTime);
 		}
 	}
 }
@@ -0,0 +1,177 @@
+/**
+ * PacketWriterTest.java 17.10.2026
+ */
+package org.dicr.netflow.test;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.exc.*;
+import org.dicr.netflow.exporter.impl.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+
+/**
+ * Packet writer test.
+ * <P>
+ * {@link AbstractExporter#streamFlows(Collection, PacketWriter) Stream} flows with {@link PacketWriter writer} and
+ * {@link AbstractExporter#buildPackets(Collection) build} packet objects of the same flows, then decode datagrams of
+ * both. Headers and flows of streamed packets must be the same as of built packets, so SysUptime of header is not less
+ * than uptimes of flows and receiver does not convert uptimes to future times. SysUptime is read from datagram, because
+ * decoded packet update it by uptimes of added flows.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class PacketWriterTest {
+	/** Count of flows, which fill one packet and start next */
+	private static final int FLOWS_COUNT = FlowTypeV5.MAX_FLOWS_COUNT + 5;
+
+	/** Constructor */
+	public PacketWriterTest() {
+		super();
+	}
+
+	/**
+	 * Create flows with different uptimes. Maximum uptime is not the last flow of packets.
+	 *
+	 * @return flows
+	 */
+	private static List<Flow> createFlows() {
+		final List<Flow> flows = new ArrayList<Flow>();
+		for (int i = 0; i < PacketWriterTest.FLOWS_COUNT; i++) {
+			final long last = 100000 + (i * 7919) % 5000;
+			flows.add(CacheFixture.createFlow(1024 + i, (byte) 0x10, 1 + i, last - 1000, last));
+		}
+		return flows;
+	}
+
+	/**
+	 * Decode datagram
+	 *
+	 * @param datagram buffer with datagram
+	 * @return decoded packet
+	 * @throws CodecException error decoding
+	 */
+	private static NetFlowPacketV5 decode(final ByteBuffer datagram) throws CodecException {
+		return (NetFlowPacketV5) NetFlowCodec.decode(datagram);
+	}
+
+	/**
+	 * Return SysUptime of datagram
+	 *
+	 * @param datagram buffer with datagram
+	 * @return SysUptime, which follow version and count in header
+	 */
+	private static long getSysUptime(final ByteBuffer datagram) {
+		return datagram.getInt(datagram.position() + 4) & 0x0FFFFFFFFL;
+	}
+
+	/**
+	 * Compare streamed packet with built packet
+	 *
+	 * @param index index of packet
+	 * @param streamedDatagram streamed datagram
+	 * @param builtDatagram built datagram
+	 * @throws CodecException error decoding
+	 */
+	private static void compare(final int index, final ByteBuffer streamedDatagram, final ByteBuffer builtDatagram)
+	        throws CodecException {
+		final String name = "packet " + index;
+		final long uptime = PacketWriterTest.getSysUptime(streamedDatagram);
+		if (uptime != PacketWriterTest.getSysUptime(builtDatagram)) throw new AssertionError(name + ": SysUptime "
+		        + uptime + " != " + PacketWriterTest.getSysUptime(builtDatagram));
+		final NetFlowPacketV5 streamed = PacketWriterTest.decode(streamedDatagram);
+		final NetFlowPacketV5 built = PacketWriterTest.decode(builtDatagram);
+		if (streamed.getFlowsCount() != built.getFlowsCount()) throw new AssertionError(name + ": flows count "
+		        + streamed.getFlowsCount() + " != " + built.getFlowsCount());
+		if (streamed.getFlowSequence() != built.getFlowSequence()) throw new AssertionError(name + ": sequence "
+		        + streamed.getFlowSequence() + " != " + built.getFlowSequence());
+		if (Math.abs(streamed.getUnixSecs() - built.getUnixSecs()) > 1) throw new AssertionError(name + ": UnixSecs "
+		        + streamed.getUnixSecs() + " != " + built.getUnixSecs());
+		if (!streamed.getFlows().equals(built.getFlows())) throw new AssertionError(name + ": flows differ");
+		for (final Flow flow : streamed.getFlows()) {
+			if (flow.getLast() > uptime) throw new AssertionError(name + ": flow uptime " + flow.getLast()
+			        + " is after SysUptime " + uptime);
+		}
+	}
+
+	/**
+	 * Test's main
+	 *
+	 * @param args unused
+	 * @throws Exception test failed
+	 */
+	public static void main(final String[] args) throws Exception {
+		final List<Flow> flows = PacketWriterTest.createFlows();
+
+		// streamed datagrams
+		final TestExporter streamer = new TestExporter();
+		streamer.stream(flows);
+
+		// built packets
+		final TestExporter builder = new TestExporter();
+		builder.exportPackets(new ArrayList<NetFlowPacket>(builder.buildPackets(flows)));
+
+		if (streamer.datagrams.size() != 2) throw new AssertionError("streamed packets: " + streamer.datagrams.size());
+		if (builder.datagrams.size() != streamer.datagrams.size()) throw new AssertionError("built packets: "
+		        + builder.datagrams.size());
+		for (int i = 0; i < streamer.datagrams.size(); i++) {
+			PacketWriterTest.compare(i, streamer.datagrams.get(i), builder.datagrams.get(i));
+		}
+		System.out.println("OK");
+	}
+
+	/**
+	 * Exporter, which keep copies of exported datagrams
+	 */
+	private static final class TestExporter extends AbstractExporter {
+		/** Exported datagrams */
+		final List<ByteBuffer> datagrams = new ArrayList<ByteBuffer>();
+
+		/** Buffer to encode packets */
+		private final ByteBuffer buf = ByteBuffer.allocate(65535);
+
+		/**
+		 * Constructor
+		 */
+		TestExporter() {
+			super();
+		}
+
+		/**
+		 * Stream flows
+		 *
+		 * @param flows flows to stream
+		 * @throws IOException error exporting
+		 * @throws NetFlowException error encoding
+		 */
+		void stream(final Collection<? extends Flow> flows) throws IOException, NetFlowException {
+			this.streamFlows(flows, new PacketWriter(this.buf));
+		}
+
+		/**
+		 * @see org.dicr.netflow.exporter.NetFlowExporter#export(org.dicr.netflow.packet.NetFlowPacket)
+		 */
+		public void export(final NetFlowPacket packet) throws IOException, CodecException {
+			this.buf.clear();
+			NetFlowCodec.encode(packet, this.buf);
+			this.buf.flip();
+			this.exportDatagram(this.buf);
+		}
+
+		/**
+		 * @see org.dicr.netflow.exporter.impl.AbstractExporter#exportDatagram(java.nio.ByteBuffer)
+		 */
+		@Override
+		protected void exportDatagram(final ByteBuffer datagram) {
+			final ByteBuffer copy = ByteBuffer.allocate(datagram.remaining());
+			copy.put(datagram);
+			copy.flip();
+			this.datagrams.add(copy);
+		}
+	}
+}
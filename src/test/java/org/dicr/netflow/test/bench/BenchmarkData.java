@@ -0,0 +1,111 @@
+/**
+ * BenchmarkData.java 17.10.2026
+ */
+package org.dicr.netflow.test.bench;
+
+import java.util.*;
+
+import org.dicr.netflow.impl.v1.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.impl.v6.*;
+import org.dicr.netflow.impl.v7.*;
+import org.dicr.netflow.impl.v8.*;
+import org.dicr.netflow.packet.*;
+import org.dicr.traffic.source.*;
+import org.dicr.util.net.*;
+
+/**
+ * Test data of benchmarks.
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public final class BenchmarkData {
+	/** Random seed, so all runs use the same data */
+	private static final long SEED = 20071017;
+
+	/** Constructor */
+	private BenchmarkData() {
+		super();
+	}
+
+	/**
+	 * Return flow type by version
+	 *
+	 * @param version NetFlow version, for version 8 AS aggregation is used
+	 * @return flow type
+	 */
+	public static FlowType getFlowType(final int version) {
+		switch (version) {
+			case FlowTypeV1.VERSION:
+				return FlowTypeV1.INSTANCE;
+			case FlowTypeV5.VERSION:
+				return FlowTypeV5.INSTANCE;
+			case FlowTypeV6.VERSION:
+				return FlowTypeV6.INSTANCE;
+			case FlowTypeV7.VERSION:
+				return FlowTypeV7.INSTANCE;
+			case FlowTypeV8.VERSION:
+				return FlowTypeV8.AS;
+			default:
+				throw new IllegalArgumentException("version: " + version);
+		}
+	}
+
+	/**
+	 * Create random flows
+	 *
+	 * @param type type of flows
+	 * @param count count of flows
+	 * @return flows with random fields
+	 */
+	public static List<Flow> createFlows(final FlowType type, final int count) {
+		final Random r = new Random(BenchmarkData.SEED);
+		final List<Flow> flows = new ArrayList<Flow>(count);
+		final long time = System.currentTimeMillis();
+		for (int i = 0; i < count; i++) {
+			final TrafficElement el = new TrafficElement();
+			el.setBytes(r.nextInt(1000000));
+			el.setDst(new IP(r.nextInt()));
+			el.setDstAs(r.nextInt(65536));
+			el.setDstIf(r.nextInt(256));
+			el.setDstMask(Mask.SINGLE);
+			el.setDstPort(r.nextInt(65536));
+			el.setHop(new IP(r.nextInt()));
+			el.setPackets((long) r.nextInt(1000));
+			el.setProto(r.nextInt(256));
+			el.setRouter(new IP(r.nextInt()));
+			el.setSrc(new IP(r.nextInt()));
+			el.setSrcAs(r.nextInt(65536));
+			el.setSrcIf(r.nextInt(256));
+			el.setSrcMask(Mask.SINGLE);
+			el.setSrcPort(r.nextInt(65536));
+			el.setTcpFlags((byte) r.nextInt(256));
+			el.setTime(time);
+			el.setTos(Byte.valueOf((byte) r.nextInt(256)));
+			flows.add(type.createFlow(el));
+		}
+		return flows;
+	}
+
+	/**
+	 * Create V5 flow with specified key
+	 *
+	 * @param key number of key, used as source address and port
+	 * @return flow, started now
+	 */
+	public static FlowV5 createFlow(final int key) {
+		final FlowV5 flow = new FlowV5();
+		flow.setSrcAddress(key);
+		flow.setDstAddress(0x0A000001);
+		flow.setSrcPort(key & 0xFFFF);
+		flow.setDstPort(80);
+		flow.setProtocol(6);
+		flow.setPacketsCount(1);
+		flow.setBytesCount(1500);
+		final long uptime = System.currentTimeMillis() - Flow.bootTime;
+		flow.setFirst(uptime);
+		flow.setLast(uptime);
+		return flow;
+	}
+}
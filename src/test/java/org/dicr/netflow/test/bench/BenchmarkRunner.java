@@ -0,0 +1,35 @@
+/**
+ * BenchmarkRunner.java 17.10.2026
+ */
+package org.dicr.netflow.test.bench;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * Run benchmarks with GC profiler, which report allocation rate of each benchmark.
+ * <P>
+ * Run all benchmarks with <CODE>mvn -Pbenchmark test</CODE>, or select benchmarks by regular expression with
+ * <CODE>-Dbenchmark.args=CodecBenchmark</CODE>. When started directly, arguments are JMH options, so parameters of
+ * benchmarks can be changed, for example <CODE>-p size=1000,100000</CODE>.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Run benchmarks
+	 *
+	 * @param args JMH options, default is all benchmarks of this package
+	 * @throws Exception error running benchmarks
+	 */
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions cmd = new CommandLineOptions(args);
+		final ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class);
+		if (cmd.getIncludes().isEmpty()) builder.include(BenchmarkRunner.class.getPackage().getName() + ".");
+		new Runner(builder.build()).run();
+	}
+}
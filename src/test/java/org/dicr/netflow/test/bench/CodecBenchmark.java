@@ -0,0 +1,153 @@
+/**
+ * CodecBenchmark.java 17.10.2026
+ */
+package org.dicr.netflow.test.bench;
+
+import java.nio.*;
+import java.util.concurrent.*;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.packet.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Throughput of encoding and decoding of packets for each NetFlow version.
+ * <P>
+ * Packets contain maximum count of flows, but no more than 30, like packets of routers.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+	/** Maximum count of flows in packet */
+	private static final int FLOWS_COUNT = 30;
+
+	/** NetFlow version */
+	@Param( { "1", "5", "6", "7", "8" })
+	public int version;
+
+	/** Codec */
+	private NetFlowCodec codec;
+
+	/** Packet to encode */
+	private NetFlowPacket packet;
+
+	/** Codec support views */
+	private boolean views;
+
+	/** Buffer to encode */
+	private final ByteBuffer encodeBuffer = ByteBuffer.allocate(65535);
+
+	/** Buffer with encoded packet */
+	private final ByteBuffer decodeBuffer = ByteBuffer.allocate(65535);
+
+	/** Batch to decode */
+	private final FlowBatch batch = new FlowBatch();
+
+	/** Visitor, which count bytes */
+	private final CountingVisitor visitor = new CountingVisitor();
+
+	/**
+	 * Create packet
+	 *
+	 * @throws Exception error creating packet
+	 */
+	@Setup
+	public void setup() throws Exception {
+		final FlowType type = BenchmarkData.getFlowType(this.version);
+		this.codec = type.getCodec();
+		this.views = this.codec.createView() != null;
+		this.packet = type.createPacket();
+		for (final Flow flow : BenchmarkData.createFlows(type, Math.min(type.getMaxFlowsCount(),
+		        CodecBenchmark.FLOWS_COUNT))) {
+			this.packet.addFlow(flow);
+		}
+		this.codec.encodePacket(this.packet, this.decodeBuffer);
+		this.decodeBuffer.flip();
+	}
+
+	/**
+	 * Encode packet
+	 *
+	 * @return size of packet
+	 * @throws CodecException error encoding
+	 */
+	@Benchmark
+	public int encode() throws CodecException {
+		this.encodeBuffer.clear();
+		this.codec.encodePacket(this.packet, this.encodeBuffer);
+		return this.encodeBuffer.position();
+	}
+
+	/**
+	 * Decode packet to objects
+	 *
+	 * @return decoded packet
+	 * @throws CodecException error decoding
+	 */
+	@Benchmark
+	public NetFlowPacket decode() throws CodecException {
+		this.decodeBuffer.rewind();
+		return this.codec.decodePacket(this.decodeBuffer);
+	}
+
+	/**
+	 * Decode packet by view. Versions without views are decoded to objects.
+	 *
+	 * @return sum of bytes of flows
+	 * @throws CodecException error decoding
+	 */
+	@Benchmark
+	public long decodeVisitor() throws CodecException {
+		this.decodeBuffer.rewind();
+		this.visitor.bytes = 0;
+		if (this.views) this.codec.decodePacket(this.decodeBuffer, this.visitor);
+		else for (final Flow flow : this.codec.decodePacket(this.decodeBuffer).getFlows()) {
+			this.visitor.bytes += flow.getBytesCount();
+		}
+		return this.visitor.bytes;
+	}
+
+	/**
+	 * Decode packet to batch. Versions without views are decoded to objects.
+	 *
+	 * @return count of decoded flows
+	 * @throws CodecException error decoding
+	 */
+	@Benchmark
+	public int decodeBatch() throws CodecException {
+		this.decodeBuffer.rewind();
+		if (!this.views) return this.codec.decodePacket(this.decodeBuffer).getFlowsCount();
+		this.batch.clear();
+		return this.codec.decodePacket(this.decodeBuffer, this.batch);
+	}
+
+	/**
+	 * Visitor, which sum bytes of flows
+	 */
+	private static final class CountingVisitor implements FlowVisitor {
+		/** Sum of bytes */
+		long bytes = 0;
+
+		/**
+		 * Constructor
+		 */
+		CountingVisitor() {
+			super();
+		}
+
+		/**
+		 * @see org.dicr.netflow.codec.FlowVisitor#visitFlow(org.dicr.netflow.codec.FlowView)
+		 */
+		public void visitFlow(final FlowView view) {
+			this.bytes += view.getBytesCount();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * ExporterBenchmark.java 17.10.2026
+ */
+package org.dicr.netflow.test.bench;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.dicr.netflow.codec.*;
+import org.dicr.netflow.exc.*;
+import org.dicr.netflow.exporter.impl.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Building of packets from expired flows by exporter.
+ * <P>
+ * Compare {@link AbstractExporter#buildPackets(Collection) building} of packet objects with encoding, as
+ * {@link UDPExporter} did before, and {@link PacketWriter streaming} of flows to wire buffer, which is used by
+ * {@link UDPExporter} now. Datagrams are not sent, so only building is measured.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExporterBenchmark {
+	/** Count of expired flows */
+	@Param( { "30", "1000", "100000" })
+	public int count;
+
+	/** Expired flows */
+	private List<Flow> flows;
+
+	/** Exporter */
+	private final NullExporter exporter = new NullExporter();
+
+	/** Buffer to encode packets */
+	private final ByteBuffer buf = ByteBuffer.allocate(65535);
+
+	/** Writer of packets */
+	private final PacketWriter writer = new PacketWriter(this.buf);
+
+	/**
+	 * Create flows
+	 */
+	@Setup
+	public void setup() {
+		this.flows = BenchmarkData.createFlows(FlowTypeV5.INSTANCE, this.count);
+	}
+
+	/**
+	 * Build packets and encode each packet
+	 *
+	 * @return size of datagrams
+	 * @throws NetFlowException error building packets
+	 */
+	@Benchmark
+	public long buildPackets() throws NetFlowException {
+		long size = 0;
+		for (final NetFlowPacket packet : this.exporter.buildPackets(this.flows)) {
+			this.buf.clear();
+			packet.getFlowType().getCodec().encodePacket(packet, this.buf);
+			size += this.buf.position();
+		}
+		return size;
+	}
+
+	/**
+	 * Stream flows to datagrams
+	 *
+	 * @return size of datagrams
+	 * @throws Exception error encoding flows
+	 */
+	@Benchmark
+	public long streamFlows() throws Exception {
+		this.exporter.size = 0;
+		this.exporter.stream(this.flows, this.writer);
+		return this.exporter.size;
+	}
+
+	/**
+	 * Exporter, which does not send datagrams
+	 */
+	private static final class NullExporter extends AbstractExporter {
+		/** Size of exported datagrams */
+		long size = 0;
+
+		/**
+		 * Constructor
+		 */
+		NullExporter() {
+			super();
+		}
+
+		/**
+		 * Stream flows
+		 *
+		 * @param flows flows to export
+		 * @param writer writer of packets
+		 * @throws IOException not thrown
+		 * @throws NetFlowException error encoding flows
+		 */
+		void stream(final Collection<? extends Flow> flows, final PacketWriter writer) throws IOException,
+		        NetFlowException {
+			this.streamFlows(flows, writer);
+		}
+
+		/**
+		 * @see org.dicr.netflow.exporter.impl.AbstractExporter#exportDatagram(java.nio.ByteBuffer)
+		 */
+		@Override
+		protected void exportDatagram(final ByteBuffer datagram) {
+			this.size += datagram.remaining();
+		}
+
+		/**
+		 * @see org.dicr.netflow.exporter.NetFlowExporter#export(org.dicr.netflow.packet.NetFlowPacket)
+		 */
+		public void export(final NetFlowPacket packet) {
+			// NOP
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * FlowCacheBenchmark.java 17.10.2026
+ */
+package org.dicr.netflow.test.bench;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.apache.log4j.*;
+import org.dicr.netflow.cache.impl.*;
+import org.dicr.netflow.impl.v5.*;
+import org.dicr.netflow.packet.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Level;
+
+/**
+ * Performance of {@link DefaultFlowCache} with different count of cached flows and cardinality of keys.
+ * <P>
+ * Cache is filled with <CODE>size</CODE> flows. Accumulated flows have keys from range of <CODE>size * keys</CODE>
+ * distinct keys, so with <CODE>keys</CODE> less than 1 all flows are merged with cached, and with larger values most
+ * flows are new. Accumulation {@link AbstractFlowCache#expire() expire} cache every
+ * {@link FlowCacheBenchmark#EXPIRE_INTERVAL} flows, as timer of cache does, so new flows evict cached flows and count
+ * of cached flows stays near <CODE>size</CODE>. Cost of expiration is included in accumulation. Flows does not expire
+ * by time during benchmark.
+ * </P>
+ *
+ * @author <A href='http://dicr.org'>Igor A Tarasov</A>
+ * @version 261017
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx8g" })
+public class FlowCacheBenchmark {
+	/** Count of flows, accumulated in cache, before expire */
+	static final int OVERFLOW = 1000;
+
+	/** Count of accumulated flows between expirations of cache, power of two */
+	static final int EXPIRE_INTERVAL = 1024;
+
+	/** Count of prepared flows to accumulate */
+	static final int FLOWS_COUNT = 1 << 20;
+
+	/**
+	 * Accumulate flow
+	 *
+	 * @param state filled cache
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void accumulate(final CacheState state) {
+		state.cache.accumulate(state.flows[state.index++ & FlowCacheBenchmark.FLOWS_COUNT - 1]);
+		if ((state.index & FlowCacheBenchmark.EXPIRE_INTERVAL - 1) == 0) state.cache.expire();
+	}
+
+	/**
+	 * Expire {@link FlowCacheBenchmark#OVERFLOW} flows, which overflow cache.
+	 *
+	 * @param state overflowed cache
+	 * @return expired flows
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Collection<Flow> expire(final OverflowState state) {
+		return state.cache.expire();
+	}
+
+	/**
+	 * Filled cache
+	 */
+	@State(Scope.Thread)
+	public static class CacheState {
+		/** Count of cached flows */
+		@Param( { "1000", "100000", "1000000", "10000000" })
+		public int size;
+
+		/** Ratio of distinct keys of accumulated flows to size of cache */
+		@Param( { "0.1", "1", "10" })
+		public double keys;
+
+		/** Cache */
+		DefaultFlowCache cache;
+
+		/** Prepared flows to accumulate */
+		Flow[] flows;
+
+		/** Index of next flow */
+		int index = 0;
+
+		/** Next key, which is not in cache */
+		int nextKey = 0;
+
+		/**
+		 * Create and fill cache
+		 */
+		@Setup(Level.Trial)
+		public void fill() {
+			Logger.getRootLogger().setLevel(org.apache.log4j.Level.ERROR);
+			this.cache = new DefaultFlowCache(FlowTypeV5.INSTANCE);
+			this.cache.setBufferSize(this.size);
+			this.cache.setExpireTime(86400);
+			this.cache.setInactiveTime(86400);
+			for (int i = 0; i < this.size; i++) {
+				this.cache.accumulate(BenchmarkData.createFlow(i));
+			}
+			final int range = Math.max(1, (int) (this.size * this.keys));
+			final Random r = new Random(this.size);
+			this.flows = new Flow[FlowCacheBenchmark.FLOWS_COUNT];
+			for (int i = 0; i < this.flows.length; i++) {
+				this.flows[i] = BenchmarkData.createFlow(r.nextInt(range));
+			}
+			this.nextKey = Math.max(this.size, range);
+		}
+	}
+
+	/**
+	 * Cache, overflowed before each invocation
+	 */
+	@State(Scope.Thread)
+	public static class OverflowState extends CacheState {
+		/**
+		 * Add new flows to overflow cache
+		 */
+		@Setup(Level.Invocation)
+		public void overflow() {
+			for (int i = 0; i < FlowCacheBenchmark.OVERFLOW; i++) {
+				this.cache.accumulate(BenchmarkData.createFlow(this.nextKey++));
+			}
+		}
+	}
+}